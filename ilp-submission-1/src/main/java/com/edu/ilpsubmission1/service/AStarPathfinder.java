@@ -1,108 +1,898 @@
 package com.edu.ilpsubmission1.service;
 
 import com.edu.ilpsubmission1.dtos.*;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.util.*;
 
+import static com.edu.ilpsubmission1.service.Lattice.DIRECTION_COUNT;
+import static com.edu.ilpsubmission1.service.Lattice.DX;
+import static com.edu.ilpsubmission1.service.Lattice.DY;
+import static com.edu.ilpsubmission1.service.Lattice.STEP_SIZE;
+
 @Component
 public class AStarPathfinder {
 
-    private static final double[] DIRECTIONS = {
-            0, 22.5, 45, 67.5, 90, 112.5, 135, 157.5,
-            180, 202.5, 225, 247.5, 270, 292.5, 315, 337.5
-    };
-    private static final double STEP_SIZE = 0.00015;
-    private static final double HEURISTIC_MULTIPLIER = 1.5;
+    static final double HEURISTIC_MULTIPLIER = 1.5;
     private static final int ITERATION_LIMIT = 50000;
+    /** move budget of the unbounded searches */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+    /** the anytime search checks its deadline once every this many + 1 expansions */
+    private static final int DEADLINE_CHECK_MASK = 0xFF;
+    /** heuristic weights of the anytime rounds; the first finds a path fast, the last is plain A* */
+    private static final double[] ANYTIME_WEIGHTS = {3.0, 2.0, 1.5, 1.2, 1.0};
+    /** slack on the cost budget for the rounding accumulated by summing move lengths */
+    private static final double BUDGET_TOLERANCE = STEP_SIZE * 1e-6;
+    /** the wavefront gives up on goals further than this many times their straight-line distance */
+    private static final double WAVEFRONT_DETOUR_FACTOR = 2.0;
+    private static final int WAVEFRONT_NODE_LIMIT = 200_000;
+    /** the wavefront grows by at most this many nodes per goal pending when it starts */
+    private static final int WAVEFRONT_NODES_PER_GOAL = 40_000;
+    /** a greedy compass move is at most 11.25 deg off the bearing, so far from the target it gains this much */
+    private static final double MIN_GREEDY_PROGRESS = STEP_SIZE * Math.cos(Math.toRadians(11.25));
+    /** extra moves allowed for the slower convergence over the last step or two */
+    private static final int GREEDY_SLACK_MOVES = 4;
+    /** shortest leg, in moves, the parallel mode distributes unless configured otherwise */
+    static final int DEFAULT_PARALLEL_MIN_MOVES = 300;
+    /** a move spans two cells, so any node one move from a cell sits within this many cells of it */
+    private static final int PARENT_REACH_CELLS = 3;
+    /** shortest leg, in moves, planned coarse-to-fine; shorter legs gain little from the coarse pass */
+    private static final int COARSE_MIN_MOVES = 100;
+    /** clear moves given up on either side of the blocked stretch when a leg is repaired */
+    private static final int REPAIR_MARGIN_MOVES = 3;
 
     private final GeometryService geometryService;
+    private final BlockedMoveRasterService rasterService;
+    private final CollisionChecking collisionChecking;
+    private final ParallelLatticeSearch parallelSearch;
+    private final int parallelMinMoves;
+    private final Timer legTimer;
+    private final DistributionSummary legChecks;
+    /** rebuilt whenever a search comes in against a different zone index */
+    private volatile VisibilityGraph visibilityGraph;
 
     public AStarPathfinder(GeometryService geometryService) {
+        this(geometryService, null);
+    }
+
+    public AStarPathfinder(GeometryService geometryService, BlockedMoveRasterService rasterService) {
+        this(geometryService, rasterService, CollisionChecking.EAGER, new SimpleMeterRegistry());
+    }
+
+    public AStarPathfinder(GeometryService geometryService, BlockedMoveRasterService rasterService,
+                           CollisionChecking collisionChecking, MeterRegistry meterRegistry) {
+        this(geometryService, rasterService, collisionChecking, meterRegistry, 0, DEFAULT_PARALLEL_MIN_MOVES);
+    }
+
+    /**
+     * @param parallelWorkers workers of the parallel search mode; zero or less means one per core
+     */
+    @Autowired
+    public AStarPathfinder(GeometryService geometryService, BlockedMoveRasterService rasterService,
+                           @Value("${pathfinding.collision-checking:EAGER}") CollisionChecking collisionChecking,
+                           MeterRegistry meterRegistry,
+                           @Value("${pathfinding.parallel.workers:0}") int parallelWorkers,
+                           @Value("${pathfinding.parallel.min-moves:" + DEFAULT_PARALLEL_MIN_MOVES + "}") int parallelMinMoves) {
         this.geometryService = geometryService;
+        this.rasterService = rasterService;
+        this.collisionChecking = collisionChecking;
+        this.parallelSearch = new ParallelLatticeSearch(geometryService,
+                parallelWorkers > 0 ? parallelWorkers : Runtime.getRuntime().availableProcessors());
+        this.parallelMinMoves = parallelMinMoves;
+        String checking = collisionChecking.name().toLowerCase(Locale.ROOT);
+        this.legTimer = Timer.builder("pathfinding.leg.time")
+                .description("Wall time of one leg search")
+                .tag("checking", checking)
+                .register(meterRegistry);
+        this.legChecks = DistributionSummary.builder("pathfinding.leg.collision.checks")
+                .description("Collision checks made by one leg search")
+                .tag("checking", checking)
+                .register(meterRegistry);
     }
 
+    /**
+     * Searches the lattice from start until a node lands within one move of end.
+     * Nodes are keyed on their lattice cell; the first exact point reaching a cell
+     * stands for it, and is replaced whenever a cheaper parent is found while it is still open.
+     */
     public List<Position> findPath(Position start, Position end, List<Region> restrictedZones) {
-        Node startNode = createNode(start, 0, end);
+        return search(start, end, ZoneIndex.compile(restrictedZones));
+    }
+
+    /**
+     * Same as {@link #findPath(Position, Position, List)} with at most maxMoves moves.
+     */
+    public PathSearchResult findPath(Position start, Position end, List<Region> restrictedZones, int maxMoves) {
+        return search(start, end, ZoneIndex.compile(restrictedZones), maxMoves);
+    }
+
+    /**
+     * Same as {@link #findPath(Position, Position, List)} against zones that are already compiled.
+     */
+    public List<Position> search(Position start, Position end, ZoneIndex zones) {
+        return search(start, end, zones, UNBOUNDED).path();
+    }
+
+    /**
+     * Bounded search: any node whose moves so far plus the fewest moves that could still reach end
+     * exceed maxMoves is pruned, and the result tells a leg that only failed for lack of budget
+     * apart from one that has no path at all.
+     */
+    public PathSearchResult search(Position start, Position end, ZoneIndex zones, int maxMoves) {
+        return search(start, end, zones, maxMoves, SearchMode.UNIDIRECTIONAL);
+    }
+
+    /**
+     * Bounded search whose lattice stage runs in the given mode.
+     */
+    public PathSearchResult search(Position start, Position end, ZoneIndex zones, int maxMoves, SearchMode mode) {
+        CountingMoveChecker checker = checkerFor(zones);
+        Timer.Sample sample = Timer.start();
+        PathSearchResult result = searchLeg(start, end, zones, checker, maxMoves, mode);
+        record(sample, checker);
+        return result;
+    }
+
+    private PathSearchResult searchLeg(Position start, Position end, ZoneIndex zones, MoveChecker checker,
+                                       int maxMoves, SearchMode mode) {
+        if (provenUnreachable(start, end, zones)) {
+            return PathSearchResult.noPath();
+        }
+        if (minimumMoves(start, end) > maxMoves) {
+            return PathSearchResult.overBudget();
+        }
+
+        List<Position> direct = straightLine(start, end, zones, checker);
+        if (direct != null && direct.size() - 1 <= maxMoves) {
+            return PathSearchResult.found(direct);
+        }
+
+        PathSearchResult searched = latticeSearch(start, end, checker, maxMoves, mode);
+        return searched.outcome() == PathSearchResult.Outcome.ITERATION_LIMIT
+                ? followWaypoints(start, end, zones, checker, mode, maxMoves, searched)
+                : searched;
+    }
+
+    /**
+     * Anytime search in the style of ARA*: the first path comes from a heavily weighted search, then
+     * the search restarts with lower weights while the deadline allows, each round bounded by the
+     * best path so far so it can only return a shorter one. The last round is plain A*. The first
+     * path is always computed; the deadline only cuts the improvement rounds short.
+     */
+    public PathSearchResult searchAnytime(Position start, Position end, ZoneIndex zones, int maxMoves,
+                                          Deadline deadline) {
+        CountingMoveChecker checker = checkerFor(zones);
+        Timer.Sample sample = Timer.start();
+        PathSearchResult result = anytimeLeg(start, end, zones, checker, maxMoves, deadline);
+        record(sample, checker);
+        return result;
+    }
+
+    private PathSearchResult anytimeLeg(Position start, Position end, ZoneIndex zones, MoveChecker checker,
+                                        int maxMoves, Deadline deadline) {
+        if (provenUnreachable(start, end, zones)) {
+            return PathSearchResult.noPath();
+        }
+        int lowerBound = minimumMoves(start, end);
+        if (lowerBound > maxMoves) {
+            return PathSearchResult.overBudget();
+        }
+
+        List<Position> direct = straightLine(start, end, zones, checker);
+        if (direct != null && direct.size() - 1 <= maxMoves) {
+            return PathSearchResult.found(direct);
+        }
+
+        PathSearchResult best = null;
+        for (double weight : ANYTIME_WEIGHTS) {
+            if (best != null && (best.moves() <= lowerBound || deadline.expired())) break;
+
+            double bound = best == null ? maxCost(maxMoves) : (best.moves() - 1) * STEP_SIZE + BUDGET_TOLERANCE;
+            PathSearchResult round = weightedAStar(start, end, checker, bound, weight,
+                    best == null ? Deadline.NONE : deadline);
+            if (round == null) break;
+            if (round.isFound()) {
+                best = round;
+            } else if (best == null) {
+                return round.outcome() == PathSearchResult.Outcome.ITERATION_LIMIT
+                        ? followWaypoints(start, end, zones, checker, SearchMode.UNIDIRECTIONAL, maxMoves, round)
+                        : round;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Repairs a leg that zones added since it was planned now cut between moves firstBlocked and
+     * lastBlocked, in the spirit of D* Lite: only the broken stretch is replanned. The path is kept
+     * up to a few moves before the stretch, a detour is searched to a few moves past it, and the
+     * rest of the leg's moves are replayed from where the detour arrived, each checked again at
+     * its shifted position, with a short final search if the replayed leg ends too far from end.
+     * Returns null when the stretch cannot be repaired that way, leaving the caller to replan.
+     */
+    public List<Position> repair(List<Position> path, Position end, ZoneIndex zones, int firstBlocked,
+                                 int lastBlocked) {
+        CountingMoveChecker checker = checkerFor(zones);
+        Timer.Sample sample = Timer.start();
+        List<Position> repaired = repairLeg(path, end, zones, checker, firstBlocked, lastBlocked);
+        record(sample, checker);
+        return repaired;
+    }
+
+    private List<Position> repairLeg(List<Position> path, Position end, ZoneIndex zones, MoveChecker checker,
+                                     int firstBlocked, int lastBlocked) {
+        int from = Math.max(0, firstBlocked - REPAIR_MARGIN_MOVES);
+        int rejoin = lastBlocked + 1 + REPAIR_MARGIN_MOVES;
+        List<Position> repaired = new ArrayList<>(path.subList(0, from + 1));
+        if (rejoin >= path.size() - 1) {
+            return extend(repaired, end, zones, checker) ? repaired : null;
+        }
+        if (!extend(repaired, path.get(rejoin), zones, checker)) return null;
+        return replay(path, rejoin, repaired, end, zones, checker) ? repaired : null;
+    }
+
+    /**
+     * Flies a leg that was planned from a nearby point from start instead: its moves are replayed
+     * from start, each checked again at its shifted position. Where a shifted move is blocked, a
+     * detour is searched back onto the planned leg a few moves further on, as {@link #repair} does,
+     * and the replay carries on from there. Returns null when that fails, leaving the caller to search.
+     */
+    public List<Position> reanchor(List<Position> leg, Position start, Position end, ZoneIndex zones) {
+        CountingMoveChecker checker = checkerFor(zones);
+        Timer.Sample sample = Timer.start();
+        List<Position> path = new ArrayList<>(leg.size() + 1);
+        path.add(start);
+        int blocked = shift(leg, 0, path, checker);
+        boolean reached;
+        if (blocked < 0) {
+            reached = arrive(path, end, zones, checker);
+        } else {
+            int rejoin = blocked + 1 + REPAIR_MARGIN_MOVES;
+            reached = rejoin >= leg.size() - 1
+                    ? extend(path, end, zones, checker)
+                    : extend(path, leg.get(rejoin), zones, checker) && replay(leg, rejoin, path, end, zones, checker);
+        }
+        record(sample, checker);
+        return reached ? path : null;
+    }
+
+    /**
+     * Appends the moves of source after point from to the end of path, then reaches end if the
+     * shifted moves stop short of it; false when a move is blocked or end cannot be reached.
+     */
+    private boolean replay(List<Position> source, int from, List<Position> path, Position end, ZoneIndex zones,
+                           MoveChecker checker) {
+        return shift(source, from, path, checker) < 0 && arrive(path, end, zones, checker);
+    }
+
+    /**
+     * Appends the moves of source after point from to the end of path, stopping before the first
+     * that is blocked at its shifted position; returns that move's index in source, or -1.
+     */
+    private int shift(List<Position> source, int from, List<Position> path, MoveChecker checker) {
+        Position arrived = path.get(path.size() - 1);
+        double lng = arrived.getLng();
+        double lat = arrived.getLat();
+        for (int i = from; i < source.size() - 1; i++) {
+            int direction = Lattice.nearestDirection(source.get(i + 1).getLng() - source.get(i).getLng(),
+                    source.get(i + 1).getLat() - source.get(i).getLat());
+            double nextLng = lng + DX[direction];
+            double nextLat = lat + DY[direction];
+            if (checker.isBlockedMove(lng, lat, direction, nextLng, nextLat)) return i;
+            path.add(new Position(nextLng, nextLat));
+            lng = nextLng;
+            lat = nextLat;
+        }
+        return -1;
+    }
+
+    /**
+     * True when the path already ends close to end, or a short search from its last point reaches it.
+     */
+    private boolean arrive(List<Position> path, Position end, ZoneIndex zones, MoveChecker checker) {
+        Position last = path.get(path.size() - 1);
+        return geometryService.checkPointsClose(last.getLng(), last.getLat(), end.getLng(), end.getLat())
+                || extend(path, end, zones, checker);
+    }
 
-        PriorityQueue<Node> openQueue = new PriorityQueue<>();
-        Map<Position, Node> openMap = new HashMap<>();
-        Set<Position> closedSet = new HashSet<>();
+    /**
+     * Appends a leg from the path's last point to target; false when there is none.
+     */
+    private boolean extend(List<Position> path, Position target, ZoneIndex zones, MoveChecker checker) {
+        PathSearchResult leg = searchLeg(path.get(path.size() - 1), target, zones, checker, UNBOUNDED,
+                SearchMode.UNIDIRECTIONAL);
+        if (!leg.isFound()) return false;
+        path.addAll(leg.path().subList(1, leg.path().size()));
+        return true;
+    }
 
-        openQueue.add(startNode);
-        openMap.put(startNode.position, startNode);
+    private CountingMoveChecker checkerFor(ZoneIndex zones) {
+        return new CountingMoveChecker(rasterService == null ? zones : rasterService.checkerFor(zones));
+    }
+
+    private void record(Timer.Sample sample, CountingMoveChecker checker) {
+        sample.stop(legTimer);
+        legChecks.record(checker.checks());
+    }
 
-        int iteration = 0;
+    /**
+     * Cheap proofs that no path exists: every move out of a start inside a zone is blocked, every
+     * point within a move of the end lies inside a zone, or the two ends sit in different
+     * components of the rasterised free space.
+     */
+    private boolean provenUnreachable(Position start, Position end, ZoneIndex zones) {
+        double startLng = start.getLng();
+        double startLat = start.getLat();
+        double endLng = end.getLng();
+        double endLat = end.getLat();
+        if (zones.isEmpty() || geometryService.checkPointsClose(startLng, startLat, endLng, endLat)) {
+            return false;
+        }
+        if (zones.isPointBlocked(startLng, startLat)) {
+            return true;
+        }
+        if (zones.isBoxInsideZone(endLng - STEP_SIZE, endLat - STEP_SIZE, endLng + STEP_SIZE, endLat + STEP_SIZE)) {
+            return true;
+        }
+        FreeSpaceComponents components = rasterService == null ? null : rasterService.componentsFor(zones);
+        return components != null && !components.mayReach(startLng, startLat, endLng, endLat);
+    }
 
-        while (!openQueue.isEmpty() && iteration < ITERATION_LIMIT) {
-            iteration++;
+    /**
+     * Lower bound on the moves from one point to within a move of another.
+     */
+    public static int minimumMoves(Position from, Position to) {
+        double distance = GeometryService.distance(from.getLng(), from.getLat(), to.getLng(), to.getLat());
+        return (int) Math.max(0, Math.ceil((distance - STEP_SIZE) / STEP_SIZE - 1e-9));
+    }
 
-            Node current = openQueue.poll();
-            openMap.remove(current.position);
+    /**
+     * Flies the corner chain planned on the visibility graph, for a leg the lattice search gave up
+     * on. The chain is padded out at its corners, so it is never preferred over a search that
+     * finishes. Returns the given result of the search when the graph has no route, a leg of the
+     * chain cannot be completed, or the chain misses the budget.
+     */
+    private PathSearchResult followWaypoints(Position start, Position end, ZoneIndex zones, MoveChecker checker,
+                                             SearchMode mode, int maxMoves, PathSearchResult searched) {
+        if (zones.isEmpty()) return searched;
+        double[] waypoints = visibilityGraphFor(zones).plan(start.getLng(), start.getLat(),
+                end.getLng(), end.getLat());
+        if (waypoints == null || waypoints.length == 0) return searched;
+        List<Position> guided = flyWaypoints(start, end, waypoints, zones, checker, mode);
+        return guided != null && guided.size() - 1 <= maxMoves ? PathSearchResult.found(guided) : searched;
+    }
+
+    /**
+     * One leg per interleaved waypoint, each starting from the exact point where the previous one
+     * arrived: the straight line where the corridor is clear, the lattice search otherwise.
+     */
+    private List<Position> flyWaypoints(Position start, Position end, double[] waypoints, ZoneIndex zones,
+                                        MoveChecker checker, SearchMode mode) {
+        List<Position> path = new ArrayList<>();
+        path.add(start);
+        for (int i = 0; i <= waypoints.length / 2; i++) {
+            Position from = path.get(path.size() - 1);
+            Position to = i < waypoints.length / 2 ? new Position(waypoints[i * 2], waypoints[i * 2 + 1]) : end;
+
+            List<Position> leg = straightLine(from, to, zones, checker);
+            if (leg == null) leg = latticeSearch(from, to, checker, UNBOUNDED, mode).path();
+            if (leg.isEmpty()) return null;
+            path.addAll(leg.subList(1, leg.size()));
+        }
+        return path;
+    }
+
+    private VisibilityGraph visibilityGraphFor(ZoneIndex zones) {
+        VisibilityGraph graph = visibilityGraph;
+        if (graph == null || graph.zones() != zones) {
+            graph = VisibilityGraph.build(zones);
+            visibilityGraph = graph;
+        }
+        return graph;
+    }
+
+    /**
+     * Runs the lattice search in the requested mode between two exact points.
+     */
+    PathSearchResult latticeSearch(Position start, Position end, MoveChecker checker, int maxMoves, SearchMode mode) {
+        return switch (mode) {
+            case UNIDIRECTIONAL -> aStar(start, end, checker, maxMoves);
+            case BIDIRECTIONAL -> bidirectional(start, end, checker, maxMoves);
+            case HIERARCHICAL -> hierarchical(start, end, checker, maxMoves);
+            case PARALLEL -> parallel(start, end, checker, maxMoves);
+            case COARSE_TO_FINE -> coarseToFine(start, end, checker, maxMoves);
+        };
+    }
+
+    /**
+     * Plans on the coarse lattice first and confines the one-sided search to the corridor around
+     * the coarse route. The full lattice is searched only when the coarse lattice has no route or
+     * the corridor holds no path within budget.
+     */
+    private PathSearchResult coarseToFine(Position start, Position end, MoveChecker checker, int maxMoves) {
+        if (minimumMoves(start, end) < COARSE_MIN_MOVES) {
+            return aStar(start, end, checker, maxMoves);
+        }
+        CoarseCorridor corridor;
+        SearchContext context = SearchContext.acquire();
+        try {
+            corridor = CoarseCorridor.plan(start.getLng(), start.getLat(), end.getLng(), end.getLat(),
+                    HEURISTIC_MULTIPLIER, checker, context.forward);
+        } finally {
+            context.release();
+        }
+        if (corridor != null) {
+            PathSearchResult confined = aStar(start, end, corridor, maxMoves);
+            if (confined.isFound()) return confined;
+        }
+        return aStar(start, end, checker, maxMoves);
+    }
+
+    /**
+     * Hash-distributed A* with the one-sided search's weight, for legs long enough that spreading
+     * the frontier pays for the hand-offs between workers.
+     */
+    private PathSearchResult parallel(Position start, Position end, MoveChecker checker, int maxMoves) {
+        if (parallelSearch.workers() == 1 || minimumMoves(start, end) < parallelMinMoves) {
+            return aStar(start, end, checker, maxMoves);
+        }
+        Goal goal = goal(end.getLng(), end.getLat(), start.getLng(), start.getLat(), HEURISTIC_MULTIPLIER, checker);
+        return parallelSearch.search(start, end, checker, maxCost(maxMoves), goal, ITERATION_LIMIT);
+    }
 
-            if (geometryService.checkPointsClose(current.position, end)) {
-                return buildPath(current);
+    /**
+     * Plans on the cluster graph and refines the waypoint chain with one short leg per waypoint, so
+     * a leg's cost grows with the number of waypoints rather than the area searched. Falls back to
+     * the one-sided search without a cluster graph, when both ends share a cluster, or when the
+     * refined path misses the budget.
+     */
+    private PathSearchResult hierarchical(Position start, Position end, MoveChecker checker, int maxMoves) {
+        ClusterGraph clusters = rasterService == null ? null : rasterService.clustersFor(checker);
+        double[] waypoints = clusters == null ? null
+                : clusters.plan(start.getLng(), start.getLat(), end.getLng(), end.getLat());
+        if (waypoints != null) {
+            List<Position> path = flyWaypoints(start, end, waypoints, clusters.zones(), checker,
+                    SearchMode.UNIDIRECTIONAL);
+            if (path != null && path.size() - 1 <= maxMoves) {
+                return PathSearchResult.found(path);
             }
+        }
+        return aStar(start, end, checker, maxMoves);
+    }
+
+    private PathSearchResult aStar(Position start, Position end, MoveChecker checker, int maxMoves) {
+        return weightedAStar(start, end, checker, maxCost(maxMoves), HEURISTIC_MULTIPLIER, Deadline.NONE);
+    }
 
-            closedSet.add(current.position);
+    /**
+     * A* with the given heuristic weight and cost bound. Returns null when the deadline passes
+     * before the search settles, and {@link PathSearchResult.Outcome#ITERATION_LIMIT} when it gives
+     * up after {@link #ITERATION_LIMIT} polls.
+     */
+    private PathSearchResult weightedAStar(Position start, Position end, MoveChecker checker,
+                                           double maxCost, double weight, Deadline deadline) {
+        double startLng = start.getLng();
+        double startLat = start.getLat();
+        double endLng = end.getLng();
+        double endLat = end.getLat();
+        Goal goal = goal(endLng, endLat, startLng, startLat, weight, checker);
+        boolean lazy = collisionChecking == CollisionChecking.LAZY;
+        boolean pruned = false;
 
-            for (double direction : DIRECTIONS) {
-                Position next = geometryService.calculateNextPosition(current.position, direction);
+        SearchContext context = SearchContext.acquire();
+        try {
+            SearchArena tree = context.forward;
+            tree.push(tree.add(Lattice.cellOf(startLng, startLat), startLng, startLat, 0,
+                    goal.estimate(startLng, startLat), SearchArena.NONE, SearchArena.NONE));
 
-                if (closedSet.contains(next)) continue;
-                if (isBlockedMove(current.position, next, restrictedZones)) continue;
+            int iteration = 0;
 
-                double tentativeG = current.gCost + STEP_SIZE;
-                Node neighbor = openMap.get(next);
+            while (!tree.isQueueEmpty()) {
+                if (iteration == ITERATION_LIMIT) return PathSearchResult.iterationLimit();
+                iteration++;
+                if ((iteration & DEADLINE_CHECK_MASK) == 0 && deadline.expired()) return null;
 
-                if (neighbor == null) {
-                    neighbor = createNode(next, tentativeG, end);
-                    neighbor.parent = current;
-                    openQueue.add(neighbor);
-                    openMap.put(next, neighbor);
-                } else if (tentativeG < neighbor.gCost) {
-                    neighbor.gCost = tentativeG;
-                    neighbor.fCost = tentativeG + neighbor.hCost;
-                    neighbor.parent = current;
-                    openQueue.remove(neighbor);
-                    openQueue.add(neighbor);
+                int current = tree.poll();
+
+                if (!tree.verified[current]) {
+                    int parent = tree.parent[current];
+                    if (checker.isBlockedMove(tree.lng[parent], tree.lat[parent], tree.move[current],
+                            tree.lng[current], tree.lat[current])) {
+                        if (!reparent(tree, current, goal, checker, context)) continue;
+                        double remaining = goal.lowerBound(tree.lng[current], tree.lat[current]);
+                        if (tree.g[current] + Math.max(0, remaining - STEP_SIZE) > maxCost) {
+                            tree.g[current] = Double.POSITIVE_INFINITY;
+                            pruned = true;
+                            continue;
+                        }
+                        tree.push(current);
+                        continue;
+                    }
+                    tree.verified[current] = true;
+                }
+
+                if (geometryService.checkPointsClose(tree.lng[current], tree.lat[current], endLng, endLat)) {
+                    return PathSearchResult.found(buildPath(tree, current));
                 }
+
+                tree.closed[current] = true;
+                pruned |= expand(tree, current, goal, false, checker, maxCost, lazy);
             }
+        } finally {
+            context.release();
         }
 
-        return Collections.emptyList();
+        return pruned ? PathSearchResult.overBudget() : PathSearchResult.noPath();
     }
 
-    private Node createNode(Position pos, double g, Position target) {
-        Node node = new Node(pos);
-        node.gCost = g;
-        node.hCost = geometryService.calculateDistance(pos, target) * HEURISTIC_MULTIPLIER;
-        node.fCost = node.gCost + node.hCost;
-        return node;
+    /**
+     * Grows one tree forward from start and one backward from end, always expanding the side with
+     * the smaller open list. A node settled in a cell the other tree has reached closes a candidate
+     * path: the forward half is kept as is and the backward half is replayed move by move from the
+     * forward node, which lands within a cell's width of end. Search stops once the best joined
+     * path costs no more than the larger of the two smallest open keys (Pohl's rule, on the same
+     * weighted keys as the one-sided search).
+     */
+    private PathSearchResult bidirectional(Position start, Position end, MoveChecker checker, int maxMoves) {
+        double startLng = start.getLng();
+        double startLat = start.getLat();
+        double endLng = end.getLng();
+        double endLat = end.getLat();
+        double maxCost = maxCost(maxMoves);
+        boolean pruned = false;
+
+        Goal forwardGoal = goal(endLng, endLat, startLng, startLat, HEURISTIC_MULTIPLIER, checker);
+        Goal backwardGoal = goal(startLng, startLat, endLng, endLat, HEURISTIC_MULTIPLIER, checker);
+        SearchContext context = SearchContext.acquire();
+        try {
+            SearchArena forwardTree = context.forward;
+            SearchArena backwardTree = context.backward;
+            int forwardRoot = forwardTree.add(Lattice.cellOf(startLng, startLat), startLng, startLat, 0,
+                    forwardGoal.estimate(startLng, startLat), SearchArena.NONE, SearchArena.NONE);
+            int backwardRoot = backwardTree.add(Lattice.cellOf(endLng, endLat), endLng, endLat, 0,
+                    backwardGoal.estimate(endLng, endLat), SearchArena.NONE, SearchArena.NONE);
+            forwardTree.push(forwardRoot);
+            backwardTree.push(backwardRoot);
+
+            List<Position> best = null;
+            double bestCost = Double.POSITIVE_INFINITY;
+            int iteration = 0;
+
+            while (!forwardTree.isQueueEmpty() && !backwardTree.isQueueEmpty()) {
+                if (bestCost <= Math.max(forwardTree.f[forwardTree.peek()], backwardTree.f[backwardTree.peek()])) {
+                    break;
+                }
+                if (iteration == ITERATION_LIMIT) {
+                    if (best == null) return PathSearchResult.iterationLimit();
+                    break;
+                }
+                iteration++;
+
+                boolean forward = forwardTree.queueSize() <= backwardTree.queueSize();
+                SearchArena tree = forward ? forwardTree : backwardTree;
+                SearchArena other = forward ? backwardTree : forwardTree;
+                int current = tree.poll();
+                tree.closed[current] = true;
+
+                int meeting = other.find(tree.cell[current]);
+                if (meeting == SearchArena.NONE) {
+                    boolean arrived = forward
+                            ? geometryService.checkPointsClose(tree.lng[current], tree.lat[current], endLng, endLat)
+                            : geometryService.checkPointsClose(tree.lng[current], tree.lat[current], startLng, startLat);
+                    if (arrived) meeting = forward ? backwardRoot : forwardRoot;
+                }
+                if (meeting != SearchArena.NONE) {
+                    double cost = tree.g[current] + other.g[meeting];
+                    if (cost < bestCost && cost <= maxCost) {
+                        List<Position> joined = forward
+                                ? buildPath(forwardTree, current, backwardTree, meeting, checker)
+                                : buildPath(forwardTree, meeting, backwardTree, current, checker);
+                        if (joined != null) {
+                            best = joined;
+                            bestCost = cost;
+                        }
+                    }
+                }
+
+                pruned |= expand(tree, current, forward ? forwardGoal : backwardGoal, !forward, checker,
+                        maxCost, false);
+            }
+
+            if (best != null) return PathSearchResult.found(best);
+        } finally {
+            context.release();
+        }
+        return pruned ? PathSearchResult.overBudget() : PathSearchResult.noPath();
     }
 
-    private boolean isBlockedMove(Position from, Position to, List<Region> zones) {
-        for (Region zone : zones) {
-            if (geometryService.isPointInRegion(to, zone)) {
-                return true;
+    /**
+     * Opens or re-parents the neighbours of a settled node. A backward tree checks each move in the
+     * direction it will be flown, towards the node it was expanded from. A lazy expansion queues the
+     * moves unchecked, leaving the check to whoever polls the node. Returns whether the budget
+     * pruned any neighbour.
+     */
+    private boolean expand(SearchArena tree, int current, Goal goal, boolean backward, MoveChecker checker,
+                           double maxCost, boolean lazy) {
+        double currentLng = tree.lng[current];
+        double currentLat = tree.lat[current];
+        double tentativeG = tree.g[current] + STEP_SIZE;
+        boolean pruned = false;
+        for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+            double nextLng = currentLng + DX[direction];
+            double nextLat = currentLat + DY[direction];
+            long cell = Lattice.cellOf(nextLng, nextLat);
+
+            int neighbor = tree.find(cell);
+            if (neighbor != SearchArena.NONE && (tree.closed[neighbor] || tentativeG >= tree.g[neighbor])) continue;
+            double remaining = goal.lowerBound(nextLng, nextLat);
+            if (tentativeG + Math.max(0, remaining - STEP_SIZE) > maxCost) {
+                pruned = true;
+                continue;
             }
-            if (geometryService.checkLineIntersectsRegion(from, to, zone)) {
-                return true;
+            if (!lazy) {
+                boolean blocked = backward
+                        ? checker.isBlockedMove(nextLng, nextLat, Lattice.opposite(direction), currentLng, currentLat)
+                        : checker.isBlockedMove(currentLng, currentLat, direction, nextLng, nextLat);
+                if (blocked) continue;
+            }
+
+            if (neighbor == SearchArena.NONE) {
+                neighbor = tree.add(cell, nextLng, nextLat, tentativeG, remaining * goal.weight, current, direction);
+                tree.verified[neighbor] = !lazy;
+                tree.push(neighbor);
+            } else {
+                tree.relink(neighbor, nextLng, nextLat, tentativeG, remaining * goal.weight, current, direction);
+                tree.verified[neighbor] = !lazy;
+                if (tree.isQueued(neighbor)) {
+                    tree.update(neighbor);
+                } else {
+                    tree.push(neighbor);
+                }
             }
         }
+        return pruned;
+    }
+
+    /**
+     * The move into a polled node turned out to be blocked. Re-anchors the node on the cheapest
+     * settled node one clear move from its cell, checking candidates cheapest first. Returns false,
+     * leaving the node discarded until a later expansion reaches its cell, when there is none.
+     */
+    private static boolean reparent(SearchArena tree, int node, Goal goal, MoveChecker checker,
+                                    SearchContext context) {
+        int blockedParent = tree.parent[node];
+        int blockedDirection = tree.move[node];
+        long nodeCell = tree.cell[node];
+        int column = Lattice.columnOf(nodeCell);
+        int row = Lattice.rowOf(nodeCell);
+        int[] parents = context.candidateParents;
+        int[] moves = context.candidateMoves;
+        int count = 0;
+        for (int r = row - PARENT_REACH_CELLS; r <= row + PARENT_REACH_CELLS; r++) {
+            for (int c = column - PARENT_REACH_CELLS; c <= column + PARENT_REACH_CELLS; c++) {
+                int candidate = tree.find(Lattice.pack(c, r));
+                if (candidate == SearchArena.NONE || !tree.closed[candidate]) continue;
+                for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+                    if (candidate == blockedParent && direction == blockedDirection) continue;
+                    if (Lattice.cellOf(tree.lng[candidate] + DX[direction], tree.lat[candidate] + DY[direction]) == nodeCell) {
+                        parents[count] = candidate;
+                        moves[count++] = direction;
+                    }
+                }
+            }
+        }
+
+        tree.g[node] = Double.POSITIVE_INFINITY;
+        while (count > 0) {
+            int cheapest = 0;
+            for (int i = 1; i < count; i++) {
+                if (tree.g[parents[i]] < tree.g[parents[cheapest]]) cheapest = i;
+            }
+            int parent = parents[cheapest];
+            int direction = moves[cheapest];
+            parents[cheapest] = parents[--count];
+            moves[cheapest] = moves[count];
+            double lng = tree.lng[parent] + DX[direction];
+            double lat = tree.lat[parent] + DY[direction];
+            if (checker.isBlockedMove(tree.lng[parent], tree.lat[parent], direction, lng, lat)) continue;
+
+            tree.relink(node, lng, lat, tree.g[parent] + STEP_SIZE, goal.estimate(lng, lat), parent, direction);
+            tree.verified[node] = true;
+            return true;
+        }
         return false;
     }
 
-    private List<Position> buildPath(Node target) {
-        List<Position> path = new ArrayList<>();
-        Node current = target;
+    private static double maxCost(int maxMoves) {
+        return maxMoves == UNBOUNDED ? Double.POSITIVE_INFINITY : maxMoves * STEP_SIZE + BUDGET_TOLERANCE;
+    }
+
+    /**
+     * Paths from one origin to many goals, aligned with goals; an empty list means the goal was not
+     * reached. Goals with a clear corridor take the straight-line fast path, the rest share a single
+     * breadth-first wavefront (every move costs the same, so BFS order is shortest-first) that stops
+     * once every goal is reached or the wavefront is exhausted within twice the furthest goal distance,
+     * or it has grown by {@link #WAVEFRONT_NODES_PER_GOAL} nodes per pending goal, up to
+     * {@link #WAVEFRONT_NODE_LIMIT}; goals it leaves unreached are best searched one by one.
+     */
+    public List<List<Position>> searchMany(Position origin, List<Position> goals, ZoneIndex zones) {
+        MoveChecker checker = rasterService == null ? zones : rasterService.checkerFor(zones);
+        List<List<Position>> paths = new ArrayList<>(Collections.nCopies(goals.size(), List.of()));
+
+        LongHashMap<int[]> goalsByCell = new LongHashMap<>();
+        int pending = 0;
+        double furthest = 0;
+        for (int i = 0; i < goals.size(); i++) {
+            if (provenUnreachable(origin, goals.get(i), zones)) continue;
+            List<Position> direct = straightLine(origin, goals.get(i), zones, checker);
+            if (direct != null) {
+                paths.set(i, direct);
+                continue;
+            }
+            registerGoal(goalsByCell, goals.get(i), i);
+            furthest = Math.max(furthest, geometryService.calculateDistance(origin, goals.get(i)));
+            pending++;
+        }
+        if (pending == 0) return paths;
+
+        double maxCost = furthest * WAVEFRONT_DETOUR_FACTOR + 2 * STEP_SIZE;
+        int nodeLimit = (int) Math.min(WAVEFRONT_NODE_LIMIT, (long) pending * WAVEFRONT_NODES_PER_GOAL);
+        SearchContext context = SearchContext.acquire();
+        try {
+            // nodes are appended in discovery order, so the arena's index range is the BFS queue
+            SearchArena tree = context.forward;
+            tree.add(Lattice.cellOf(origin.getLng(), origin.getLat()), origin.getLng(), origin.getLat(), 0, 0,
+                    SearchArena.NONE, SearchArena.NONE);
+
+            for (int current = 0; current < tree.size() && pending > 0 && tree.size() < nodeLimit;
+                 current++) {
+                double currentLng = tree.lng[current];
+                double currentLat = tree.lat[current];
+
+                int[] candidates = goalsByCell.get(tree.cell[current]);
+                if (candidates != null) {
+                    for (int goal : candidates) {
+                        if (!paths.get(goal).isEmpty()) continue;
+                        Position target = goals.get(goal);
+                        if (geometryService.checkPointsClose(currentLng, currentLat, target.getLng(), target.getLat())) {
+                            paths.set(goal, buildPath(tree, current));
+                            pending--;
+                        }
+                    }
+                }
+
+                double nextG = tree.g[current] + STEP_SIZE;
+                if (nextG > maxCost) continue;
+
+                for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+                    double nextLng = currentLng + DX[direction];
+                    double nextLat = currentLat + DY[direction];
+                    long cell = Lattice.cellOf(nextLng, nextLat);
+                    if (tree.find(cell) != SearchArena.NONE) continue;
+                    if (checker.isBlockedMove(currentLng, currentLat, direction, nextLng, nextLat)) continue;
+
+                    tree.add(cell, nextLng, nextLat, nextG, 0, current, direction);
+                }
+            }
+        } finally {
+            context.release();
+        }
+
+        return paths;
+    }
+
+    /**
+     * Files the goal under every cell holding points within one move of it, so a popped node
+     * only has to look at its own cell.
+     */
+    private static void registerGoal(LongHashMap<int[]> goalsByCell, Position goal, int index) {
+        int c0 = Lattice.column(goal.getLng() - STEP_SIZE);
+        int c1 = Lattice.column(goal.getLng() + STEP_SIZE);
+        int r0 = Lattice.row(goal.getLat() - STEP_SIZE);
+        int r1 = Lattice.row(goal.getLat() + STEP_SIZE);
+        for (int c = c0; c <= c1; c++) {
+            for (int r = r0; r <= r1; r++) {
+                long cell = Lattice.pack(c, r);
+                int[] existing = goalsByCell.get(cell);
+                int[] updated = existing == null ? new int[1] : Arrays.copyOf(existing, existing.length + 1);
+                updated[updated.length - 1] = index;
+                goalsByCell.put(cell, updated);
+            }
+        }
+    }
 
-        while (current != null) {
-            path.add(current.position);
-            current = current.parent;
+    /**
+     * When no zone comes near the corridor between start and end, flies the greedy compass move
+     * towards the target each step, validating every move. Returns null whenever the search is needed.
+     */
+    private List<Position> straightLine(Position start, Position end, ZoneIndex zones, MoveChecker checker) {
+        double lng = start.getLng();
+        double lat = start.getLat();
+        double endLng = end.getLng();
+        double endLat = end.getLat();
+
+        if (!zones.corridorClear(lng, lat, endLng, endLat, STEP_SIZE)) {
+            return null;
         }
 
-        Collections.reverse(path);
+        int maxMoves = (int) Math.ceil(GeometryService.distance(lng, lat, endLng, endLat) / MIN_GREEDY_PROGRESS)
+                + GREEDY_SLACK_MOVES;
+        List<Position> path = new ArrayList<>(maxMoves + 1);
+        path.add(start);
+
+        while (!geometryService.checkPointsClose(lng, lat, endLng, endLat)) {
+            if (path.size() > maxMoves) return null;
+
+            int direction = Lattice.nearestDirection(endLng - lng, endLat - lat);
+            double nextLng = lng + DX[direction];
+            double nextLat = lat + DY[direction];
+            if (checker.isBlockedMove(lng, lat, direction, nextLng, nextLat)) return null;
+
+            path.add(new Position(nextLng, nextLat));
+            lng = nextLng;
+            lat = nextLat;
+        }
         return path;
     }
-}
 
+    private Goal goal(double lng, double lat, double originLng, double originLat, double weight,
+                      MoveChecker checker) {
+        LandmarkHeuristic landmarks = rasterService == null ? null : rasterService.landmarksFor(checker);
+        LandmarkHeuristic.Target target = landmarks == null ? null : landmarks.towards(lng, lat, originLng, originLat);
+        return new Goal(lng, lat, weight, target == null ? null : landmarks, target);
+    }
+
+    /**
+     * The point a tree searches towards. The remaining distance is bounded below by the straight
+     * line and, where landmarks cover the target, by the landmark bound, which is what tells the
+     * search about zones in the way; the heuristic is that bound times the weight.
+     */
+    record Goal(double lng, double lat, double weight, LandmarkHeuristic landmarks,
+                LandmarkHeuristic.Target target) {
+
+        double lowerBound(double fromLng, double fromLat) {
+            double straight = GeometryService.distance(fromLng, fromLat, lng, lat);
+            if (landmarks == null) return straight;
+            return Math.max(straight, landmarks.lowerBound(fromLng, fromLat, target));
+        }
+
+        double estimate(double fromLng, double fromLat) {
+            return lowerBound(fromLng, fromLat) * weight;
+        }
+    }
+
+    /**
+     * The forward half up to its node, then the backward half's moves replayed from there, each
+     * one checked again at its shifted position. Null when a replayed move is blocked.
+     */
+    private static List<Position> buildPath(SearchArena forwardTree, int forward, SearchArena backwardTree,
+                                            int backward, MoveChecker checker) {
+        List<Position> path = buildPath(forwardTree, forward);
+        double lng = forwardTree.lng[forward];
+        double lat = forwardTree.lat[forward];
+        for (int node = backward; backwardTree.parent[node] != SearchArena.NONE; node = backwardTree.parent[node]) {
+            int direction = Lattice.opposite(backwardTree.move[node]);
+            double nextLng = lng + DX[direction];
+            double nextLat = lat + DY[direction];
+            if (checker.isBlockedMove(lng, lat, direction, nextLng, nextLat)) return null;
+            path.add(new Position(nextLng, nextLat));
+            lng = nextLng;
+            lat = nextLat;
+        }
+        return path;
+    }
+
+    private static List<Position> buildPath(SearchArena tree, int target) {
+        int moves = tree.depth(target);
+        Position[] points = new Position[moves + 1];
+        for (int node = target, i = moves; node != SearchArena.NONE; node = tree.parent[node], i--) {
+            points[i] = new Position(tree.lng[node], tree.lat[node]);
+        }
+        return new ArrayList<>(Arrays.asList(points));
+    }
+}
@@ -39,6 +39,38 @@ public class AvailabilityService {
             return Collections.emptyList();
         }
 
+        return availableDrones(allDrones, dronesBySP, servicePoints, dispatches, true);
+    }
+
+    /**
+     * The drones each dispatch could go with on its own, by requirements, time slot and reach,
+     * keyed by dispatch id, from one fetch of the ILP data. Cost is left to the caller, as a
+     * dispatch's share of it depends on the trip it ends up on.
+     */
+    public Map<Long, List<String>> queryEligibleDrones(List<MedDispatchRec> dispatches) {
+        Map<Long, List<String>> eligible = new LinkedHashMap<>();
+        if (dispatches == null || dispatches.isEmpty()) {
+            return eligible;
+        }
+
+        var allDrones = ilpClient.getDrones();
+        var dronesBySP = ilpClient.getDronesForServicePoints();
+        var servicePoints = ilpClient.getServicePoints();
+
+        for (MedDispatchRec dispatch : dispatches) {
+            eligible.put(dispatch.getId(), allDrones == null || dronesBySP == null || servicePoints == null
+                    ? Collections.emptyList()
+                    : availableDrones(allDrones, dronesBySP, servicePoints, List.of(dispatch), false));
+        }
+        return eligible;
+    }
+
+    private List<String> availableDrones(List<Map<String, Object>> allDrones,
+                                         List<Map<String, Object>> dronesBySP,
+                                         List<Map<String, Object>> servicePoints,
+                                         List<MedDispatchRec> dispatches,
+                                         boolean checkCost) {
+
         // ---- Build drone lookup map ----
         Map<String, Map<String, Object>> droneMap = new HashMap<>();
         for (Map<String, Object> d : allDrones) {
@@ -170,7 +202,8 @@ public class AvailabilityService {
                     }
 
                     // ----------- COST -----------
-                    if (dispatch.getRequirements() != null &&
+                    if (checkCost &&
+                            dispatch.getRequirements() != null &&
                             dispatch.getRequirements().getMaxCost() != null) {
 
                         double maxCost = dispatch.getRequirements().getMaxCost();
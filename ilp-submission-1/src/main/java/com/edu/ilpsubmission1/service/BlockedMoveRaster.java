@@ -0,0 +1,172 @@
+package com.edu.ilpsubmission1.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Pre-computed collision answers for every lattice cell of a fixed window.
+ * <p>
+ * A search node can sit anywhere inside its cell, so each cell stores a 16-bit mask of the
+ * compass moves that are blocked from at least one point of the cell. A clear bit is a
+ * certified free move and costs one array lookup; a set bit, or a move starting outside
+ * the window, falls back to the exact {@link ZoneIndex} check.
+ */
+public final class BlockedMoveRaster implements MoveChecker {
+
+    private static final int ROWS_PER_TASK = 16;
+
+    private final ZoneIndex zones;
+    private final int minColumn;
+    private final int minRow;
+    private final int columns;
+    private final int rows;
+    private final short[] masks;
+
+    private BlockedMoveRaster(ZoneIndex zones, int minColumn, int minRow, int columns, int rows) {
+        this.zones = zones;
+        this.minColumn = minColumn;
+        this.minRow = minRow;
+        this.columns = columns;
+        this.rows = rows;
+        this.masks = new short[columns * rows];
+    }
+
+    /**
+     * Rasterises the window [minLng, maxLng] x [minLat, maxLat] against the zones, one fork-join
+     * task per band of rows.
+     */
+    public static BlockedMoveRaster build(ZoneIndex zones, double minLng, double minLat,
+                                          double maxLng, double maxLat, ForkJoinPool pool) {
+        int minColumn = Lattice.column(minLng);
+        int minRow = Lattice.row(minLat);
+        int columns = Lattice.column(maxLng) - minColumn + 1;
+        int rows = Lattice.row(maxLat) - minRow + 1;
+
+        BlockedMoveRaster raster = new BlockedMoveRaster(zones, minColumn, minRow, columns, rows);
+        if (!zones.isEmpty()) {
+            pool.invoke(raster.new RasterizeRows(0, rows));
+        }
+        return raster;
+    }
+
+    public static long cellCount(double minLng, double minLat, double maxLng, double maxLat) {
+        return (long) (Lattice.column(maxLng) - Lattice.column(minLng) + 1)
+                * (Lattice.row(maxLat) - Lattice.row(minLat) + 1);
+    }
+
+    public ZoneIndex zones() {
+        return zones;
+    }
+
+    @Override
+    public ZoneIndex zoneIndex() {
+        return zones;
+    }
+
+    public long version() {
+        return zones.version();
+    }
+
+    public int cellCount() {
+        return masks.length;
+    }
+
+    public long sizeInBytes() {
+        return (long) masks.length * Short.BYTES;
+    }
+
+    public boolean covers(double lng, double lat) {
+        int column = Lattice.column(lng) - minColumn;
+        int row = Lattice.row(lat) - minRow;
+        return column >= 0 && column < columns && row >= 0 && row < rows;
+    }
+
+    int minColumn() {
+        return minColumn;
+    }
+
+    int minRow() {
+        return minRow;
+    }
+
+    int columns() {
+        return columns;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * Mask of the cell at the given window offset.
+     */
+    int maskAt(int column, int row) {
+        return masks[row * columns + column] & 0xFFFF;
+    }
+
+    /**
+     * Mask of moves that need an exact check from the given cell, or -1 outside the window.
+     */
+    int maskAt(double lng, double lat) {
+        int column = Lattice.column(lng) - minColumn;
+        int row = Lattice.row(lat) - minRow;
+        if (column < 0 || column >= columns || row < 0 || row >= rows) return -1;
+        return masks[row * columns + column] & 0xFFFF;
+    }
+
+    @Override
+    public boolean isBlockedMove(double fromLng, double fromLat, int direction, double toLng, double toLat) {
+        int mask = maskAt(fromLng, fromLat);
+        if (mask >= 0 && (mask & (1 << direction)) == 0) {
+            return false;
+        }
+        return zones.isBlockedMove(fromLng, fromLat, toLng, toLat);
+    }
+
+    private short rasterize(int column, int row) {
+        double loLng = (minColumn + column) * Lattice.CELL_SIZE;
+        double loLat = (minRow + row) * Lattice.CELL_SIZE;
+        double hiLng = loLng + Lattice.CELL_SIZE;
+        double hiLat = loLat + Lattice.CELL_SIZE;
+
+        if (!zones.mayTouch(loLng - Lattice.STEP_SIZE, loLat - Lattice.STEP_SIZE,
+                hiLng + Lattice.STEP_SIZE, hiLat + Lattice.STEP_SIZE)) {
+            return 0;
+        }
+
+        int mask = 0;
+        for (int d = 0; d < Lattice.DIRECTION_COUNT; d++) {
+            double dx = Lattice.DX[d];
+            double dy = Lattice.DY[d];
+            if (zones.mayTouch(loLng + Math.min(0, dx), loLat + Math.min(0, dy),
+                    hiLng + Math.max(0, dx), hiLat + Math.max(0, dy))) {
+                mask |= 1 << d;
+            }
+        }
+        return (short) mask;
+    }
+
+    private final class RasterizeRows extends RecursiveAction {
+        private final int fromRow;
+        private final int toRow;
+
+        RasterizeRows(int fromRow, int toRow) {
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= ROWS_PER_TASK) {
+                for (int row = fromRow; row < toRow; row++) {
+                    for (int column = 0; column < columns; column++) {
+                        masks[row * columns + column] = rasterize(column, row);
+                    }
+                }
+                return;
+            }
+            int middle = (fromRow + toRow) >>> 1;
+            invokeAll(new RasterizeRows(fromRow, middle), new RasterizeRows(middle, toRow));
+        }
+    }
+}
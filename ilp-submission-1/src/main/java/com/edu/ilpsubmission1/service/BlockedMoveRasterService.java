@@ -0,0 +1,229 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import com.edu.ilpsubmission1.dtos.ServicePoint;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional pre-rasterisation stage: rebuilds the {@link BlockedMoveRaster} over the bounding box
+ * of all service points and zones whenever the restricted areas change, together with the
+ * {@link FreeSpaceComponents} of that window used to reject unreachable legs up front and the
+ * {@link LandmarkHeuristic} distances from the service points and window corners, and the
+ * {@link ClusterGraph} behind hierarchical search. The rebuild runs in the background, so the
+ * request that changed the zones does not wait for it; until it is published, searches against the
+ * new zones check moves against the exact index. Footprint and build time are published as
+ * pathfinding.raster.* metrics.
+ */
+@Component
+@Slf4j
+public final class BlockedMoveRasterService {
+
+    /** padding of forty moves around the service points and zones */
+    private static final double WINDOW_PADDING = 40 * Lattice.STEP_SIZE;
+
+    private final IlpRestClient ilpRestClient;
+    private final Timer buildTimer;
+    private final boolean enabled;
+    private final long maxCells;
+    private final Executor executor;
+
+    /** newest zone version announced, so a rebuild for older zones does not overwrite a newer one */
+    private final AtomicLong newestVersion = new AtomicLong(Long.MIN_VALUE);
+    private volatile BlockedMoveRaster raster;
+    private volatile FreeSpaceComponents components;
+    private volatile LandmarkHeuristic landmarks;
+    private volatile ClusterGraph clusters;
+
+    @Autowired
+    public BlockedMoveRasterService(IlpRestClient ilpRestClient, MeterRegistry meterRegistry,
+                                    @Value("${pathfinding.raster.enabled:true}") boolean enabled,
+                                    @Value("${pathfinding.raster.max-cells:16000000}") long maxCells) {
+        this(ilpRestClient, meterRegistry, enabled, maxCells, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor runs the rebuild after a zone change
+     */
+    BlockedMoveRasterService(IlpRestClient ilpRestClient, MeterRegistry meterRegistry, boolean enabled,
+                             long maxCells, Executor executor) {
+        this.ilpRestClient = ilpRestClient;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.maxCells = maxCells;
+        this.buildTimer = Timer.builder("pathfinding.raster.build")
+                .description("Time taken to rasterise blocked moves")
+                .register(meterRegistry);
+        Gauge.builder("pathfinding.raster.bytes", this, s -> s.raster == null ? 0 : s.raster.sizeInBytes())
+                .description("Memory held by the blocked-move raster")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pathfinding.raster.cells", this, s -> s.raster == null ? 0 : s.raster.cellCount())
+                .description("Lattice cells covered by the blocked-move raster")
+                .register(meterRegistry);
+        Gauge.builder("pathfinding.raster.components", this,
+                        s -> s.components == null ? 0 : s.components.componentCount())
+                .description("Connected components of the rasterised free space")
+                .register(meterRegistry);
+        Gauge.builder("pathfinding.raster.landmark.bytes", this,
+                        s -> s.landmarks == null ? 0 : s.landmarks.sizeInBytes())
+                .description("Memory held by the landmark distance tables")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pathfinding.raster.entrances", this,
+                        s -> s.clusters == null ? 0 : s.clusters.entranceCount())
+                .description("Cluster entrances of the hierarchical search graph")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a rebuild for the new zones unless newer ones were already announced.
+     */
+    @EventListener
+    public void onZonesChanged(ZoneIndexChangedEvent event) {
+        if (!enabled) return;
+        ZoneIndex zones = event.current();
+        long version = zones.version();
+        if (newestVersion.accumulateAndGet(version, Math::max) != version) return;
+        CompletableFuture.runAsync(() -> rebuild(zones), executor)
+                .exceptionally(e -> {
+                    log.warn("Failed to build blocked-move raster for zone version {}", version, e);
+                    return null;
+                });
+    }
+
+    /**
+     * The raster when it was built for these zones, otherwise the exact index itself.
+     */
+    public MoveChecker checkerFor(ZoneIndex zones) {
+        BlockedMoveRaster snapshot = raster;
+        return snapshot != null && snapshot.zones() == zones ? snapshot : zones;
+    }
+
+    /**
+     * Free-space components built for these zones, or null when there are none.
+     */
+    public FreeSpaceComponents componentsFor(ZoneIndex zones) {
+        FreeSpaceComponents snapshot = components;
+        return snapshot != null && snapshot.zones() == zones ? snapshot : null;
+    }
+
+    /**
+     * Landmark distances built for the zones behind this checker, or null when there are none.
+     */
+    public LandmarkHeuristic landmarksFor(MoveChecker checker) {
+        LandmarkHeuristic snapshot = landmarks;
+        return snapshot != null && isFor(checker, snapshot.zones()) ? snapshot : null;
+    }
+
+    private static boolean isFor(MoveChecker checker, ZoneIndex zones) {
+        return checker.zoneIndex() == zones;
+    }
+
+    /**
+     * Cluster abstraction built for the zones behind this checker, or null when there is none.
+     */
+    public ClusterGraph clustersFor(MoveChecker checker) {
+        ClusterGraph snapshot = clusters;
+        return snapshot != null && isFor(checker, snapshot.zones()) ? snapshot : null;
+    }
+
+    public BlockedMoveRaster current() {
+        return raster;
+    }
+
+    void rebuild(ZoneIndex zones) {
+        List<Position> servicePoints = servicePointLocations();
+        double[] window = window(zones, servicePoints);
+        if (window == null) {
+            clear();
+            return;
+        }
+
+        long cells = BlockedMoveRaster.cellCount(window[0], window[1], window[2], window[3]);
+        if (cells > maxCells) {
+            log.warn("Skipping blocked-move raster: window needs {} cells, limit is {}", cells, maxCells);
+            clear();
+            return;
+        }
+
+        Timer.Sample sample = Timer.start();
+        BlockedMoveRaster built = BlockedMoveRaster.build(zones,
+                window[0], window[1], window[2], window[3], ForkJoinPool.commonPool());
+        FreeSpaceComponents labelled = FreeSpaceComponents.build(built);
+        List<Position> landmarkPoints = new ArrayList<>(servicePoints);
+        landmarkPoints.add(new Position(window[0], window[1]));
+        landmarkPoints.add(new Position(window[2], window[1]));
+        landmarkPoints.add(new Position(window[2], window[3]));
+        landmarkPoints.add(new Position(window[0], window[3]));
+        LandmarkHeuristic distances = LandmarkHeuristic.build(labelled, landmarkPoints, ForkJoinPool.commonPool());
+        ClusterGraph abstraction = ClusterGraph.build(built, ForkJoinPool.commonPool());
+        sample.stop(buildTimer);
+        if (newestVersion.get() > zones.version()) return;
+        raster = built;
+        components = labelled;
+        landmarks = distances;
+        clusters = abstraction;
+        log.info("Rasterised {} cells ({} bytes, {} free-space components, {} landmarks, {} cluster entrances)"
+                        + " for zone version {}", built.cellCount(), built.sizeInBytes(), labelled.componentCount(),
+                distances.landmarkCount(), abstraction.entranceCount(), zones.version());
+    }
+
+    private void clear() {
+        raster = null;
+        components = null;
+        landmarks = null;
+        clusters = null;
+    }
+
+    private List<Position> servicePointLocations() {
+        List<Position> locations = new ArrayList<>();
+        ServicePoint[] servicePoints = ilpRestClient.getServicePointsJson();
+        if (servicePoints != null) {
+            for (ServicePoint servicePoint : servicePoints) {
+                if (servicePoint.location() != null) locations.add(servicePoint.location());
+            }
+        }
+        return locations;
+    }
+
+    private double[] window(ZoneIndex zones, List<Position> servicePoints) {
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+        for (Region zone : zones.zones()) {
+            for (Position vertex : zone.getVertices()) {
+                include(box, vertex);
+            }
+        }
+        for (Position servicePoint : servicePoints) {
+            include(box, servicePoint);
+        }
+
+        if (box[0] > box[2]) return null;
+        return new double[]{box[0] - WINDOW_PADDING, box[1] - WINDOW_PADDING,
+                box[2] + WINDOW_PADDING, box[3] + WINDOW_PADDING};
+    }
+
+    private static void include(double[] box, Position position) {
+        box[0] = Math.min(box[0], position.getLng());
+        box[1] = Math.min(box[1], position.getLat());
+        box[2] = Math.max(box[2], position.getLng());
+        box[3] = Math.max(box[3], position.getLat());
+    }
+}
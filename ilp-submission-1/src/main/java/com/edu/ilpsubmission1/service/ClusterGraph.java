@@ -0,0 +1,418 @@
+package com.edu.ilpsubmission1.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static com.edu.ilpsubmission1.service.Lattice.CELL_SIZE;
+import static com.edu.ilpsubmission1.service.Lattice.STEP_SIZE;
+
+/**
+ * Two-level abstraction of a {@link BlockedMoveRaster} window for hierarchical search (HPA*).
+ * <p>
+ * The window is cut into square clusters of cells. Wherever two neighbouring clusters share a run
+ * of clear cells across their border, the run gets one entrance in its middle, or one at each end
+ * when it is wide. Entrances in the same cluster are linked by their shortest 8-connected distance
+ * inside that cluster. Only cells whose raster mask is clear are used, so every compass move from an
+ * abstract path cell is free. A query connects start and end to the entrances of their own
+ * clusters, searches the small abstract graph and hands back the entrance chain, pulled tight
+ * wherever a straight corridor is clear, for the lattice search to refine leg by leg.
+ * Built once per {@link ZoneIndex}.
+ */
+public final class ClusterGraph {
+
+    /** cluster side in lattice cells, eight moves */
+    static final int CLUSTER_CELLS = 16;
+    /** border runs at least this wide get an entrance at each end instead of one in the middle */
+    private static final int WIDE_ENTRANCE = 6;
+    /** corridor kept clear around a pulled-tight leg, as for the straight-line fast path */
+    private static final double CLEARANCE = STEP_SIZE;
+    private static final float DIAGONAL = (float) Math.sqrt(2);
+    private static final int[] NEIGHBOUR_COLUMNS = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] NEIGHBOUR_ROWS = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    private final ZoneIndex zones;
+    private final int minColumn;
+    private final int minRow;
+    private final int columns;
+    private final int rows;
+    private final int clusterColumns;
+    private final boolean[] clear;
+    /** window cell of each entrance */
+    private final int[] entranceCells;
+    /** entrances of each cluster, and their pairwise costs in cell widths (k by k, row-major) */
+    private final int[][] clusterEntrances;
+    private final float[][] clusterCosts;
+    /** slot of each entrance in its cluster's list */
+    private final int[] entranceSlots;
+    /** entrances one step away across a cluster border */
+    private final int[][] crossings;
+
+    private ClusterGraph(BlockedMoveRaster raster, boolean[] clear, int clusterColumns, int[] entranceCells,
+                         int[][] clusterEntrances, float[][] clusterCosts, int[] entranceSlots,
+                         int[][] crossings) {
+        this.zones = raster.zones();
+        this.minColumn = raster.minColumn();
+        this.minRow = raster.minRow();
+        this.columns = raster.columns();
+        this.rows = raster.rows();
+        this.clusterColumns = clusterColumns;
+        this.clear = clear;
+        this.entranceCells = entranceCells;
+        this.clusterEntrances = clusterEntrances;
+        this.clusterCosts = clusterCosts;
+        this.entranceSlots = entranceSlots;
+        this.crossings = crossings;
+    }
+
+    /**
+     * Finds the entrances on every cluster border, then links the entrances of each cluster with
+     * one bounded Dijkstra per entrance, clusters in parallel on the pool.
+     */
+    public static ClusterGraph build(BlockedMoveRaster raster, ForkJoinPool pool) {
+        int columns = raster.columns();
+        int rows = raster.rows();
+        boolean[] clear = new boolean[columns * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                clear[row * columns + column] = raster.maskAt(column, row) == 0;
+            }
+        }
+
+        int clusterColumns = (columns + CLUSTER_CELLS - 1) / CLUSTER_CELLS;
+        int clusterRows = (rows + CLUSTER_CELLS - 1) / CLUSTER_CELLS;
+        Entrances entrances = new Entrances(columns);
+        for (int border = CLUSTER_CELLS; border < columns; border += CLUSTER_CELLS) {
+            for (int from = 0; from < rows; from += CLUSTER_CELLS) {
+                int to = Math.min(from + CLUSTER_CELLS, rows);
+                entrances.scan(clear, border - 1, from, 0, 1, 1, 0, to - from);
+            }
+        }
+        for (int border = CLUSTER_CELLS; border < rows; border += CLUSTER_CELLS) {
+            for (int from = 0; from < columns; from += CLUSTER_CELLS) {
+                int to = Math.min(from + CLUSTER_CELLS, columns);
+                entrances.scan(clear, from, border - 1, 1, 0, 0, 1, to - from);
+            }
+        }
+
+        int count = entrances.cells.size();
+        int[] entranceCells = new int[count];
+        List<List<Integer>> byCluster = new ArrayList<>();
+        for (int c = 0; c < clusterColumns * clusterRows; c++) {
+            byCluster.add(new ArrayList<>());
+        }
+        int[] entranceSlots = new int[count];
+        for (int e = 0; e < count; e++) {
+            int cell = entrances.cells.get(e);
+            entranceCells[e] = cell;
+            List<Integer> members = byCluster.get(clusterOf(cell, columns, clusterColumns));
+            entranceSlots[e] = members.size();
+            members.add(e);
+        }
+        int[][] clusterEntrances = new int[byCluster.size()][];
+        for (int c = 0; c < clusterEntrances.length; c++) {
+            clusterEntrances[c] = byCluster.get(c).stream().mapToInt(Integer::intValue).toArray();
+        }
+        int[][] crossings = new int[count][];
+        for (int e = 0; e < count; e++) {
+            crossings[e] = entrances.links.get(e).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        float[][] clusterCosts = new float[clusterEntrances.length][];
+        pool.submit(() -> IntStream.range(0, clusterEntrances.length).parallel().forEach(c -> {
+            int[] members = clusterEntrances[c];
+            float[] costs = new float[members.length * members.length];
+            LocalSearch search = new LocalSearch(clear, columns, rows, clusterColumns);
+            for (int i = 0; i < members.length; i++) {
+                float[] local = search.run(entranceCells[members[i]]);
+                for (int j = 0; j < members.length; j++) {
+                    costs[i * members.length + j] = local[search.localIndex(entranceCells[members[j]])];
+                }
+            }
+            clusterCosts[c] = costs;
+        })).join();
+
+        return new ClusterGraph(raster, clear, clusterColumns, entranceCells, clusterEntrances, clusterCosts,
+                entranceSlots, crossings);
+    }
+
+    public ZoneIndex zones() {
+        return zones;
+    }
+
+    public int entranceCount() {
+        return entranceCells.length;
+    }
+
+    /**
+     * Interleaved lng/lat pairs of the waypoints to pass between start and end, pulled tight where
+     * corridors allow; null when either end is off the window, both share a cluster, or the
+     * abstract graph has no route, leaving the leg to the plain lattice search.
+     */
+    double[] plan(double startLng, double startLat, double endLng, double endLat) {
+        int start = indexOf(startLng, startLat);
+        int end = indexOf(endLng, endLat);
+        if (start < 0 || end < 0) return null;
+        int startCluster = clusterOf(start, columns, clusterColumns);
+        int endCluster = clusterOf(end, columns, clusterColumns);
+        if (startCluster == endCluster) return null;
+
+        LocalSearch local = new LocalSearch(clear, columns, rows, clusterColumns);
+        float[] fromStart = entranceCosts(local, start, startCluster);
+        float[] toEnd = entranceCosts(local, end, endCluster);
+        int[] route = abstractRoute(startCluster, fromStart, endCluster, toEnd, end);
+        if (route == null) return null;
+
+        double[] chain = new double[(route.length + 2) * 2];
+        chain[0] = startLng;
+        chain[1] = startLat;
+        for (int i = 0; i < route.length; i++) {
+            int cell = entranceCells[route[i]];
+            chain[(i + 1) * 2] = (minColumn + cell % columns + 0.5) * CELL_SIZE;
+            chain[(i + 1) * 2 + 1] = (minRow + cell / columns + 0.5) * CELL_SIZE;
+        }
+        chain[chain.length - 2] = endLng;
+        chain[chain.length - 1] = endLat;
+        return pull(chain);
+    }
+
+    private float[] entranceCosts(LocalSearch local, int cell, int cluster) {
+        float[] distances = local.run(cell);
+        int[] members = clusterEntrances[cluster];
+        float[] costs = new float[members.length];
+        for (int i = 0; i < members.length; i++) {
+            costs[i] = distances[local.localIndex(entranceCells[members[i]])];
+        }
+        return costs;
+    }
+
+    /**
+     * A* over the entrances from the start's cluster to the end's, in cell widths with the straight
+     * line as heuristic. Returns the entrances passed, or null when the end cannot be reached.
+     */
+    private int[] abstractRoute(int startCluster, float[] fromStart, int endCluster, float[] toEnd, int end) {
+        int count = entranceCells.length;
+        float[] cost = new float[count];
+        int[] previous = new int[count];
+        boolean[] settled = new boolean[count];
+        Arrays.fill(cost, Float.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+        LongMinHeap open = new LongMinHeap();
+        int endColumn = end % columns;
+        int endRow = end / columns;
+
+        int[] starts = clusterEntrances[startCluster];
+        for (int i = 0; i < starts.length; i++) {
+            if (fromStart[i] == Float.POSITIVE_INFINITY) continue;
+            cost[starts[i]] = fromStart[i];
+            open.add(LongMinHeap.entry(fromStart[i] + remaining(starts[i], endColumn, endRow), starts[i]));
+        }
+
+        float best = Float.POSITIVE_INFINITY;
+        int last = -1;
+        while (!open.isEmpty()) {
+            long entry = open.poll();
+            if (LongMinHeap.key(entry) >= best) break;
+            int current = LongMinHeap.value(entry);
+            if (settled[current]) continue;
+            settled[current] = true;
+
+            int cluster = clusterOf(entranceCells[current], columns, clusterColumns);
+            int[] members = clusterEntrances[cluster];
+            int slot = entranceSlots[current];
+            if (cluster == endCluster && cost[current] + toEnd[slot] < best) {
+                best = cost[current] + toEnd[slot];
+                last = current;
+            }
+            float[] costs = clusterCosts[cluster];
+            for (int j = 0; j < members.length; j++) {
+                relax(open, cost, previous, current, members[j], costs[slot * members.length + j], endColumn, endRow);
+            }
+            for (int next : crossings[current]) {
+                relax(open, cost, previous, current, next, 1, endColumn, endRow);
+            }
+        }
+        if (last < 0) return null;
+
+        int hops = 0;
+        for (int e = last; e >= 0; e = previous[e]) hops++;
+        int[] route = new int[hops];
+        for (int e = last; e >= 0; e = previous[e]) route[--hops] = e;
+        return route;
+    }
+
+    private void relax(LongMinHeap open, float[] cost, int[] previous, int from, int to, float length,
+                       int endColumn, int endRow) {
+        float candidate = cost[from] + length;
+        if (candidate < cost[to]) {
+            cost[to] = candidate;
+            previous[to] = from;
+            open.add(LongMinHeap.entry(candidate + remaining(to, endColumn, endRow), to));
+        }
+    }
+
+    private float remaining(int entrance, int endColumn, int endRow) {
+        int cell = entranceCells[entrance];
+        return (float) Math.hypot(cell % columns - endColumn, cell / columns - endRow);
+    }
+
+    /**
+     * Greedy string pulling: from each kept point, skips ahead to the furthest point of the chain
+     * still reachable through a clear corridor. Start and end are left out of the result.
+     */
+    private double[] pull(double[] chain) {
+        int points = chain.length / 2;
+        double[] kept = new double[chain.length];
+        int count = 0;
+        int anchor = 0;
+        while (anchor < points - 1) {
+            int next = anchor + 1;
+            while (next + 1 < points && zones.corridorClear(chain[anchor * 2], chain[anchor * 2 + 1],
+                    chain[(next + 1) * 2], chain[(next + 1) * 2 + 1], CLEARANCE)) {
+                next++;
+            }
+            if (next < points - 1) {
+                kept[count * 2] = chain[next * 2];
+                kept[count * 2 + 1] = chain[next * 2 + 1];
+                count++;
+            }
+            anchor = next;
+        }
+        return Arrays.copyOf(kept, count * 2);
+    }
+
+    private int indexOf(double lng, double lat) {
+        int column = Lattice.column(lng) - minColumn;
+        int row = Lattice.row(lat) - minRow;
+        if (column < 0 || column >= columns || row < 0 || row >= rows) return -1;
+        return row * columns + column;
+    }
+
+    private static int clusterOf(int cell, int columns, int clusterColumns) {
+        return (cell / columns / CLUSTER_CELLS) * clusterColumns + (cell % columns) / CLUSTER_CELLS;
+    }
+
+    /**
+     * Border scan collecting entrances. Each border cell pair is the cell at (column, row) and its
+     * neighbour across the border at (+acrossColumn, +acrossRow); the scan walks along the border
+     * by (alongColumn, alongRow) for the given length.
+     */
+    private static final class Entrances {
+
+        private final int columns;
+        private final List<Integer> cells = new ArrayList<>();
+        private final List<List<Integer>> links = new ArrayList<>();
+        private final Map<Integer, Integer> entranceAt = new HashMap<>();
+
+        Entrances(int columns) {
+            this.columns = columns;
+        }
+
+        void scan(boolean[] clear, int column, int row, int alongColumn, int alongRow,
+                  int acrossColumn, int acrossRow, int length) {
+            int runStart = -1;
+            for (int i = 0; i <= length; i++) {
+                boolean open = i < length && clear[cell(column, row, alongColumn, alongRow, i)]
+                        && clear[cell(column + acrossColumn, row + acrossRow, alongColumn, alongRow, i)];
+                if (open && runStart < 0) runStart = i;
+                if (!open && runStart >= 0) {
+                    int runEnd = i - 1;
+                    if (runEnd - runStart + 1 >= WIDE_ENTRANCE) {
+                        link(column, row, alongColumn, alongRow, acrossColumn, acrossRow, runStart);
+                        link(column, row, alongColumn, alongRow, acrossColumn, acrossRow, runEnd);
+                    } else {
+                        link(column, row, alongColumn, alongRow, acrossColumn, acrossRow, (runStart + runEnd) / 2);
+                    }
+                    runStart = -1;
+                }
+            }
+        }
+
+        private void link(int column, int row, int alongColumn, int alongRow, int acrossColumn, int acrossRow,
+                          int offset) {
+            int near = entrance(cell(column, row, alongColumn, alongRow, offset));
+            int far = entrance(cell(column + acrossColumn, row + acrossRow, alongColumn, alongRow, offset));
+            links.get(near).add(far);
+            links.get(far).add(near);
+        }
+
+        private int entrance(int cell) {
+            return entranceAt.computeIfAbsent(cell, c -> {
+                cells.add(c);
+                links.add(new ArrayList<>());
+                return cells.size() - 1;
+            });
+        }
+
+        private int cell(int column, int row, int alongColumn, int alongRow, int offset) {
+            return (row + alongRow * offset) * columns + column + alongColumn * offset;
+        }
+    }
+
+    /**
+     * Dijkstra confined to the cluster of its source, over clear cells; the source itself may be
+     * blocked, as a leg's endpoints often sit close to a zone.
+     */
+    private static final class LocalSearch {
+
+        private final boolean[] clear;
+        private final int columns;
+        private final int rows;
+        private final int clusterColumns;
+        private final float[] distances = new float[CLUSTER_CELLS * CLUSTER_CELLS];
+        private final LongMinHeap queue = new LongMinHeap();
+        private int originColumn;
+        private int originRow;
+
+        LocalSearch(boolean[] clear, int columns, int rows, int clusterColumns) {
+            this.clear = clear;
+            this.columns = columns;
+            this.rows = rows;
+            this.clusterColumns = clusterColumns;
+        }
+
+        float[] run(int source) {
+            int cluster = clusterOf(source, columns, clusterColumns);
+            originColumn = (cluster % clusterColumns) * CLUSTER_CELLS;
+            originRow = (cluster / clusterColumns) * CLUSTER_CELLS;
+            int width = Math.min(CLUSTER_CELLS, columns - originColumn);
+            int height = Math.min(CLUSTER_CELLS, rows - originRow);
+
+            Arrays.fill(distances, Float.POSITIVE_INFINITY);
+            queue.clear();
+            distances[localIndex(source)] = 0;
+            queue.add(LongMinHeap.entry(0, localIndex(source)));
+            while (!queue.isEmpty()) {
+                long entry = queue.poll();
+                int local = LongMinHeap.value(entry);
+                float distance = LongMinHeap.key(entry);
+                if (distance > distances[local]) continue;
+
+                int column = local % CLUSTER_CELLS;
+                int row = local / CLUSTER_CELLS;
+                for (int n = 0; n < NEIGHBOUR_COLUMNS.length; n++) {
+                    int c = column + NEIGHBOUR_COLUMNS[n];
+                    int r = row + NEIGHBOUR_ROWS[n];
+                    if (c < 0 || c >= width || r < 0 || r >= height) continue;
+                    if (!clear[(originRow + r) * columns + originColumn + c]) continue;
+
+                    int neighbour = r * CLUSTER_CELLS + c;
+                    float next = distance + ((n & 1) == 0 ? 1 : DIAGONAL);
+                    if (next < distances[neighbour]) {
+                        distances[neighbour] = next;
+                        queue.add(LongMinHeap.entry(next, neighbour));
+                    }
+                }
+            }
+            return distances;
+        }
+
+        int localIndex(int cell) {
+            return (cell / columns - originRow) * CLUSTER_CELLS + cell % columns - originColumn;
+        }
+    }
+}
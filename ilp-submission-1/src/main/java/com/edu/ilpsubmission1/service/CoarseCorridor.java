@@ -0,0 +1,138 @@
+package com.edu.ilpsubmission1.service;
+
+import static com.edu.ilpsubmission1.service.Lattice.DIRECTION_COUNT;
+import static com.edu.ilpsubmission1.service.Lattice.DX;
+import static com.edu.ilpsubmission1.service.Lattice.DY;
+import static com.edu.ilpsubmission1.service.Lattice.STEP_SIZE;
+
+/**
+ * Band of coarse cells around a route planned on a lattice whose moves are {@link #FACTOR} times
+ * longer than the drone's, used to confine the fine search of a long leg.
+ * <p>
+ * Coarse moves must keep {@link #INFLATION} clear of every zone edge, except within a coarse move
+ * of either end where legs often start next to a building, so a coarse route leaves the fine
+ * search room to fly along it. The band is every corridor cell the route's points fall in, widened
+ * by {@link #RADIUS_CELLS} on each side; the fine search treats moves leaving it as blocked.
+ */
+final class CoarseCorridor implements MoveChecker {
+
+    static final int FACTOR = 4;
+    static final double COARSE_STEP = STEP_SIZE * FACTOR;
+    /** corridor cells are one coarse move wide, so consecutive route points share or touch cells */
+    private static final double CORRIDOR_CELL = COARSE_STEP;
+    private static final int RADIUS_CELLS = 1;
+    /** clearance a coarse move keeps from zone edges away from the ends */
+    private static final double INFLATION = STEP_SIZE;
+    /** coarse nodes are keyed on cells half a coarse move wide, as the fine lattice is */
+    private static final double NODE_CELL = COARSE_STEP / 2;
+    private static final int EXPANSION_LIMIT = 50000;
+    /** coarse routes longer than this many times the straight line are not worth confining to */
+    private static final double DETOUR_FACTOR = 2.0;
+
+    private final MoveChecker delegate;
+    private final LongHashMap<Boolean> cells;
+
+    private CoarseCorridor(MoveChecker delegate, LongHashMap<Boolean> cells) {
+        this.delegate = delegate;
+        this.cells = cells;
+    }
+
+    /**
+     * Plans the coarse route with weighted A* in the given arena and returns the corridor around
+     * it, checking fine moves against delegate; null when the coarse lattice has no route within
+     * {@link #DETOUR_FACTOR} times the straight line.
+     */
+    static CoarseCorridor plan(double startLng, double startLat, double endLng, double endLat, double weight,
+                               MoveChecker delegate, SearchArena tree) {
+        ZoneIndex zones = delegate.zoneIndex();
+        double maxLength = DETOUR_FACTOR * Math.max(GeometryService.distance(startLng, startLat, endLng, endLat),
+                COARSE_STEP);
+        tree.push(tree.add(nodeCell(startLng, startLat), startLng, startLat, 0,
+                GeometryService.distance(startLng, startLat, endLng, endLat) * weight,
+                SearchArena.NONE, SearchArena.NONE));
+
+        for (int expansions = 0; !tree.isQueueEmpty() && expansions < EXPANSION_LIMIT; expansions++) {
+            int current = tree.poll();
+            tree.closed[current] = true;
+            double lng = tree.lng[current];
+            double lat = tree.lat[current];
+            if (GeometryService.distance(lng, lat, endLng, endLat) < COARSE_STEP) {
+                return new CoarseCorridor(delegate, cellsAround(tree, current, endLng, endLat));
+            }
+
+            double tentativeG = tree.g[current] + COARSE_STEP;
+            for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+                double nextLng = lng + DX[direction] * FACTOR;
+                double nextLat = lat + DY[direction] * FACTOR;
+                long cell = nodeCell(nextLng, nextLat);
+                int known = tree.find(cell);
+                if (known != SearchArena.NONE && (tree.closed[known] || tentativeG >= tree.g[known])) continue;
+
+                double remaining = GeometryService.distance(nextLng, nextLat, endLng, endLat);
+                if (tentativeG + remaining > maxLength) continue;
+                boolean nearEnd = remaining < COARSE_STEP
+                        || GeometryService.distance(lng, lat, startLng, startLat) < COARSE_STEP;
+                if (!zones.corridorClear(lng, lat, nextLng, nextLat, nearEnd ? 0 : INFLATION)) continue;
+
+                double h = remaining * weight;
+                if (known == SearchArena.NONE) {
+                    tree.push(tree.add(cell, nextLng, nextLat, tentativeG, h, current, direction));
+                } else {
+                    tree.relink(known, nextLng, nextLat, tentativeG, h, current, direction);
+                    if (tree.isQueued(known)) tree.update(known);
+                    else tree.push(known);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static LongHashMap<Boolean> cellsAround(SearchArena tree, int target, double endLng, double endLat) {
+        int width = 2 * RADIUS_CELLS + 1;
+        LongHashMap<Boolean> cells = new LongHashMap<>((tree.depth(target) + 2) * width * width);
+        mark(cells, endLng, endLat);
+        for (int node = target; node != SearchArena.NONE; node = tree.parent[node]) {
+            mark(cells, tree.lng[node], tree.lat[node]);
+        }
+        return cells;
+    }
+
+    private static void mark(LongHashMap<Boolean> cells, double lng, double lat) {
+        int column = column(lng);
+        int row = row(lat);
+        for (int dc = -RADIUS_CELLS; dc <= RADIUS_CELLS; dc++) {
+            for (int dr = -RADIUS_CELLS; dr <= RADIUS_CELLS; dr++) {
+                cells.put(Lattice.pack(column + dc, row + dr), Boolean.TRUE);
+            }
+        }
+    }
+
+    private static long nodeCell(double lng, double lat) {
+        return Lattice.pack((int) Math.floor(lng / NODE_CELL), (int) Math.floor(lat / NODE_CELL));
+    }
+
+    private static int column(double lng) {
+        return (int) Math.floor(lng / CORRIDOR_CELL);
+    }
+
+    private static int row(double lat) {
+        return (int) Math.floor(lat / CORRIDOR_CELL);
+    }
+
+    boolean contains(double lng, double lat) {
+        return cells.get(Lattice.pack(column(lng), row(lat))) != null;
+    }
+
+    /**
+     * Moves ending outside the corridor are blocked without consulting the zones.
+     */
+    @Override
+    public boolean isBlockedMove(double fromLng, double fromLat, int direction, double toLng, double toLat) {
+        return !contains(toLng, toLat) || delegate.isBlockedMove(fromLng, fromLat, direction, toLng, toLat);
+    }
+
+    @Override
+    public ZoneIndex zoneIndex() {
+        return delegate.zoneIndex();
+    }
+}
@@ -0,0 +1,11 @@
+package com.edu.ilpsubmission1.service;
+
+/**
+ * When the one-sided lattice search of {@link AStarPathfinder} collision-checks a move.
+ */
+public enum CollisionChecking {
+    /** every move is checked before its node is queued */
+    EAGER,
+    /** moves are queued unchecked and checked when their node is popped; most queued nodes never are */
+    LAZY
+}
@@ -0,0 +1,18 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+
+/**
+ * A point held as raw coordinates, for keying maps by location. {@link Position} is a mutable DTO,
+ * so a map keyed on one is disturbed as soon as a caller changes the position it asked with.
+ */
+record Coordinates(double lng, double lat) {
+
+    static Coordinates of(Position position) {
+        return new Coordinates(position.getLng(), position.getLat());
+    }
+
+    Position toPosition() {
+        return new Position(lng, lat);
+    }
+}
@@ -0,0 +1,32 @@
+package com.edu.ilpsubmission1.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the collision checks one leg makes against the checker it wraps, from however many
+ * workers search it.
+ */
+final class CountingMoveChecker implements MoveChecker {
+
+    private final MoveChecker delegate;
+    private final LongAdder checks = new LongAdder();
+
+    CountingMoveChecker(MoveChecker delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isBlockedMove(double fromLng, double fromLat, int direction, double toLng, double toLat) {
+        checks.increment();
+        return delegate.isBlockedMove(fromLng, fromLat, direction, toLng, toLat);
+    }
+
+    @Override
+    public ZoneIndex zoneIndex() {
+        return delegate.zoneIndex();
+    }
+
+    long checks() {
+        return checks.sum();
+    }
+}
@@ -0,0 +1,23 @@
+package com.edu.ilpsubmission1.service;
+
+import java.time.Duration;
+
+/**
+ * Point on the {@link System#nanoTime()} clock by which planning should wrap up.
+ */
+public record Deadline(long nanoTime) {
+
+    public static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+    public static Deadline after(Duration budget) {
+        return budget == null ? NONE : new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public boolean isBounded() {
+        return nanoTime != Long.MAX_VALUE;
+    }
+
+    public boolean expired() {
+        return isBounded() && System.nanoTime() - nanoTime >= 0;
+    }
+}
@@ -0,0 +1,165 @@
+package com.edu.ilpsubmission1.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Connected components of the free space over the cells of a {@link BlockedMoveRaster}.
+ * <p>
+ * A cell only counts as solid when it lies entirely inside one zone, and free cells are joined to
+ * all eight neighbours, so any flight between two points crosses a chain of free cells of one
+ * component. Points in different components can therefore never be joined: a failed
+ * {@link #mayReach} is a proof, and is remembered per target cell for the lifetime of the zones.
+ */
+public final class FreeSpaceComponents {
+
+    private static final int SOLID = 0;
+    /** cells either side of a target cell that cover every point within a move of the target */
+    private static final int REACH_CELLS = (int) Math.ceil(Lattice.STEP_SIZE / Lattice.CELL_SIZE);
+    private static final int MAX_UNREACHABLE_ENTRIES = 1 << 16;
+
+    private final ZoneIndex zones;
+    private final int minColumn;
+    private final int minRow;
+    private final int columns;
+    private final int rows;
+    private final int[] labels;
+    private final int componentCount;
+    private final Set<Target> unreachable = ConcurrentHashMap.newKeySet();
+
+    private record Target(int component, long cell) {}
+
+    private FreeSpaceComponents(BlockedMoveRaster raster, int[] labels, int componentCount) {
+        this.zones = raster.zones();
+        this.minColumn = raster.minColumn();
+        this.minRow = raster.minRow();
+        this.columns = raster.columns();
+        this.rows = raster.rows();
+        this.labels = labels;
+        this.componentCount = componentCount;
+    }
+
+    /**
+     * Labels the raster window. Cells whose mask is clear are free without further tests; the rest
+     * are solid when they fit inside a single zone.
+     */
+    public static FreeSpaceComponents build(BlockedMoveRaster raster) {
+        ZoneIndex zones = raster.zones();
+        int columns = raster.columns();
+        int rows = raster.rows();
+        int[] labels = new int[columns * rows];
+
+        boolean[] free = new boolean[labels.length];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                free[row * columns + column] = raster.maskAt(column, row) == 0
+                        || !isSolid(zones, raster.minColumn() + column, raster.minRow() + row);
+            }
+        }
+
+        int[] queue = new int[labels.length];
+        int next = SOLID;
+        for (int seed = 0; seed < labels.length; seed++) {
+            if (!free[seed] || labels[seed] != SOLID) continue;
+            int label = ++next;
+            int head = 0;
+            int tail = 0;
+            labels[seed] = label;
+            queue[tail++] = seed;
+            while (head < tail) {
+                int cell = queue[head++];
+                int column = cell % columns;
+                int row = cell / columns;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        int c = column + dc;
+                        int r = row + dr;
+                        if (c < 0 || c >= columns || r < 0 || r >= rows) continue;
+                        int neighbour = r * columns + c;
+                        if (free[neighbour] && labels[neighbour] == SOLID) {
+                            labels[neighbour] = label;
+                            queue[tail++] = neighbour;
+                        }
+                    }
+                }
+            }
+        }
+        return new FreeSpaceComponents(raster, labels, next);
+    }
+
+    public ZoneIndex zones() {
+        return zones;
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    /**
+     * False only when no point within a move of the target shares a component with the origin.
+     * Anything outside the window belongs to the component wrapping the window border.
+     */
+    public boolean mayReach(double fromLng, double fromLat, double toLng, double toLat) {
+        int origin = componentAt(Lattice.column(fromLng), Lattice.row(fromLat));
+        if (origin == SOLID) return true;
+
+        int targetColumn = Lattice.column(toLng);
+        int targetRow = Lattice.row(toLat);
+        Target key = new Target(origin, Lattice.pack(targetColumn, targetRow));
+        if (unreachable.contains(key)) return false;
+
+        for (int r = targetRow - REACH_CELLS; r <= targetRow + REACH_CELLS; r++) {
+            for (int c = targetColumn - REACH_CELLS; c <= targetColumn + REACH_CELLS; c++) {
+                if (componentAt(c, r) == origin) return true;
+            }
+        }
+        if (unreachable.size() < MAX_UNREACHABLE_ENTRIES) {
+            unreachable.add(key);
+        }
+        return false;
+    }
+
+    int minColumn() {
+        return minColumn;
+    }
+
+    int minRow() {
+        return minRow;
+    }
+
+    int columns() {
+        return columns;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * Whether the window cell at this row-major index is free.
+     */
+    boolean isFree(int index) {
+        return labels[index] != SOLID;
+    }
+
+    int unreachableEntries() {
+        return unreachable.size();
+    }
+
+    private int componentAt(int column, int row) {
+        int c = column - minColumn;
+        int r = row - minRow;
+        if (c < 0 || c >= columns || r < 0 || r >= rows) {
+            return labels[0];
+        }
+        return labels[r * columns + c];
+    }
+
+    private static boolean isSolid(ZoneIndex zones, int column, int row) {
+        double loLng = column * Lattice.CELL_SIZE;
+        double loLat = row * Lattice.CELL_SIZE;
+        double hiLng = loLng + Lattice.CELL_SIZE;
+        double hiLat = loLat + Lattice.CELL_SIZE;
+        return zones.isBoxInsideZone(loLng, loLat, hiLng, hiLat);
+    }
+}
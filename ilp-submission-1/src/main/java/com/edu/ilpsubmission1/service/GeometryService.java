@@ -13,15 +13,20 @@ public class GeometryService {
     private static final double EPSILON = 1e-9;
 
     public double calculateDistance(Position p1, Position p2) {
-        double dx = p2.getLng() - p1.getLng();
-        double dy = p2.getLat() - p1.getLat();
-        return Math.sqrt(dx * dx + dy * dy);
+        return distance(p1.getLng(), p1.getLat(), p2.getLng(), p2.getLat());
     }
 
     public boolean checkPointsClose(Position p1, Position p2) {
         return calculateDistance(p1, p2) < DISTANCE_TOLERANCE;
     }
 
+    /**
+     * Primitive form of {@link #checkPointsClose(Position, Position)} for the search loops.
+     */
+    public boolean checkPointsClose(double lng1, double lat1, double lng2, double lat2) {
+        return distance(lng1, lat1, lng2, lat2) < DISTANCE_TOLERANCE;
+    }
+
     public Position calculateNextPosition(Position start, double angle) {
         double quotient = angle / COMPASS_DIRECTION_DEGREES;
 
@@ -37,6 +42,13 @@ public class GeometryService {
     }
 
     public boolean isPointInRegion(Position point, Region region) {
+        return isPointInRegion(point.getLng(), point.getLat(), region);
+    }
+
+    /**
+     * Primitive form of {@link #isPointInRegion(Position, Region)}, avoids allocating a Position per probe.
+     */
+    public boolean isPointInRegion(double lng, double lat, Region region) {
         List<Position> vertices = region.getVertices();
 
         if (vertices.size() < 4 || !vertices.get(0).equals(vertices.get(vertices.size() - 1))) {
@@ -44,60 +56,79 @@ public class GeometryService {
         }
 
         for (int i = 0; i < vertices.size() - 1; i++) {
-            if (isOnSegment(point, vertices.get(i), vertices.get(i + 1))) {
+            Position a = vertices.get(i);
+            Position b = vertices.get(i + 1);
+            if (isOnSegment(lng, lat, a.getLng(), a.getLat(), b.getLng(), b.getLat())) {
                 return true;
             }
         }
 
-        return rayCastingTest(point, vertices);
+        return rayCastingTest(lng, lat, vertices);
     }
 
     public boolean checkLineIntersectsRegion(Position from, Position to, Region region) {
+        return checkLineIntersectsRegion(from.getLng(), from.getLat(), to.getLng(), to.getLat(), region);
+    }
+
+    /**
+     * Primitive form of {@link #checkLineIntersectsRegion(Position, Position, Region)}.
+     */
+    public boolean checkLineIntersectsRegion(double fromLng, double fromLat,
+                                             double toLng, double toLat, Region region) {
         List<Position> vertices = region.getVertices();
 
         for (int i = 0; i < vertices.size() - 1; i++) {
-            if (segmentsIntersect(from, to, vertices.get(i), vertices.get(i + 1))) {
+            Position a = vertices.get(i);
+            Position b = vertices.get(i + 1);
+            if (segmentsIntersect(fromLng, fromLat, toLng, toLat,
+                    a.getLng(), a.getLat(), b.getLng(), b.getLat())) {
                 return true;
             }
         }
         return false;
     }
 
-    private boolean segmentsIntersect(Position a1, Position a2, Position b1, Position b2) {
-        int o1 = computeOrientation(a1, a2, b1);
-        int o2 = computeOrientation(a1, a2, b2);
-        int o3 = computeOrientation(b1, b2, a1);
-        int o4 = computeOrientation(b1, b2, a2);
+    static double distance(double lng1, double lat1, double lng2, double lat2) {
+        double dx = lng2 - lng1;
+        double dy = lat2 - lat1;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    static boolean segmentsIntersect(double a1x, double a1y, double a2x, double a2y,
+                                     double b1x, double b1y, double b2x, double b2y) {
+        int o1 = computeOrientation(a1x, a1y, a2x, a2y, b1x, b1y);
+        int o2 = computeOrientation(a1x, a1y, a2x, a2y, b2x, b2y);
+        int o3 = computeOrientation(b1x, b1y, b2x, b2y, a1x, a1y);
+        int o4 = computeOrientation(b1x, b1y, b2x, b2y, a2x, a2y);
 
         if (o1 != o2 && o3 != o4) return true;
 
-        if (o1 == 0 && pointOnSegment(a1, b1, a2)) return true;
-        if (o2 == 0 && pointOnSegment(a1, b2, a2)) return true;
-        if (o3 == 0 && pointOnSegment(b1, a1, b2)) return true;
-        if (o4 == 0 && pointOnSegment(b1, a2, b2)) return true;
+        if (o1 == 0 && pointOnSegment(a1x, a1y, b1x, b1y, a2x, a2y)) return true;
+        if (o2 == 0 && pointOnSegment(a1x, a1y, b2x, b2y, a2x, a2y)) return true;
+        if (o3 == 0 && pointOnSegment(b1x, b1y, a1x, a1y, b2x, b2y)) return true;
+        if (o4 == 0 && pointOnSegment(b1x, b1y, a2x, a2y, b2x, b2y)) return true;
 
         return false;
     }
 
-    private int computeOrientation(Position p, Position q, Position r) {
-        double value = (q.getLat() - p.getLat()) * (r.getLng() - q.getLng())
-                - (q.getLng() - p.getLng()) * (r.getLat() - q.getLat());
+    private static int computeOrientation(double px, double py, double qx, double qy,
+                                          double rx, double ry) {
+        double value = (qy - py) * (rx - qx) - (qx - px) * (ry - qy);
 
         if (Math.abs(value) < EPSILON) return 0;
         return (value > 0) ? 1 : 2;
     }
 
-    private boolean pointOnSegment(Position p, Position q, Position r) {
-        return q.getLng() <= Math.max(p.getLng(), r.getLng())
-                && q.getLng() >= Math.min(p.getLng(), r.getLng())
-                && q.getLat() <= Math.max(p.getLat(), r.getLat())
-                && q.getLat() >= Math.min(p.getLat(), r.getLat());
+    private static boolean pointOnSegment(double px, double py, double qx, double qy,
+                                          double rx, double ry) {
+        return qx <= Math.max(px, rx)
+                && qx >= Math.min(px, rx)
+                && qy <= Math.max(py, ry)
+                && qy >= Math.min(py, ry);
     }
 
-    private boolean rayCastingTest(Position point, List<Position> vertices) {
+    private boolean rayCastingTest(double px, double py, List<Position> vertices) {
         boolean inside = false;
-        double px = point.getLng();
-        double py = point.getLat();
 
         for (int i = 0, j = vertices.size() - 1; i < vertices.size(); j = i++) {
             double xi = vertices.get(i).getLng();
@@ -113,11 +144,12 @@ public class GeometryService {
         return inside;
     }
 
-    private boolean isOnSegment(Position point, Position segStart, Position segEnd) {
-        double d1 = calculateDistance(point, segStart);
-        double d2 = calculateDistance(point, segEnd);
-        double segmentLength = calculateDistance(segStart, segEnd);
+    static boolean isOnSegment(double px, double py, double startX, double startY,
+                               double endX, double endY) {
+        double d1 = distance(px, py, startX, startY);
+        double d2 = distance(px, py, endX, endY);
+        double segmentLength = distance(startX, startY, endX, endY);
 
         return Math.abs((d1 + d2) - segmentLength) < EPSILON;
     }
-}
\ No newline at end of file
+}
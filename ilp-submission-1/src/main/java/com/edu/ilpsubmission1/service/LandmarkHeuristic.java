@@ -0,0 +1,207 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * ALT lower bounds (A*, landmarks and the triangle inequality) over the cells of a
+ * {@link FreeSpaceComponents} window.
+ * <p>
+ * Each landmark holds its shortest 8-connected distance to every free cell, so for a node and a
+ * target in the window |d(L, target) - d(L, node)| is a lower bound on the grid distance between
+ * them, one that bends around zones where the straight line cannot. Cells only partly covered by a
+ * zone count as free, which can only shorten grid distances; what is left to remove is the octile
+ * overstatement of a flight and the offset from each point to its cell, both taken off in
+ * {@link #lowerBound}.
+ */
+public final class LandmarkHeuristic {
+
+    /** an 8-connected grid path is at most this many times the straight line it follows */
+    private static final double OCTILE_FACTOR = 1 / Math.cos(Math.PI / 8);
+    /** a cell diagonal for each end of the bound */
+    private static final double CELL_SLACK = 2 * Math.sqrt(2) * Lattice.CELL_SIZE;
+    private static final float DIAGONAL = (float) Math.sqrt(2);
+    private static final int[] NEIGHBOUR_COLUMNS = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] NEIGHBOUR_ROWS = {0, 1, 1, 1, 0, -1, -1, -1};
+    /** landmarks consulted per search, picked for the tightest bounds at its start */
+    private static final int ACTIVE_LANDMARKS = 2;
+
+    private final ZoneIndex zones;
+    private final int minColumn;
+    private final int minRow;
+    private final int columns;
+    private final int rows;
+    private final int landmarkCount;
+    /** cell-major: the landmark distances of one cell sit together, in cell widths */
+    private final float[] distances;
+
+    private LandmarkHeuristic(FreeSpaceComponents components, int landmarkCount, float[] distances) {
+        this.zones = components.zones();
+        this.minColumn = components.minColumn();
+        this.minRow = components.minRow();
+        this.columns = components.columns();
+        this.rows = components.rows();
+        this.landmarkCount = landmarkCount;
+        this.distances = distances;
+    }
+
+    /**
+     * Runs one Dijkstra per landmark over the free cells, in parallel on the pool. Landmarks
+     * outside the window, on solid cells or sharing a cell with an earlier one are skipped.
+     */
+    public static LandmarkHeuristic build(FreeSpaceComponents components, List<Position> landmarks,
+                                          ForkJoinPool pool) {
+        int columns = components.columns();
+        int cells = columns * components.rows();
+        List<Integer> sources = new ArrayList<>();
+        for (Position landmark : landmarks) {
+            int column = Lattice.column(landmark.getLng()) - components.minColumn();
+            int row = Lattice.row(landmark.getLat()) - components.minRow();
+            if (column < 0 || column >= columns || row < 0 || row >= components.rows()) continue;
+            int index = row * columns + column;
+            if (components.isFree(index) && !sources.contains(index)) sources.add(index);
+        }
+
+        int count = sources.size();
+        float[] distances = new float[cells * count];
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            int landmark = k;
+            tasks.add(pool.submit(() -> settle(components, sources.get(landmark), landmark, count, distances)));
+        }
+        tasks.forEach(ForkJoinTask::join);
+        return new LandmarkHeuristic(components, count, distances);
+    }
+
+    public ZoneIndex zones() {
+        return zones;
+    }
+
+    public int landmarkCount() {
+        return landmarkCount;
+    }
+
+    public long sizeInBytes() {
+        return (long) distances.length * Float.BYTES;
+    }
+
+    /**
+     * The landmarks bounding a search from the origin to the target most tightly, with their
+     * distances to the target. Null when the target is off the window or no landmark beats the
+     * straight line at the origin, in which case the straight line alone is the better heuristic.
+     */
+    Target towards(double targetLng, double targetLat, double originLng, double originLat) {
+        int target = indexOf(targetLng, targetLat);
+        int origin = indexOf(originLng, originLat);
+        if (target < 0 || origin < 0) return null;
+
+        int[] picked = new int[ACTIVE_LANDMARKS];
+        float[] gaps = new float[ACTIVE_LANDMARKS];
+        int count = 0;
+        for (int k = 0; k < landmarkCount; k++) {
+            float gap = gap(distances[origin * landmarkCount + k], distances[target * landmarkCount + k]);
+            if (bound(gap) <= GeometryService.distance(originLng, originLat, targetLng, targetLat)) continue;
+
+            int slot = count < ACTIVE_LANDMARKS ? count++ : ACTIVE_LANDMARKS;
+            while (slot > 0 && gaps[slot - 1] < gap) {
+                if (slot < ACTIVE_LANDMARKS) {
+                    picked[slot] = picked[slot - 1];
+                    gaps[slot] = gaps[slot - 1];
+                }
+                slot--;
+            }
+            if (slot < ACTIVE_LANDMARKS) {
+                picked[slot] = k;
+                gaps[slot] = gap;
+            }
+        }
+        if (count == 0) return null;
+
+        int[] active = Arrays.copyOf(picked, count);
+        float[] toTarget = new float[count];
+        for (int i = 0; i < count; i++) {
+            toTarget[i] = distances[target * landmarkCount + active[i]];
+        }
+        return new Target(active, toTarget);
+    }
+
+    /**
+     * Lower bound in degrees on the length of a clear flight from the point to the target; zero off
+     * the window or in another component.
+     */
+    double lowerBound(double lng, double lat, Target target) {
+        int index = indexOf(lng, lat);
+        if (index < 0) return 0;
+
+        float best = 0;
+        int offset = index * landmarkCount;
+        int[] active = target.landmarks();
+        float[] toTarget = target.distances();
+        for (int i = 0; i < active.length; i++) {
+            best = Math.max(best, gap(distances[offset + active[i]], toTarget[i]));
+        }
+        return bound(best);
+    }
+
+    /**
+     * Active landmarks of one search and their distances to its target, in cell widths.
+     */
+    record Target(int[] landmarks, float[] distances) {}
+
+    private static float gap(float here, float there) {
+        if (here == Float.POSITIVE_INFINITY || there == Float.POSITIVE_INFINITY) return 0;
+        return Math.abs(there - here);
+    }
+
+    private static double bound(float gap) {
+        return Math.max(0, gap * Lattice.CELL_SIZE - CELL_SLACK) / OCTILE_FACTOR;
+    }
+
+    private int indexOf(double lng, double lat) {
+        int column = Lattice.column(lng) - minColumn;
+        int row = Lattice.row(lat) - minRow;
+        if (column < 0 || column >= columns || row < 0 || row >= rows) return -1;
+        return row * columns + column;
+    }
+
+    /**
+     * Dijkstra from one landmark cell, skipping stale queue entries.
+     */
+    private static void settle(FreeSpaceComponents components, int source, int landmark, int stride,
+                               float[] distances) {
+        int columns = components.columns();
+        int rows = components.rows();
+        LongMinHeap queue = new LongMinHeap();
+        distances[source * stride + landmark] = 0;
+        queue.add(LongMinHeap.entry(0, source));
+
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int cell = LongMinHeap.value(entry);
+            float distance = LongMinHeap.key(entry);
+            if (distance > distances[cell * stride + landmark]) continue;
+
+            int column = cell % columns;
+            int row = cell / columns;
+            for (int n = 0; n < NEIGHBOUR_COLUMNS.length; n++) {
+                int c = column + NEIGHBOUR_COLUMNS[n];
+                int r = row + NEIGHBOUR_ROWS[n];
+                if (c < 0 || c >= columns || r < 0 || r >= rows) continue;
+                int neighbour = r * columns + c;
+                if (!components.isFree(neighbour)) continue;
+
+                float next = distance + ((n & 1) == 0 ? 1 : DIAGONAL);
+                if (next < distances[neighbour * stride + landmark]) {
+                    distances[neighbour * stride + landmark] = next;
+                    queue.add(LongMinHeap.entry(next, neighbour));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.edu.ilpsubmission1.service;
+
+/**
+ * Integer lattice the path search runs on.
+ * <p>
+ * The 16 compass offsets are irrational multiples of each other, so the points a drone can
+ * reach never fall on an exact grid. The search therefore keys every node on the (column, row)
+ * of the lattice cell it lands in, packed into a single long, while the node keeps the exact
+ * coordinate it was reached with. Cells are half a move wide so every move leaves its cell.
+ */
+public final class Lattice {
+
+    public static final double STEP_SIZE = 0.00015;
+    public static final double CELL_SIZE = STEP_SIZE / 2;
+    public static final int DIRECTION_COUNT = 16;
+
+    static final double[] ANGLES = {
+            0, 22.5, 45, 67.5, 90, 112.5, 135, 157.5,
+            180, 202.5, 225, 247.5, 270, 292.5, 315, 337.5
+    };
+
+    /** lng / lat offset of one move per direction, computed exactly as GeometryService does */
+    static final double[] DX = new double[DIRECTION_COUNT];
+    static final double[] DY = new double[DIRECTION_COUNT];
+
+    static {
+        for (int d = 0; d < DIRECTION_COUNT; d++) {
+            double radians = Math.toRadians(ANGLES[d]);
+            DX[d] = STEP_SIZE * Math.cos(radians);
+            DY[d] = STEP_SIZE * Math.sin(radians);
+        }
+    }
+
+    private Lattice() {}
+
+    public static long cellOf(double lng, double lat) {
+        return pack(column(lng), row(lat));
+    }
+
+    public static int column(double lng) {
+        return (int) Math.floor(lng / CELL_SIZE);
+    }
+
+    public static int row(double lat) {
+        return (int) Math.floor(lat / CELL_SIZE);
+    }
+
+    public static long pack(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    public static int columnOf(long cell) {
+        return (int) (cell >> 32);
+    }
+
+    public static int rowOf(long cell) {
+        return (int) cell;
+    }
+
+    /**
+     * Compass direction closest to the bearing (dLng, dLat).
+     */
+    static int nearestDirection(double dLng, double dLat) {
+        double degrees = Math.toDegrees(Math.atan2(dLat, dLng));
+        if (degrees < 0) degrees += 360;
+        return (int) Math.round(degrees / ANGLES[1]) % DIRECTION_COUNT;
+    }
+
+    static int opposite(int direction) {
+        return (direction + DIRECTION_COUNT / 2) % DIRECTION_COUNT;
+    }
+}
@@ -0,0 +1,129 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+/**
+ * Moves of every leg one day's trips can fly: each service point to each delivery point, each
+ * delivery point to its nearest others, and each delivery point back to each service point. All
+ * legs are started at once and waited for together, so batching, ordering and drone choice can be
+ * decided in memory before any trip is stitched together.
+ */
+final class LegCostMatrix {
+
+    static final int NO_PATH = -1;
+
+    private final Map<Coordinates, Integer> indices;
+    private final int[] moves;
+
+    private LegCostMatrix(Map<Coordinates, Integer> indices, int[] moves) {
+        this.indices = indices;
+        this.moves = moves;
+    }
+
+    static LegCostMatrix compute(List<Position> servicePoints, List<Position> deliveries,
+                                 BiFunction<Position, Position, CompletableFuture<List<Position>>> legs) {
+        return compute(servicePoints, deliveries, Integer.MAX_VALUE, legs);
+    }
+
+    /**
+     * Starts every leg with legs, which is expected to return at once and compute in the
+     * background, then waits for all of them. Service point to service point legs are skipped, and
+     * two delivery points are only joined, both ways, when one is among the other's neighbours
+     * nearest in a straight line; the moves between any others are {@link #NO_PATH}.
+     */
+    static LegCostMatrix compute(List<Position> servicePoints, List<Position> deliveries, int neighbours,
+                                 BiFunction<Position, Position, CompletableFuture<List<Position>>> legs) {
+        Map<Coordinates, Integer> indices = new LinkedHashMap<>();
+        List<Position> stops = new ArrayList<>();
+        for (Position delivery : deliveries) {
+            if (indices.putIfAbsent(Coordinates.of(delivery), stops.size()) == null) stops.add(delivery);
+        }
+        int firstServicePoint = stops.size();
+        for (Position servicePoint : servicePoints) {
+            if (indices.putIfAbsent(Coordinates.of(servicePoint), stops.size()) == null) stops.add(servicePoint);
+        }
+
+        int size = stops.size();
+        boolean[] needed = new boolean[size * size];
+        for (int from = 0; from < firstServicePoint; from++) {
+            for (int to = firstServicePoint; to < size; to++) {
+                needed[from * size + to] = true;
+                needed[to * size + from] = true;
+            }
+            for (int to : nearest(stops, from, firstServicePoint, neighbours)) {
+                needed[from * size + to] = true;
+                needed[to * size + from] = true;
+            }
+        }
+
+        List<CompletableFuture<List<Position>>> started = new ArrayList<>(size * size);
+        for (int i = 0; i < needed.length; i++) {
+            started.add(needed[i] ? legs.apply(stops.get(i / size), stops.get(i % size)) : null);
+        }
+
+        int[] moves = new int[size * size];
+        Arrays.fill(moves, NO_PATH);
+        for (int i = 0; i < moves.length; i++) {
+            if (started.get(i) == null) continue;
+            List<Position> leg = LegFutures.join(started.get(i));
+            if (!leg.isEmpty()) moves[i] = leg.size() - 1;
+        }
+        for (int i = 0; i < size; i++) {
+            moves[i * size + i] = 0;
+        }
+        return new LegCostMatrix(indices, moves);
+    }
+
+    /**
+     * Indices of the up to count delivery points, among the first deliveries stops, nearest to
+     * stop from in a straight line.
+     */
+    private static List<Integer> nearest(List<Position> stops, int from, int deliveries, int count) {
+        List<Integer> others = new ArrayList<>(deliveries);
+        for (int i = 0; i < deliveries; i++) {
+            if (i != from) others.add(i);
+        }
+        if (others.size() <= count) return others;
+        Position origin = stops.get(from);
+        others.sort(Comparator.comparingDouble(i -> GeometryService.distance(origin.getLng(), origin.getLat(),
+                stops.get(i).getLng(), stops.get(i).getLat())));
+        return others.subList(0, count);
+    }
+
+    /**
+     * Moves of the leg from one stop to another, or {@link #NO_PATH} when there is none or either
+     * stop is not in the matrix.
+     */
+    int moves(Position from, Position to) {
+        Integer row = indices.get(Coordinates.of(from));
+        Integer column = indices.get(Coordinates.of(to));
+        if (row == null || column == null) return NO_PATH;
+        return moves[row * indices.size() + column];
+    }
+
+    /**
+     * Moves of the round trip from base through the stops in order and back, including the hover
+     * at each stop, or {@link #NO_PATH} when any leg has no path.
+     */
+    int tripMoves(Position base, List<Position> stops) {
+        int total = 0;
+        Position current = base;
+        for (Position stop : stops) {
+            int leg = moves(current, stop);
+            if (leg == NO_PATH) return NO_PATH;
+            total += leg + 1;
+            current = stop;
+        }
+        int back = moves(current, base);
+        return back == NO_PATH ? NO_PATH : total + back;
+    }
+}
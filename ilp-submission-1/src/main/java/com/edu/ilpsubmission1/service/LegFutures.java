@@ -0,0 +1,50 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Legs of one planning request, each started once on its own virtual thread and shared by every
+ * trip that asks for it, so the legs of a trip run side by side and a leg several candidate trips
+ * need is computed only once. Closing waits for the legs still running, so none outlives the request.
+ */
+final class LegFutures implements AutoCloseable {
+
+    private record Key(Coordinates start, Coordinates end) {}
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentHashMap<Key, CompletableFuture<List<Position>>> legs = new ConcurrentHashMap<>();
+
+    /**
+     * The leg from start to end, computing it with leg on a new virtual thread unless it was
+     * already started.
+     */
+    CompletableFuture<List<Position>> start(Position start, Position end, Supplier<List<Position>> leg) {
+        Key key = new Key(Coordinates.of(start), Coordinates.of(end));
+        return legs.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(leg, executor));
+    }
+
+    /**
+     * Waits for a leg, or any other planning task, rethrowing what its computation threw.
+     */
+    static <T> T join(CompletableFuture<T> task) {
+        try {
+            return task.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Planning task failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,62 @@
+package com.edu.ilpsubmission1.service;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of primitive longs for the grid Dijkstra runs. Entries pack a non-negative float
+ * key above an int value; such floats order the same as their bits, so entries sort by key. There
+ * is no decrease-key: callers push again and skip stale entries on poll.
+ */
+final class LongMinHeap {
+
+    private long[] heap = new long[1024];
+    private int size;
+
+    static long entry(float key, int value) {
+        return (long) Float.floatToIntBits(key) << 32 | value;
+    }
+
+    static float key(long entry) {
+        return Float.intBitsToFloat((int) (entry >>> 32));
+    }
+
+    static int value(long entry) {
+        return (int) entry;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void add(long value) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    long poll() {
+        long top = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (last <= heap[child]) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+}
@@ -0,0 +1,14 @@
+package com.edu.ilpsubmission1.service;
+
+/**
+ * Collision check for a single compass move of the lattice search.
+ */
+public interface MoveChecker {
+
+    boolean isBlockedMove(double fromLng, double fromLat, int direction, double toLng, double toLat);
+
+    /**
+     * The exact zones behind the answers.
+     */
+    ZoneIndex zoneIndex();
+}
@@ -1,25 +1,37 @@
 package com.edu.ilpsubmission1.service;
 
-import com.edu.ilpsubmission1.dtos.*;
-
 /**
  * represents node for the A* search space
- * Implements Comparable for us in PriorityQueue
+ * Keyed on its lattice cell; lng/lat is the exact point the drone reaches in that cell.
+ * Ordered by fCost, ties broken by hCost and then by insertion order so searches are deterministic.
  */
 public class Node implements Comparable<Node> {
-    public final Position position;
+    public final long cell;
+    public double lng;
+    public double lat;
     public double gCost;
     public double hCost;
     public double fCost;
     public Node parent;
+    public boolean closed;
+    /** slot in the owning NodeHeap, -1 when not queued */
+    public int heapIndex = -1;
+    /** insertion sequence assigned by the NodeHeap, the last tie-breaker */
+    public int order;
 
-    public Node(Position position) {
-        this.position = position;
+    public Node(long cell, double lng, double lat) {
+        this.cell = cell;
+        this.lng = lng;
+        this.lat = lat;
     }
 
     @Override
     public int compareTo(Node other) {
-        return Double.compare(this.fCost, other.fCost);
+        int byCost = Double.compare(this.fCost, other.fCost);
+        if (byCost != 0) return byCost;
+        int byHeuristic = Double.compare(this.hCost, other.hCost);
+        if (byHeuristic != 0) return byHeuristic;
+        return Integer.compare(this.order, other.order);
     }
 
     @Override
@@ -27,11 +39,11 @@ public class Node implements Comparable<Node> {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Node node = (Node) obj;
-        return position.equals(node.position);
+        return cell == node.cell;
     }
 
     @Override
     public int hashCode() {
-        return position.hashCode();
+        return Long.hashCode(cell);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,124 @@
+package com.edu.ilpsubmission1.service;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of A* nodes ordered by {@link Node#compareTo(Node)}.
+ * Every node records its own slot, so a cheaper route found for an open node is
+ * applied in place with {@link #update(Node)} instead of a linear remove + add.
+ */
+public final class NodeHeap {
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private Node[] heap;
+    private int size;
+    private int insertions;
+
+    public NodeHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NodeHeap(int capacity) {
+        heap = new Node[Math.max(1, capacity)];
+    }
+
+    public void add(Node node) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        node.order = insertions++;
+        heap[size] = node;
+        node.heapIndex = size;
+        siftUp(size++);
+    }
+
+    public Node poll() {
+        if (size == 0) return null;
+
+        Node top = heap[0];
+        top.heapIndex = -1;
+        Node last = heap[--size];
+        heap[size] = null;
+        if (size > 0) {
+            heap[0] = last;
+            last.heapIndex = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    public Node peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * Restores heap order after the node's costs changed in place. A re-parented node normally
+     * moves up, but its re-anchored point can raise hCost slightly, so both directions are handled.
+     */
+    public void update(Node node) {
+        if (!contains(node)) {
+            throw new IllegalArgumentException("node is not in the heap");
+        }
+        int index = node.heapIndex;
+        siftUp(index);
+        if (node.heapIndex == index) {
+            siftDown(index);
+        }
+    }
+
+    public boolean contains(Node node) {
+        int index = node.heapIndex;
+        return index >= 0 && index < size && heap[index] == node;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].heapIndex = -1;
+            heap[i] = null;
+        }
+        size = 0;
+        insertions = 0;
+    }
+
+    private void siftUp(int index) {
+        Node node = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            Node above = heap[parent];
+            if (node.compareTo(above) >= 0) break;
+            heap[index] = above;
+            above.heapIndex = index;
+            index = parent;
+        }
+        heap[index] = node;
+        node.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+        Node node = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].compareTo(heap[child]) < 0) {
+                child = right;
+            }
+            Node below = heap[child];
+            if (node.compareTo(below) <= 0) break;
+            heap[index] = below;
+            below.heapIndex = index;
+            index = child;
+        }
+        heap[index] = node;
+        node.heapIndex = index;
+    }
+}
@@ -0,0 +1,327 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.edu.ilpsubmission1.service.Lattice.DIRECTION_COUNT;
+import static com.edu.ilpsubmission1.service.Lattice.DX;
+import static com.edu.ilpsubmission1.service.Lattice.DY;
+import static com.edu.ilpsubmission1.service.Lattice.STEP_SIZE;
+
+/**
+ * Hash-distributed A* (HDA*) over the lattice for long legs.
+ * <p>
+ * Every cell is owned by one worker, picked by hashing the cell. A worker keeps the open list and
+ * nodes of its own cells in a {@link SearchArena}, expands its best node, checks each move itself
+ * and hands the neighbour to the owner of its cell through the owner's inbox. Parents are
+ * referenced as (worker, index), so the path is walked back across arenas once all workers stop.
+ * <p>
+ * Like the one-sided search, a settled node is never reopened: its children were placed from its
+ * point, and moving it would break the chain of exact compass moves. That makes path quality hang
+ * on expansion order, so a worker only expands within {@link #ORDER_SLACK} of the lowest key any
+ * worker has published. A sender lowers the owner's published key to that of each offer it posts,
+ * so offers still in flight hold the others back without stopping them all. Nodes are then settled
+ * in close to the sequential order, several workers at a time on a wide frontier.
+ * <p>
+ * The search ends when no offer is in flight and no worker's best open key is below the best
+ * path found. Keys are weighted, so as for weighted A* the path costs at most the weight times
+ * the least-cost path.
+ */
+public final class ParallelLatticeSearch {
+
+    private static final int INDEX_BITS = 24;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    /**
+     * how far above the lowest published open key a worker may expand; wider lets more workers
+     * expand at once but settles more nodes before the cheapest route to them has arrived; a
+     * quarter of a move keeps paths within a move of the one-sided search's
+     */
+    private static final double ORDER_SLACK = STEP_SIZE / 4;
+    /** worker ids must leave the sign bit of a parent reference clear */
+    static final int MAX_WORKERS = 64;
+
+    private final GeometryService geometryService;
+    private final int workers;
+    private final Queue<SearchArena> spareArenas = new ConcurrentLinkedQueue<>();
+
+    public ParallelLatticeSearch(GeometryService geometryService, int workers) {
+        this.geometryService = geometryService;
+        this.workers = Math.clamp(workers, 1, MAX_WORKERS);
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    /**
+     * Searches from start to within the close distance of end. At most expansionLimit nodes are
+     * expanded across all workers, which keeps every arena index within a parent reference; a search
+     * stopped there without a path reports {@link PathSearchResult.Outcome#ITERATION_LIMIT}.
+     */
+    PathSearchResult search(Position start, Position end, MoveChecker checker, double maxCost,
+                            AStarPathfinder.Goal goal, int expansionLimit) {
+        Run run = new Run(checker, goal, maxCost, end, Math.min(expansionLimit, INDEX_MASK / DIRECTION_COUNT));
+        double startLng = start.getLng();
+        double startLat = start.getLat();
+        run.offer(-1, new Offer(Lattice.cellOf(startLng, startLat), startLng, startLat, 0,
+                goal.estimate(startLng, startLat), SearchArena.NONE, SearchArena.NONE));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < workers; w++) {
+                int worker = w;
+                executor.submit(() -> run.work(worker));
+            }
+        }
+
+        try {
+            if (run.failure != null) {
+                throw new IllegalStateException("Parallel lattice search failed", run.failure);
+            }
+            if (run.bestCost < Double.POSITIVE_INFINITY) {
+                return PathSearchResult.found(run.path());
+            }
+            if (run.exhausted) return PathSearchResult.iterationLimit();
+            return run.pruned ? PathSearchResult.overBudget() : PathSearchResult.noPath();
+        } finally {
+            for (SearchArena arena : run.arenas) {
+                arena.trim();
+                spareArenas.add(arena);
+            }
+        }
+    }
+
+    private int owner(long cell) {
+        long hash = cell * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 32) % workers);
+    }
+
+    /**
+     * A node handed to the worker owning its cell; parent is a (worker, index) reference.
+     */
+    private record Offer(long cell, double lng, double lat, double g, double h, int parent, int direction) {}
+
+    /**
+     * State shared by the workers of one search.
+     */
+    private final class Run {
+
+        private final MoveChecker checker;
+        private final AStarPathfinder.Goal goal;
+        private final double maxCost;
+        private final double endLng;
+        private final double endLat;
+        private final int expansionLimit;
+        private final SearchArena[] arenas = new SearchArena[workers];
+        private final List<Queue<Offer>> inboxes = new ArrayList<>(workers);
+        /**
+         * each worker's smallest open key as raw double bits, published after its inbox is drained
+         * and lowered by senders to the key of every offer they post
+         */
+        private final AtomicLongArray openKeys = new AtomicLongArray(workers);
+        /** offers sent but not yet applied and published by their owner */
+        private final AtomicLong inFlight = new AtomicLong();
+        private final AtomicInteger expansions = new AtomicInteger();
+        private volatile boolean stopped;
+        private volatile boolean pruned;
+        private volatile boolean exhausted;
+        private volatile Throwable failure;
+        private volatile double bestCost = Double.POSITIVE_INFINITY;
+        private int bestReference = SearchArena.NONE;
+
+        Run(MoveChecker checker, AStarPathfinder.Goal goal, double maxCost, Position end, int expansionLimit) {
+            this.checker = checker;
+            this.goal = goal;
+            this.maxCost = maxCost;
+            this.endLng = end.getLng();
+            this.endLat = end.getLat();
+            this.expansionLimit = expansionLimit;
+            for (int w = 0; w < workers; w++) {
+                SearchArena arena = spareArenas.poll();
+                arenas[w] = arena == null ? new SearchArena() : arena;
+                arenas[w].reset();
+                inboxes.add(new ConcurrentLinkedQueue<>());
+                openKeys.set(w, Double.doubleToRawLongBits(0));
+            }
+        }
+
+        /**
+         * One worker's loop. A failing worker stops the others, which would otherwise wait
+         * forever on its open list.
+         */
+        void work(int worker) {
+            try {
+                loop(worker);
+            } catch (RuntimeException | Error e) {
+                failure = e;
+                stopped = true;
+            }
+        }
+
+        private void loop(int worker) {
+            SearchArena tree = arenas[worker];
+            Queue<Offer> inbox = inboxes.get(worker);
+
+            while (!stopped) {
+                int applied = 0;
+                for (Offer offer = inbox.poll(); offer != null; offer = inbox.poll()) {
+                    apply(tree, offer);
+                    applied++;
+                }
+                double openKey = tree.isQueueEmpty() ? Double.POSITIVE_INFINITY : tree.f[tree.peek()];
+                openKeys.set(worker, Double.doubleToRawLongBits(openKey));
+                if (applied > 0) inFlight.addAndGet(-applied);
+                // an offer posted while publishing may have had its key overwritten, so take it in first
+                if (!inbox.isEmpty()) continue;
+
+                if (openKey >= bestCost) {
+                    if (finished()) stopped = true;
+                    else Thread.yield();
+                    continue;
+                }
+                if (openKey > lowestOpenKey() + ORDER_SLACK) {
+                    Thread.yield();
+                    continue;
+                }
+                if (expansions.incrementAndGet() > expansionLimit) {
+                    exhausted = true;
+                    stopped = true;
+                    break;
+                }
+
+                int current = tree.poll();
+                tree.closed[current] = true;
+                if (geometryService.checkPointsClose(tree.lng[current], tree.lat[current], endLng, endLat)) {
+                    arrive(reference(worker, current), tree.g[current]);
+                    continue;
+                }
+                expand(worker, tree, current);
+            }
+        }
+
+        /**
+         * Opens every clear move from a settled node, applying those into the worker's own cells
+         * directly and posting the rest to their owners.
+         */
+        private void expand(int worker, SearchArena tree, int current) {
+            double currentLng = tree.lng[current];
+            double currentLat = tree.lat[current];
+            double tentativeG = tree.g[current] + STEP_SIZE;
+            int parent = reference(worker, current);
+            for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+                double nextLng = currentLng + DX[direction];
+                double nextLat = currentLat + DY[direction];
+                long cell = Lattice.cellOf(nextLng, nextLat);
+                int owner = owner(cell);
+                if (owner == worker) {
+                    int known = tree.find(cell);
+                    if (known != SearchArena.NONE && (tree.closed[known] || tentativeG >= tree.g[known])) continue;
+                }
+
+                double remaining = goal.lowerBound(nextLng, nextLat);
+                if (tentativeG + Math.max(0, remaining - STEP_SIZE) > maxCost) {
+                    pruned = true;
+                    continue;
+                }
+                if (tentativeG + Math.max(0, remaining - STEP_SIZE) >= bestCost) continue;
+                if (checker.isBlockedMove(currentLng, currentLat, direction, nextLng, nextLat)) continue;
+
+                Offer offer = new Offer(cell, nextLng, nextLat, tentativeG, remaining * goal.weight(), parent, direction);
+                if (owner == worker) {
+                    apply(tree, offer);
+                } else {
+                    offer(owner, offer);
+                }
+            }
+        }
+
+        void offer(int owner, Offer offer) {
+            int target = owner < 0 ? owner(offer.cell()) : owner;
+            inFlight.incrementAndGet();
+            inboxes.get(target).add(offer);
+            lowerOpenKey(target, offer.g() + offer.h());
+        }
+
+        private void lowerOpenKey(int worker, double key) {
+            while (true) {
+                long published = openKeys.get(worker);
+                if (Double.longBitsToDouble(published) <= key
+                        || openKeys.compareAndSet(worker, published, Double.doubleToRawLongBits(key))) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Opens the offered node, or re-anchors the open node of its cell when the offer is cheaper.
+         */
+        private void apply(SearchArena tree, Offer offer) {
+            int known = tree.find(offer.cell());
+            if (known == SearchArena.NONE) {
+                tree.push(tree.add(offer.cell(), offer.lng(), offer.lat(), offer.g(), offer.h(), offer.parent(),
+                        offer.direction()));
+                return;
+            }
+            if (tree.closed[known] || offer.g() >= tree.g[known]) return;
+            tree.relink(known, offer.lng(), offer.lat(), offer.g(), offer.h(), offer.parent(), offer.direction());
+            if (tree.isQueued(known)) {
+                tree.update(known);
+            } else {
+                tree.push(known);
+            }
+        }
+
+        private synchronized void arrive(int reference, double cost) {
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestReference = reference;
+            }
+        }
+
+        private double lowestOpenKey() {
+            double lowest = Double.POSITIVE_INFINITY;
+            for (int w = 0; w < workers; w++) {
+                lowest = Math.min(lowest, Double.longBitsToDouble(openKeys.get(w)));
+            }
+            return lowest;
+        }
+
+        /**
+         * True once every offer has been applied and no worker holds an open key below the best
+         * path; with no path found that means every open list ran dry.
+         */
+        private boolean finished() {
+            if (inFlight.get() != 0) return false;
+            double best = bestCost;
+            for (int w = 0; w < workers; w++) {
+                if (Double.longBitsToDouble(openKeys.get(w)) < best) return false;
+            }
+            return inFlight.get() == 0;
+        }
+
+        List<Position> path() {
+            List<Position> path = new ArrayList<>();
+            for (int reference = bestReference; reference != SearchArena.NONE; ) {
+                SearchArena tree = arenas[reference >>> INDEX_BITS];
+                int index = reference & INDEX_MASK;
+                path.add(new Position(tree.lng[index], tree.lat[index]));
+                reference = tree.parent[index];
+            }
+            Collections.reverse(path);
+            return path;
+        }
+
+        private static int reference(int worker, int index) {
+            return worker << INDEX_BITS | index;
+        }
+    }
+}
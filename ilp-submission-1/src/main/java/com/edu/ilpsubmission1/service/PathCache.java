@@ -0,0 +1,298 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide, size-bounded cache of computed legs shared by all delivery requests.
+ * Entries are keyed by both endpoints and the version of the {@link ZoneIndex} they were planned
+ * against. Every leg also records the lattice cells its points fall in, so when the restricted
+ * areas change only the legs crossing an added or reshaped zone are repaired, and only the legs
+ * passing a removed one replanned; the rest carry over to the new version untouched. That carry-over
+ * runs in the background, and requests miss until it reaches their leg. Hit, miss and eviction
+ * counts are published as pathfinding.paths cache metrics.
+ */
+@Component
+@Slf4j
+public class PathCache {
+
+    /** a leg that detoured round a zone passes within this many moves of it */
+    private static final int DETOUR_REACH_MOVES = 4;
+
+    private final Cache<Key, Leg> cache;
+    private final AStarPathfinder pathfinder;
+    private final int repairLimit;
+    private final Executor executor;
+
+    /** newest zone version announced, so a carry-over for older zones stops rather than clobber a newer one */
+    private final AtomicLong newestVersion = new AtomicLong(Long.MIN_VALUE);
+
+    private record Key(long zoneVersion, Coordinates start, Coordinates end) {
+        static Key of(Position start, Position end, ZoneIndex zones) {
+            return new Key(zones.version(), Coordinates.of(start), Coordinates.of(end));
+        }
+
+        Key at(ZoneIndex zones) {
+            return new Key(zones.version(), start, end);
+        }
+    }
+
+    /**
+     * A cached path and the lattice cell of each of its points, in path order.
+     */
+    private record Leg(List<Position> path, long[] cells) {
+        static Leg of(List<Position> path) {
+            long[] cells = new long[path.size()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = Lattice.cellOf(path.get(i).getLng(), path.get(i).getLat());
+            }
+            return new Leg(List.copyOf(path), cells);
+        }
+    }
+
+    /**
+     * Lattice cells within some moves of a zone's bounding box; a move that touches the zone has
+     * both its ends within one.
+     */
+    private record CellBox(int minColumn, int minRow, int maxColumn, int maxRow) {
+        static CellBox around(Region zone, int moves) {
+            double reach = moves * Lattice.STEP_SIZE + ZoneIndex.MARGIN;
+            double minLng = Double.POSITIVE_INFINITY, minLat = Double.POSITIVE_INFINITY;
+            double maxLng = Double.NEGATIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+            for (Position vertex : zone.getVertices()) {
+                minLng = Math.min(minLng, vertex.getLng());
+                minLat = Math.min(minLat, vertex.getLat());
+                maxLng = Math.max(maxLng, vertex.getLng());
+                maxLat = Math.max(maxLat, vertex.getLat());
+            }
+            return new CellBox(Lattice.column(minLng - reach), Lattice.row(minLat - reach),
+                    Lattice.column(maxLng + reach), Lattice.row(maxLat + reach));
+        }
+
+        boolean contains(long cell) {
+            int column = Lattice.columnOf(cell);
+            int row = Lattice.rowOf(cell);
+            return column >= minColumn && column <= maxColumn && row >= minRow && row <= maxRow;
+        }
+    }
+
+    /**
+     * A cache without a pathfinder, which drops the legs a zone change breaks instead of repairing them.
+     */
+    public PathCache(MeterRegistry meterRegistry, long maxSize) {
+        this(meterRegistry, maxSize, null, 0);
+    }
+
+    /**
+     * @param repairLimit most broken or opened-up legs replanned per zone change; any beyond are dropped
+     */
+    @Autowired
+    public PathCache(MeterRegistry meterRegistry,
+                     @Value("${pathfinding.cache.max-size:4096}") long maxSize,
+                     AStarPathfinder pathfinder,
+                     @Value("${pathfinding.cache.repair-limit:256}") int repairLimit) {
+        this(meterRegistry, maxSize, pathfinder, repairLimit, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param executor runs the carry-over of legs after a zone change
+     */
+    PathCache(MeterRegistry meterRegistry, long maxSize, AStarPathfinder pathfinder, int repairLimit,
+              Executor executor) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.pathfinder = pathfinder;
+        this.repairLimit = pathfinder == null ? 0 : repairLimit;
+        this.executor = executor;
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "pathfinding.paths");
+    }
+
+    /**
+     * The cached leg from start to end, computing and storing it on a miss.
+     * Concurrent requests for the same leg wait for a single computation.
+     */
+    public List<Position> get(Position start, Position end, ZoneIndex zones,
+                              Supplier<List<Position>> loader) {
+        try {
+            return cache.get(Key.of(start, end, zones), () -> Leg.of(loader.get())).path();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Failed to compute path", e.getCause());
+        }
+    }
+
+    /**
+     * The cached leg, or null; counted as a hit or a miss.
+     */
+    public List<Position> getIfPresent(Position start, Position end, ZoneIndex zones) {
+        Leg leg = cache.getIfPresent(Key.of(start, end, zones));
+        return leg == null ? null : leg.path();
+    }
+
+    public void put(Position start, Position end, ZoneIndex zones, List<Position> path) {
+        cache.put(Key.of(start, end, zones), Leg.of(path));
+    }
+
+    /**
+     * Whether the leg is cached, without counting towards the hit and miss statistics.
+     */
+    public boolean contains(Position start, Position end, ZoneIndex zones) {
+        return cache.asMap().containsKey(Key.of(start, end, zones));
+    }
+
+    public void putIfAbsent(Position start, Position end, ZoneIndex zones, List<Position> path) {
+        cache.asMap().putIfAbsent(Key.of(start, end, zones), Leg.of(path));
+    }
+
+    /**
+     * Empties the cache at once, so no leg planned against the previous zones is served, then
+     * carries those legs over to the new version in the background. Announcements older than the
+     * newest seen are ignored.
+     */
+    @EventListener
+    public void onZonesChanged(ZoneIndexChangedEvent event) {
+        ZoneIndex current = event.current();
+        long version = current.version();
+        if (newestVersion.accumulateAndGet(version, Math::max) != version) return;
+        List<Map.Entry<Key, Leg>> entries = new ArrayList<>(cache.asMap().entrySet());
+        cache.invalidateAll();
+        CompletableFuture.runAsync(() -> carryOver(event.previous(), current, entries), executor)
+                .exceptionally(e -> {
+                    log.warn("Failed to carry cached paths over to zone version {}", version, e);
+                    return null;
+                });
+    }
+
+    /**
+     * Carries the legs planned against the previous zones over to the new version. A leg can only
+     * be broken by a zone that is new or reshaped, and only where one of its points lies near that
+     * zone; those moves are checked exactly and the legs they break are repaired, or replanned when
+     * the repair fails. A leg passing within a few moves of a removed zone may have been detouring
+     * round it, so it is replanned. A repair or replan that gives up at the iteration limit drops the
+     * leg rather than storing it as unreachable. Legs with no path are kept only when no zone went
+     * away. Stops early once newer zones are announced; legs requests have planned in the meantime
+     * are left in place.
+     */
+    private void carryOver(ZoneIndex previous, ZoneIndex current, List<Map.Entry<Key, Leg>> entries) {
+        if (previous == null) {
+            log.info("Dropped {} cached paths for zone version {}", entries.size(), current.version());
+            return;
+        }
+
+        List<Region> added = current.zones().stream().filter(zone -> !previous.zones().contains(zone)).toList();
+        List<Region> removed = previous.zones().stream().filter(zone -> !current.zones().contains(zone)).toList();
+        ZoneIndex addedZones = ZoneIndex.compile(added);
+        List<CellBox> addedBoxes = added.stream().map(zone -> CellBox.around(zone, 1)).toList();
+        List<CellBox> removedBoxes = removed.stream().map(zone -> CellBox.around(zone, DETOUR_REACH_MOVES)).toList();
+
+        int kept = 0, repaired = 0, replanned = 0, dropped = 0, attempts = 0;
+        for (Map.Entry<Key, Leg> entry : entries) {
+            if (newestVersion.get() != current.version()) {
+                log.info("Zone version {} superseded; stopped carrying cached paths over", current.version());
+                return;
+            }
+            Key key = entry.getKey();
+            Leg leg = entry.getValue();
+            if (key.zoneVersion() != previous.version() || leg.path().isEmpty() && !removed.isEmpty()) {
+                dropped++;
+                continue;
+            }
+
+            int[] blocked = blockedMoves(leg, addedZones, addedBoxes);
+            boolean opened = blocked == null && passes(leg, removedBoxes);
+            if (blocked == null && !opened) {
+                cache.asMap().putIfAbsent(key.at(current), leg);
+                kept++;
+            } else if (attempts++ >= repairLimit) {
+                dropped++;
+            } else {
+                PathSearchResult result = opened ? replan(key, current) : repair(key, leg, current, blocked);
+                if (!result.isFound() && result.outcome() != PathSearchResult.Outcome.NO_PATH) {
+                    dropped++;
+                    continue;
+                }
+                cache.asMap().putIfAbsent(key.at(current), Leg.of(result.path()));
+                if (opened) replanned++;
+                else repaired++;
+            }
+        }
+        log.info("Zone version {}: kept {} cached paths, repaired {}, replanned {}, dropped {}",
+                current.version(), kept, repaired, replanned, dropped);
+    }
+
+    /**
+     * Whether any point of the leg lies within a move of one of the boxes.
+     */
+    private static boolean passes(Leg leg, List<CellBox> boxes) {
+        for (CellBox box : boxes) {
+            for (long cell : leg.cells()) {
+                if (box.contains(cell)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The first and last move the added zones block, or null when the leg is still clear. Only
+     * moves with an end near an added zone are checked.
+     */
+    private static int[] blockedMoves(Leg leg, ZoneIndex addedZones, List<CellBox> boxes) {
+        List<Position> path = leg.path();
+        long[] cells = leg.cells();
+        int first = -1, last = -1;
+        for (CellBox box : boxes) {
+            for (int i = 0; i < path.size() - 1; i++) {
+                if (!box.contains(cells[i]) && !box.contains(cells[i + 1])) continue;
+                Position from = path.get(i);
+                Position to = path.get(i + 1);
+                if (addedZones.isBlockedMove(from.getLng(), from.getLat(), to.getLng(), to.getLat())) {
+                    first = first < 0 ? i : Math.min(first, i);
+                    last = Math.max(last, i);
+                }
+            }
+        }
+        return first < 0 ? null : new int[]{first, last};
+    }
+
+    private PathSearchResult repair(Key key, Leg leg, ZoneIndex zones, int[] blocked) {
+        List<Position> repaired = pathfinder.repair(leg.path(), key.end().toPosition(), zones, blocked[0],
+                blocked[1]);
+        return repaired != null ? PathSearchResult.found(repaired) : replan(key, zones);
+    }
+
+    private PathSearchResult replan(Key key, ZoneIndex zones) {
+        return pathfinder.search(key.start().toPosition(), key.end().toPosition(), zones,
+                AStarPathfinder.UNBOUNDED);
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
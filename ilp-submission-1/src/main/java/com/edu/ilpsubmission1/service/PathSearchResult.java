@@ -0,0 +1,48 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+
+import java.util.List;
+
+/**
+ * Outcome of a move-bounded search. A leg that exists but cannot be flown within the budget is
+ * reported as {@link Outcome#OVER_BUDGET}, so callers can try another drone instead of treating
+ * the destination as unreachable. A search that gave up at its iteration limit proves neither, and
+ * is reported as {@link Outcome#ITERATION_LIMIT}.
+ */
+public record PathSearchResult(Outcome outcome, List<Position> path) {
+
+    public enum Outcome { FOUND, OVER_BUDGET, NO_PATH, ITERATION_LIMIT }
+
+    static PathSearchResult found(List<Position> path) {
+        return new PathSearchResult(Outcome.FOUND, path);
+    }
+
+    static PathSearchResult overBudget() {
+        return new PathSearchResult(Outcome.OVER_BUDGET, List.of());
+    }
+
+    static PathSearchResult noPath() {
+        return new PathSearchResult(Outcome.NO_PATH, List.of());
+    }
+
+    static PathSearchResult iterationLimit() {
+        return new PathSearchResult(Outcome.ITERATION_LIMIT, List.of());
+    }
+
+    /**
+     * Classifies an unbounded result against a budget.
+     */
+    static PathSearchResult within(List<Position> path, int maxMoves) {
+        if (path.isEmpty()) return noPath();
+        return path.size() - 1 <= maxMoves ? found(path) : overBudget();
+    }
+
+    public boolean isFound() {
+        return outcome == Outcome.FOUND;
+    }
+
+    public int moves() {
+        return path.isEmpty() ? 0 : path.size() - 1;
+    }
+}
@@ -2,9 +2,14 @@ package com.edu.ilpsubmission1.service;
 
 import com.edu.ilpsubmission1.client.IlpRestClient;
 import com.edu.ilpsubmission1.dtos.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Service
@@ -16,8 +21,21 @@ public class PathService {
     private final AStarPathfinder pathfinder;
     private final AvailabilityService availabilityService;
     private final DroneCatalogService droneCatalogService;
-
-    private record PathSegment(Position start, Position end) {}
+    private final ZoneIndexRegistry zoneIndexRegistry;
+    private final PathCache pathCache;
+    private final ServicePointTreeService servicePointTrees;
+    private final SearchMode searchMode;
+
+    /**
+     * Zones, deadline and in-flight legs shared by every leg planned for one request.
+     */
+    private record PlanningContext(ZoneIndex zones, Deadline deadline, LegFutures legs) {}
+
+    /**
+     * One day's flights in planning order, and the single-delivery trips among them whose cost and
+     * moves count towards the totals.
+     */
+    private record DayPlan(List<DeliveryPathResponse.DronePath> paths, List<Trip> singleTrips) {}
 
     private record Trip(String droneId, ServicePoint startPoint, Object deliveryData,
                         double totalCost, int totalMoves) {
@@ -34,99 +52,186 @@ public class PathService {
     public PathService(DroneService droneService, GeometryService geometryService,
                        IlpRestClient ilpRestClient, AStarPathfinder pathfinder,
                        AvailabilityService availabilityService,
-                       DroneCatalogService droneCatalogService) {
+                       DroneCatalogService droneCatalogService,
+                       ZoneIndexRegistry zoneIndexRegistry,
+                       PathCache pathCache,
+                       ServicePointTreeService servicePointTrees,
+                       @Value("${pathfinding.search-mode:UNIDIRECTIONAL}") SearchMode searchMode) {
         this.droneService = droneService;
         this.geometryService = geometryService;
         this.ilpRestClient = ilpRestClient;
         this.pathfinder = pathfinder;
         this.availabilityService = availabilityService;
         this.droneCatalogService = droneCatalogService;
+        this.zoneIndexRegistry = zoneIndexRegistry;
+        this.pathCache = pathCache;
+        this.servicePointTrees = servicePointTrees;
+        this.searchMode = searchMode;
     }
 
     public DeliveryPathResponse calculateDeliveryPath(List<MedDispatchRec> allDispatches) {
-        List<Region> restrictedZones = buildRestrictedZones();
-        Map<PathSegment, List<Position>> cachedPaths = new HashMap<>();
-
-        Map<LocalDate, List<MedDispatchRec>> groupedByDate = allDispatches.stream()
-                .collect(Collectors.groupingBy(MedDispatchRec::getDate));
-
-        List<DeliveryPathResponse.DronePath> completedPaths = new ArrayList<>();
-        double aggregateCost = 0;
-        int aggregateMoves = 0;
-
-        for (Map.Entry<LocalDate, List<MedDispatchRec>> dateEntry : groupedByDate.entrySet()) {
-            List<MedDispatchRec> pending = new ArrayList<>(dateEntry.getValue());
-
-            while (!pending.isEmpty()) {
-                boolean handled = attemptMultiDelivery(pending, completedPaths,
-                        restrictedZones, cachedPaths);
-
-                if (!handled) {
-                    Trip singleTrip = processSingleDispatch(pending.get(0),
-                            restrictedZones, cachedPaths);
-                    if (singleTrip != null) {
-                        completedPaths.add(singleTrip.toDronePath());
-                        aggregateCost += singleTrip.totalCost;
-                        aggregateMoves += singleTrip.totalMoves;
-                    }
-                    pending.remove(0);
+        return calculateDeliveryPath(allDispatches, null);
+    }
+
+    /**
+     * Plans the deliveries, spending at most roughly the given budget on improving legs; without a
+     * budget every leg is searched to completion. Legs always get at least their first path.
+     */
+    public DeliveryPathResponse calculateDeliveryPath(List<MedDispatchRec> allDispatches, Duration planningBudget) {
+        ZoneIndex restrictedZones = zoneIndexRegistry.indexFor(buildRestrictedZones());
+        Deadline deadline = Deadline.after(planningBudget);
+        primeServicePointLegs(allDispatches, restrictedZones);
+
+        try (LegFutures legs = new LegFutures();
+             ExecutorService days = Executors.newVirtualThreadPerTaskExecutor()) {
+            PlanningContext plan = new PlanningContext(restrictedZones, deadline, legs);
+
+            Map<LocalDate, List<MedDispatchRec>> groupedByDate = allDispatches.stream()
+                    .collect(Collectors.groupingBy(MedDispatchRec::getDate, TreeMap::new, Collectors.toList()));
+            List<CompletableFuture<DayPlan>> dayPlans = groupedByDate.values().stream()
+                    .map(dispatches -> CompletableFuture.supplyAsync(() -> planDay(dispatches, plan), days))
+                    .toList();
+
+            List<DeliveryPathResponse.DronePath> completedPaths = new ArrayList<>();
+            double aggregateCost = 0;
+            int aggregateMoves = 0;
+
+            for (CompletableFuture<DayPlan> dayPlan : dayPlans) {
+                DayPlan day = LegFutures.join(dayPlan);
+                completedPaths.addAll(day.paths());
+                for (Trip singleTrip : day.singleTrips()) {
+                    aggregateCost += singleTrip.totalCost;
+                    aggregateMoves += singleTrip.totalMoves;
                 }
             }
-        }
 
-        return new DeliveryPathResponse(aggregateCost, aggregateMoves, completedPaths);
+            return new DeliveryPathResponse(aggregateCost, aggregateMoves, completedPaths);
+        }
     }
 
-    private boolean attemptMultiDelivery(List<MedDispatchRec> pending,
-                                         List<DeliveryPathResponse.DronePath> paths,
-                                         List<Region> zones,
-                                         Map<PathSegment, List<Position>> cache) {
-        for (int count = pending.size(); count >= 2; count--) {
-            List<MedDispatchRec> batch = pending.subList(0, count);
-            List<String> candidates = availabilityService.queryAvailableDrones(batch);
-
-            if (!candidates.isEmpty()) {
-                Optional<Trip> tripResult = planMultiDeliveryTrip(candidates.get(0),
-                        batch, zones, cache);
-                if (tripResult.isPresent()) {
-                    Trip t = tripResult.get();
-                    paths.add(t.toDronePath());
-
-                    Set<Long> completed = t.toDronePath().getDeliveries().stream()
-                            .map(DeliveryPathResponse.Delivery::getDeliveryId)
-                            .collect(Collectors.toSet());
-                    pending.removeIf(d -> completed.contains(d.getId()));
-                    return true;
+    /**
+     * Plans one day's dispatches. Days share no drones, so they are planned side by side and merged
+     * in date order. They do share the request's leg futures and the path cache; without a deadline
+     * these only ever hand out the leg a day would have searched itself, so the cache's evictions
+     * interleaving differently changes what is searched again, not the plan.
+     * The day's leg costs are computed up front and its trips built from them with
+     * {@link SavingsPlanner}, so only the chosen trips are stitched together. A trip that cannot be
+     * stitched within its drone's limits falls back to single deliveries.
+     */
+    private DayPlan planDay(List<MedDispatchRec> dispatches, PlanningContext plan) {
+        Map<Long, List<String>> eligible = availabilityService.queryEligibleDrones(dispatches);
+        List<SavingsPlanner.Candidate> fleet = fleet(eligible);
+        LegCostMatrix costs = legCosts(dispatches, fleet, plan);
+        List<DeliveryPathResponse.DronePath> paths = new ArrayList<>();
+        List<Trip> singleTrips = new ArrayList<>();
+
+        List<SavingsPlanner.Route> routes = SavingsPlanner.plan(dispatches, eligible, fleet, costs,
+                plan.deadline());
+        for (SavingsPlanner.Route route : routes) {
+            List<MedDispatchRec> stops = route.dispatches();
+            if (route.drone() != null && stops.size() > 1) {
+                Optional<Trip> trip = planMultiDeliveryTrip(route.drone().droneId(), stops, plan);
+                if (trip.isPresent()) {
+                    paths.add(trip.get().toDronePath());
+                    continue;
+                }
+            }
+            for (MedDispatchRec dispatch : stops) {
+                Optional<Trip> trip = route.drone() != null && stops.size() == 1
+                        ? planSingleDeliveryTrip(route.drone().droneId(), dispatch, plan)
+                        : Optional.empty();
+                Trip singleTrip = trip.orElseGet(() -> processSingleDispatch(dispatch, costs, plan));
+                if (singleTrip != null) {
+                    paths.add(singleTrip.toDronePath());
+                    singleTrips.add(singleTrip);
                 }
             }
         }
-        return false;
+        return new DayPlan(paths, singleTrips);
     }
 
-    private Trip processSingleDispatch(MedDispatchRec dispatch, List<Region> zones,
-                                       Map<PathSegment, List<Position>> cache) {
-        List<String> availableDrones = availabilityService.queryAvailableDrones(List.of(dispatch));
-        if (availableDrones.isEmpty()) return null;
+    /**
+     * Every drone eligible for any of the day's dispatches, with its base.
+     */
+    private List<SavingsPlanner.Candidate> fleet(Map<Long, List<String>> eligible) {
+        Set<String> droneIds = new LinkedHashSet<>();
+        eligible.values().forEach(droneIds::addAll);
+        List<SavingsPlanner.Candidate> fleet = new ArrayList<>();
+        for (String droneId : droneIds) {
+            Drone drone = droneCatalogService.findDroneDetailsById(droneId).orElse(null);
+            ServicePoint base = findServicePointForDrone(droneId).orElse(null);
+            if (drone == null || drone.capability() == null || base == null || base.location() == null) continue;
+            fleet.add(new SavingsPlanner.Candidate(droneId, base.location(), drone.capability()));
+        }
+        return fleet;
+    }
+
+    /**
+     * Leg costs between the day's delivery points and the bases of its eligible drones; bases no
+     * eligible drone flies from are left out, as no trip could use their legs.
+     */
+    private LegCostMatrix legCosts(List<MedDispatchRec> dispatches, List<SavingsPlanner.Candidate> fleet,
+                                   PlanningContext plan) {
+        List<Position> servicePoints = fleet.stream()
+                .map(SavingsPlanner.Candidate::base)
+                .toList();
+        List<Position> deliveries = dispatches.stream()
+                .map(MedDispatchRec::getDelivery)
+                .filter(Objects::nonNull)
+                .toList();
+        return LegCostMatrix.compute(servicePoints, deliveries, SavingsPlanner.NEIGHBOURS,
+                (from, to) -> plan.legs().start(from, to, () -> fetchOrComputePath(from, to, plan)));
+    }
 
-        return planSingleDeliveryTrip(availableDrones.get(0), dispatch, zones, cache)
-                .orElse(null);
+    private Trip processSingleDispatch(MedDispatchRec dispatch, LegCostMatrix costs, PlanningContext plan) {
+        for (String droneId : availabilityService.queryAvailableDrones(List.of(dispatch))) {
+            if (!fitsTrip(droneId, List.of(dispatch), costs)) continue;
+            Optional<Trip> trip = planSingleDeliveryTrip(droneId, dispatch, plan);
+            if (trip.isPresent()) return trip.get();
+        }
+        return null;
+    }
+
+    /**
+     * Whether the drone can fly the dispatches from its base in the given order, within its moves
+     * and every dispatch's cost limit, going by the leg costs alone. The stitched trip is checked
+     * again, as its legs start where the previous one actually arrived.
+     */
+    private boolean fitsTrip(String droneId, List<MedDispatchRec> dispatches, LegCostMatrix costs) {
+        Drone drone = droneCatalogService.findDroneDetailsById(droneId).orElse(null);
+        ServicePoint base = findServicePointForDrone(droneId).orElse(null);
+        if (drone == null || base == null) return false;
+
+        List<Position> stops = dispatches.stream()
+                .map(MedDispatchRec::getDelivery)
+                .toList();
+        int moves = costs.tripMoves(base.location(), stops);
+        if (moves == LegCostMatrix.NO_PATH || moves > drone.capability().maxMoves()) return false;
+
+        double perDispatchCost = (drone.capability().costInitial() + drone.capability().costFinal()
+                + moves * drone.capability().costPerMove()) / dispatches.size();
+        return dispatches.stream().allMatch(d -> d.getRequirements().getMaxCost() == null
+                || perDispatchCost <= d.getRequirements().getMaxCost());
     }
 
     private Optional<Trip> planSingleDeliveryTrip(String droneId, MedDispatchRec dispatch,
-                                                  List<Region> zones,
-                                                  Map<PathSegment, List<Position>> cache) {
+                                                  PlanningContext plan) {
         Drone drone = droneCatalogService.findDroneDetailsById(droneId).orElse(null);
         ServicePoint base = findServicePointForDrone(droneId).orElse(null);
         if (drone == null || base == null) return Optional.empty();
 
-        List<Position> outbound = fetchOrComputePath(base.location(),
-                dispatch.getDelivery(), zones, cache);
-        if (outbound.isEmpty()) return Optional.empty();
+        int maxMoves = drone.capability().maxMoves();
+        int returnMoves = AStarPathfinder.minimumMoves(dispatch.getDelivery(), base.location());
+        PathSearchResult outboundLeg = plannedLeg(base.location(), base.location(),
+                dispatch.getDelivery(), plan, maxMoves - 1 - returnMoves);
+        if (!outboundLeg.isFound()) return Optional.empty();
+        List<Position> outbound = outboundLeg.path();
 
         Position deliveryPoint = outbound.get(outbound.size() - 1);
-        List<Position> inbound = fetchOrComputePath(deliveryPoint,
-                base.location(), zones, cache);
-        if (inbound.isEmpty()) return Optional.empty();
+        PathSearchResult inboundLeg = plannedLeg(dispatch.getDelivery(), deliveryPoint,
+                base.location(), plan, maxMoves - 1 - outboundLeg.moves());
+        if (!inboundLeg.isFound()) return Optional.empty();
+        List<Position> inbound = inboundLeg.path();
 
         List<Position> completePath = new ArrayList<>(outbound);
         completePath.add(deliveryPoint);
@@ -152,29 +257,49 @@ public class PathService {
         return Optional.of(new Trip(droneId, base, segment, cost, moves));
     }
 
+    /**
+     * Flies the dispatches in the given order. Every leg of the trip is started at once, each from
+     * the stop it leaves rather than from where the previous leg actually arrives, which is only
+     * known once that leg is done. The legs are then joined in order, each shifted onto the
+     * previous leg's arrival point.
+     */
     private Optional<Trip> planMultiDeliveryTrip(String droneId, List<MedDispatchRec> dispatches,
-                                                 List<Region> zones,
-                                                 Map<PathSegment, List<Position>> cache) {
+                                                 PlanningContext plan) {
         Drone drone = droneCatalogService.findDroneDetailsById(droneId).orElse(null);
         ServicePoint base = findServicePointForDrone(droneId).orElse(null);
         if (drone == null || base == null) return Optional.empty();
 
-        List<MedDispatchRec> sequence = orderByProximity(base.location(), dispatches);
+        List<Position> stops = new ArrayList<>();
+        stops.add(base.location());
+        dispatches.forEach(dispatch -> stops.add(dispatch.getDelivery()));
+        stops.add(base.location());
+        List<CompletableFuture<List<Position>>> legs = new ArrayList<>();
+        for (int idx = 0; idx < stops.size() - 1; idx++) {
+            Position from = stops.get(idx);
+            Position to = stops.get(idx + 1);
+            legs.add(plan.legs().start(from, to, () -> fetchOrComputePath(from, to, plan)));
+        }
+
         List<DeliveryPathResponse.Delivery> segments = new ArrayList<>();
         Position current = base.location();
         int totalSteps = 0;
 
-        for (int idx = 0; idx < sequence.size(); idx++) {
-            MedDispatchRec dispatch = sequence.get(idx);
-            List<Position> pathSegment = fetchOrComputePath(current,
-                    dispatch.getDelivery(), zones, cache);
-            if (pathSegment.isEmpty()) return Optional.empty();
+        for (int idx = 0; idx < dispatches.size(); idx++) {
+            MedDispatchRec dispatch = dispatches.get(idx);
+            int returnMoves = AStarPathfinder.minimumMoves(dispatch.getDelivery(), base.location());
+            PathSearchResult leg = PathSearchResult.within(
+                    joinLeg(legs.get(idx), stops.get(idx), current, dispatch.getDelivery(), plan),
+                    drone.capability().maxMoves() - totalSteps - 1 - returnMoves);
+            if (!leg.isFound()) return Optional.empty();
+            List<Position> pathSegment = leg.path();
 
             Position target = pathSegment.get(pathSegment.size() - 1);
-            List<Position> flightPath = constructFlightPath(pathSegment, target, current,
-                    base.location(), idx,
-                    sequence.size(), zones, cache);
-            if (flightPath == null) return Optional.empty();
+            List<Position> returnPath = null;
+            if (idx == dispatches.size() - 1) {
+                returnPath = joinLeg(legs.get(idx + 1), dispatch.getDelivery(), target, base.location(), plan);
+                if (returnPath.isEmpty()) return Optional.empty();
+            }
+            List<Position> flightPath = constructFlightPath(pathSegment, target, base.location(), returnPath);
 
             segments.add(new DeliveryPathResponse.Delivery(dispatch.getId(), flightPath));
             totalSteps += flightPath.size() - 1;
@@ -199,64 +324,55 @@ public class PathService {
         return Optional.of(new Trip(droneId, base, combined, totalCost, totalSteps));
     }
 
-    private List<Position> constructFlightPath(List<Position> pathToTarget, Position target,
-                                               Position currentPos, Position basePos,
-                                               int index, int total,
-                                               List<Region> zones,
-                                               Map<PathSegment, List<Position>> cache) {
-        List<Position> path = new ArrayList<>();
-
-        if (index == 0) {
-            path.addAll(pathToTarget);
-            path.add(target);
-
-            if (total == 1) {
-                List<Position> returnPath = fetchOrComputePath(target, basePos, zones, cache);
-                if (returnPath.isEmpty()) return null;
-                path.addAll(returnPath.stream().skip(1).toList());
-                if (!path.get(path.size() - 1).equals(basePos)) {
-                    path.add(basePos);
-                }
-            }
-        } else {
-            path.addAll(pathToTarget);
-            path.add(target);
-
-            if (index == total - 1) {
-                List<Position> returnPath = fetchOrComputePath(target, basePos, zones, cache);
-                if (returnPath.isEmpty()) return null;
-                path.addAll(returnPath.stream().skip(1).toList());
-                if (!path.get(path.size() - 1).equals(basePos)) {
-                    path.add(basePos);
-                }
-            }
-        }
+    /**
+     * The request's leg from stop to end, flown from start within maxMoves. Only when it is too
+     * long is the leg searched again within the budget, as the planned one need not be the shortest.
+     */
+    private PathSearchResult plannedLeg(Position stop, Position start, Position end, PlanningContext plan,
+                                        int maxMoves) {
+        CompletableFuture<List<Position>> planned = plan.legs().start(stop, end,
+                () -> fetchOrComputePath(stop, end, plan));
+        PathSearchResult leg = PathSearchResult.within(joinLeg(planned, stop, start, end, plan), maxMoves);
+        return leg.outcome() == PathSearchResult.Outcome.OVER_BUDGET
+                ? fetchOrComputePath(start, end, plan, maxMoves)
+                : leg;
+    }
 
-        return path;
+    /**
+     * Waits for a leg planned from stop and flies it from start, where the drone actually is,
+     * searching the leg again from start if the shifted moves cannot be flown.
+     */
+    private List<Position> joinLeg(CompletableFuture<List<Position>> planned, Position stop, Position start,
+                                   Position end, PlanningContext plan) {
+        List<Position> leg = LegFutures.join(planned);
+        if (start.equals(stop)) return leg;
+        List<Position> shifted = leg.isEmpty() ? null : pathfinder.reanchor(leg, start, end, plan.zones());
+        return shifted != null ? shifted : fetchOrComputePath(start, end, plan);
     }
 
-    private List<MedDispatchRec> orderByProximity(Position start,
-                                                  List<MedDispatchRec> dispatches) {
-        List<MedDispatchRec> ordered = new ArrayList<>();
-        List<MedDispatchRec> remaining = new ArrayList<>(dispatches);
-        Position currentPos = start;
-
-        while (!remaining.isEmpty()) {
-            Position pos = currentPos;
-            MedDispatchRec closest = remaining.stream()
-                    .min(Comparator.comparingDouble(d ->
-                            geometryService.calculateDistance(pos, d.getDelivery())))
-                    .orElseThrow();
-
-            ordered.add(closest);
-            currentPos = closest.getDelivery();
-            remaining.remove(closest);
+    /**
+     * The leg to a delivery, the hover there, and for the last delivery the flight back to base.
+     */
+    private List<Position> constructFlightPath(List<Position> pathToTarget, Position target, Position basePos,
+                                               List<Position> returnPath) {
+        List<Position> path = new ArrayList<>(pathToTarget);
+        path.add(target);
+
+        if (returnPath != null) {
+            path.addAll(returnPath.stream().skip(1).toList());
+            if (!path.get(path.size() - 1).equals(basePos)) {
+                path.add(basePos);
+            }
         }
 
-        return ordered;
+        return path;
     }
 
     public GeoJsonResponse calculateDeliveryPathAsGeoJson(List<MedDispatchRec> dispatches) {
+        return calculateDeliveryPathAsGeoJson(dispatches, null);
+    }
+
+    public GeoJsonResponse calculateDeliveryPathAsGeoJson(List<MedDispatchRec> dispatches, Duration planningBudget) {
         Set<LocalDate> dates = dispatches.stream()
                 .map(MedDispatchRec::getDate)
                 .collect(Collectors.toSet());
@@ -265,7 +381,7 @@ public class PathService {
             return GeoJsonResponse.fromPath(List.of());
         }
 
-        DeliveryPathResponse response = calculateDeliveryPath(dispatches);
+        DeliveryPathResponse response = calculateDeliveryPath(dispatches, planningBudget);
         if (response.getDronePaths().isEmpty()) {
             return GeoJsonResponse.fromPath(List.of());
         }
@@ -298,11 +414,97 @@ public class PathService {
         return GeoJsonResponse.fromPath(consolidated);
     }
 
-    private List<Position> fetchOrComputePath(Position start, Position end,
-                                              List<Region> zones,
-                                              Map<PathSegment, List<Position>> cache) {
-        PathSegment key = new PathSegment(start, end);
-        return cache.computeIfAbsent(key, k -> pathfinder.findPath(k.start(), k.end(), zones));
+    /**
+     * Takes the legs from the base of every drone eligible for a dispatch to its delivery point from
+     * the base's precomputed tree where there is one, runs one multi-target search per base for the
+     * rest, and caches both the outbound legs and their reverses as the matching return legs,
+     * skipping legs already cached. Bases no eligible drone flies from are left alone.
+     */
+    private void primeServicePointLegs(List<MedDispatchRec> dispatches, ZoneIndex zones) {
+        Map<Long, List<String>> eligible = availabilityService.queryEligibleDrones(dispatches);
+        Map<String, Optional<ServicePoint>> basesByDrone = new HashMap<>();
+        Map<Coordinates, Set<Coordinates>> targetsByBase = new LinkedHashMap<>();
+        for (MedDispatchRec dispatch : dispatches) {
+            if (dispatch.getDelivery() == null) continue;
+            for (String droneId : eligible.getOrDefault(dispatch.getId(), List.of())) {
+                ServicePoint base = basesByDrone.computeIfAbsent(droneId, this::findServicePointForDrone).orElse(null);
+                if (base == null || base.location() == null) continue;
+                targetsByBase.computeIfAbsent(Coordinates.of(base.location()), b -> new LinkedHashSet<>())
+                        .add(Coordinates.of(dispatch.getDelivery()));
+            }
+        }
+
+        for (Map.Entry<Coordinates, Set<Coordinates>> entry : targetsByBase.entrySet()) {
+            Position base = entry.getKey().toPosition();
+            List<Position> missing = new ArrayList<>();
+            for (Coordinates coordinates : entry.getValue()) {
+                Position target = coordinates.toPosition();
+                if (pathCache.contains(base, target, zones)) continue;
+                List<Position> outbound = servicePointTrees.legFrom(base, target, zones);
+                if (outbound == null) {
+                    missing.add(target);
+                } else {
+                    cacheRoundTrip(base, target, zones, outbound);
+                }
+            }
+            if (missing.isEmpty()) continue;
+
+            List<List<Position>> legs = pathfinder.searchMany(base, missing, zones);
+            for (int i = 0; i < missing.size(); i++) {
+                List<Position> outbound = legs.get(i);
+                if (outbound.isEmpty()) continue;
+                cacheRoundTrip(base, missing.get(i), zones, outbound);
+            }
+        }
+    }
+
+    /**
+     * Caches the outbound leg and its reverse. The return leg starts where the outbound one
+     * arrives, but is keyed on the delivery point, as that is where the planners look it up.
+     */
+    private void cacheRoundTrip(Position base, Position target, ZoneIndex zones, List<Position> outbound) {
+        List<Position> inbound = new ArrayList<>(outbound);
+        Collections.reverse(inbound);
+        pathCache.putIfAbsent(base, target, zones, outbound);
+        pathCache.putIfAbsent(target, base, zones, inbound);
+    }
+
+    private List<Position> fetchOrComputePath(Position start, Position end, PlanningContext plan) {
+        return fetchOrComputePath(start, end, plan, AStarPathfinder.UNBOUNDED).path();
+    }
+
+    /**
+     * Leg limited to the moves the drone has left. Legs found within budget, and legs with no path
+     * at all, are cached; a leg that only ran out of budget is not, as another drone may afford it,
+     * nor is one whose search gave up at its iteration limit, as that proves nothing. Nor is a leg
+     * whose polishing the deadline cut short: it may be far from the shortest, and the cache serves
+     * every later request, budgeted or not. Such legs are shared within the request through its
+     * {@link LegFutures} alone. A cached leg longer than the budget is searched again within it,
+     * since the cached one need not be the shortest.
+     */
+    private PathSearchResult fetchOrComputePath(Position start, Position end, PlanningContext plan,
+                                                int maxMoves) {
+        List<Position> cached = pathCache.getIfPresent(start, end, plan.zones());
+        if (cached != null && cached.size() - 1 <= maxMoves) {
+            return PathSearchResult.within(cached, maxMoves);
+        }
+
+        PathSearchResult result = search(start, end, plan, maxMoves);
+        boolean settled = result.isFound() || result.outcome() == PathSearchResult.Outcome.NO_PATH;
+        if (settled && !plan.deadline().expired()) {
+            pathCache.put(start, end, plan.zones(), result.path());
+        }
+        return result;
+    }
+
+    /**
+     * With a deadline, legs are searched anytime and polished for as long as the deadline allows;
+     * otherwise the lattice stage runs in the configured search mode.
+     */
+    private PathSearchResult search(Position start, Position end, PlanningContext plan, int maxMoves) {
+        return plan.deadline().isBounded()
+                ? pathfinder.searchAnytime(start, end, plan.zones(), maxMoves, plan.deadline())
+                : pathfinder.search(start, end, plan.zones(), maxMoves, searchMode);
     }
 
     private Optional<ServicePoint> findServicePointForDrone(String droneId) {
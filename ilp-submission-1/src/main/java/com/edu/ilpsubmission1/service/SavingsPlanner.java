@@ -0,0 +1,209 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Drone;
+import com.edu.ilpsubmission1.dtos.MedDispatchRec;
+import com.edu.ilpsubmission1.dtos.Position;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Clarke-Wright savings construction of one day's trips from its {@link LegCostMatrix}.
+ * <p>
+ * Every dispatch starts on a trip of its own. Pairs of nearby deliveries are then taken in order
+ * of the moves saved by flying from one straight to the other instead of via a base, and the trip
+ * ending at the first is joined to the trip starting at the second whenever a drone eligible for
+ * every dispatch on both can still fly the joined trip: from its base within its moves, carrying
+ * their capacity together, and keeping each dispatch's share of the cost within its limit. Each
+ * joined trip is reordered by {@link TourImprover} from the base of each such drone, so fewer moves
+ * let more trips fit, and keeps the cheapest drone together with the order it flies.
+ */
+final class SavingsPlanner {
+
+    /** deliveries joined directly only to this many of their nearest others */
+    static final int NEIGHBOURS = 10;
+
+    /** a drone trips can be flown with, and the base it flies from */
+    record Candidate(String droneId, Position base, Drone.Capability capability) {}
+
+    /** dispatches in flying order and the drone that flies them; no drone when none can */
+    record Route(Candidate drone, List<MedDispatchRec> dispatches) {}
+
+    private record Saving(int from, int to, int moves) {}
+
+    /** dispatches in the order a drone flies them, and what that costs */
+    private record Choice(List<MedDispatchRec> dispatches, Candidate drone, double cost) {}
+
+    private static final class Trip {
+        final int first;
+        final List<MedDispatchRec> dispatches = new ArrayList<>();
+        Set<Candidate> drones;
+        Candidate drone;
+
+        Trip(int first) {
+            this.first = first;
+        }
+    }
+
+    private final LegCostMatrix costs;
+    private final Deadline deadline;
+
+    private SavingsPlanner(LegCostMatrix costs, Deadline deadline) {
+        this.costs = costs;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Builds the day's trips, listed in the order of their earliest dispatch. A dispatch no
+     * candidate can fly alone may still join a trip that shares its cost; one left on its own, or
+     * without a delivery point, has no drone. Reordering trips stops improving once the deadline
+     * passes.
+     */
+    static List<Route> plan(List<MedDispatchRec> dispatches, Map<Long, List<String>> eligible,
+                            List<Candidate> fleet, LegCostMatrix costs, Deadline deadline) {
+        return new SavingsPlanner(costs, deadline).build(dispatches, eligible, fleet);
+    }
+
+    private List<Route> build(List<MedDispatchRec> dispatches, Map<Long, List<String>> eligible,
+                              List<Candidate> fleet) {
+        Trip[] tripOf = new Trip[dispatches.size()];
+        for (int i = 0; i < dispatches.size(); i++) {
+            MedDispatchRec dispatch = dispatches.get(i);
+            Trip trip = new Trip(i);
+            trip.dispatches.add(dispatch);
+            List<String> ids = eligible.getOrDefault(dispatch.getId(), List.of());
+            trip.drones = new LinkedHashSet<>();
+            for (Candidate candidate : fleet) {
+                if (ids.contains(candidate.droneId())) trip.drones.add(candidate);
+            }
+            Choice alone = dispatch.getDelivery() == null ? null : cheapest(trip.drones, trip.dispatches);
+            trip.drone = alone == null ? null : alone.drone();
+            tripOf[i] = trip;
+        }
+
+        for (Saving saving : savings(dispatches, tripOf)) {
+            Trip head = tripOf[saving.from()];
+            Trip tail = tripOf[saving.to()];
+            if (head == tail) continue;
+            boolean joinsEnds = last(head) == dispatches.get(saving.from())
+                    && tail.dispatches.get(0) == dispatches.get(saving.to());
+            if (!joinsEnds) continue;
+
+            Set<Candidate> drones = new LinkedHashSet<>(head.drones);
+            drones.retainAll(tail.drones);
+            if (drones.isEmpty()) continue;
+            List<MedDispatchRec> joined = new ArrayList<>(head.dispatches);
+            joined.addAll(tail.dispatches);
+            Choice choice = cheapestOrder(drones, joined);
+            if (choice == null) continue;
+
+            Trip merged = new Trip(Math.min(head.first, tail.first));
+            merged.dispatches.addAll(choice.dispatches());
+            merged.drones = drones;
+            merged.drone = choice.drone();
+            for (int i = 0; i < tripOf.length; i++) {
+                if (tripOf[i] == head || tripOf[i] == tail) tripOf[i] = merged;
+            }
+        }
+
+        List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < tripOf.length; i++) {
+            if (tripOf[i].first == i) routes.add(new Route(tripOf[i].drone, List.copyOf(tripOf[i].dispatches)));
+        }
+        return routes;
+    }
+
+    /**
+     * Positive savings between every pair of deliveries the matrix joins, largest first, taking
+     * for each pair the base of any drone eligible for both that saves the most.
+     */
+    private List<Saving> savings(List<MedDispatchRec> dispatches, Trip[] tripOf) {
+        List<Saving> savings = new ArrayList<>();
+        for (int from = 0; from < dispatches.size(); from++) {
+            Position start = dispatches.get(from).getDelivery();
+            if (start == null) continue;
+            for (int to = 0; to < dispatches.size(); to++) {
+                Position end = dispatches.get(to).getDelivery();
+                if (to == from || end == null) continue;
+                int direct = costs.moves(start, end);
+                if (direct == LegCostMatrix.NO_PATH) continue;
+
+                int best = 0;
+                for (Candidate candidate : tripOf[from].drones) {
+                    if (!tripOf[to].drones.contains(candidate)) continue;
+                    int back = costs.moves(start, candidate.base());
+                    int out = costs.moves(candidate.base(), end);
+                    if (back == LegCostMatrix.NO_PATH || out == LegCostMatrix.NO_PATH) continue;
+                    best = Math.max(best, back + out - direct);
+                }
+                if (best > 0) savings.add(new Saving(from, to, best));
+            }
+        }
+        savings.sort(Comparator.comparingInt(Saving::moves).reversed()
+                .thenComparingInt(Saving::from)
+                .thenComparingInt(Saving::to));
+        return savings;
+    }
+
+    /**
+     * The cheapest drone and order to fly the dispatches in: as joined, or as improved from the base
+     * of each drone by the drones sharing that base. Null when no drone can fly any of them.
+     */
+    private Choice cheapestOrder(Set<Candidate> drones, List<MedDispatchRec> joined) {
+        Choice best = cheapest(drones, joined);
+        Set<Position> bases = new LinkedHashSet<>();
+        drones.forEach(drone -> bases.add(drone.base()));
+        for (Position base : bases) {
+            List<MedDispatchRec> improved = TourImprover.improve(base, joined, costs, deadline);
+            if (improved == joined) continue;
+            Set<Candidate> based = new LinkedHashSet<>();
+            for (Candidate drone : drones) {
+                if (drone.base().equals(base)) based.add(drone);
+            }
+            Choice choice = cheapest(based, improved);
+            if (choice != null && (best == null || choice.cost() < best.cost())) best = choice;
+        }
+        return best;
+    }
+
+    /**
+     * The cheapest of the drones that can fly the dispatches in order, or null when none can.
+     */
+    private Choice cheapest(Set<Candidate> drones, List<MedDispatchRec> dispatches) {
+        List<Position> stops = dispatches.stream().map(MedDispatchRec::getDelivery).toList();
+        double load = 0;
+        for (MedDispatchRec dispatch : dispatches) {
+            if (dispatch.getRequirements() != null && dispatch.getRequirements().getCapacity() != null) {
+                load += dispatch.getRequirements().getCapacity();
+            }
+        }
+
+        Candidate best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (Candidate candidate : drones) {
+            Drone.Capability capability = candidate.capability();
+            if (load > capability.capacity()) continue;
+            int moves = costs.tripMoves(candidate.base(), stops);
+            if (moves == LegCostMatrix.NO_PATH || moves > capability.maxMoves()) continue;
+
+            double cost = capability.costInitial() + capability.costFinal() + moves * capability.costPerMove();
+            double share = cost / dispatches.size();
+            boolean affordable = dispatches.stream().allMatch(d -> d.getRequirements() == null
+                    || d.getRequirements().getMaxCost() == null
+                    || share <= d.getRequirements().getMaxCost());
+            if (affordable && cost < bestCost) {
+                best = candidate;
+                bestCost = cost;
+            }
+        }
+        return best == null ? null : new Choice(dispatches, best, bestCost);
+    }
+
+    private static MedDispatchRec last(Trip trip) {
+        return trip.dispatches.get(trip.dispatches.size() - 1);
+    }
+}
@@ -0,0 +1,282 @@
+package com.edu.ilpsubmission1.service;
+
+import java.util.Arrays;
+
+/**
+ * Node storage for one search tree in struct-of-arrays form: node i is the i-th slot of the
+ * parallel arrays, its parent an index into them, and the cell map and open list hold indices
+ * only. Nodes are appended in discovery order, so a breadth-first search can use the index range
+ * itself as its queue.
+ * <p>
+ * {@link #reset()} is O(1): the node count drops to zero and the cell map moves to a new epoch,
+ * leaving stale slots to be overwritten. Arrays grow by doubling and are kept between searches,
+ * except that {@link #trim()} gives back storage a search grew past {@link #RETAINED_NODES}.
+ */
+final class SearchArena {
+
+    static final int NONE = -1;
+
+    private static final int INITIAL_NODES = 1024;
+    /** largest node capacity kept for reuse; bigger searches are rare enough to allocate afresh */
+    static final int RETAINED_NODES = 1 << 16;
+
+    long[] cell;
+    double[] lng;
+    double[] lat;
+    double[] g;
+    double[] h;
+    double[] f;
+    int[] parent;
+    /** direction of the move from the parent, -1 for a root */
+    byte[] move;
+    boolean[] closed;
+    /** whether the move from the parent has been collision-checked; lazy searches check it on poll */
+    boolean[] verified;
+    private int[] heapIndex;
+    private int[] order;
+    private int size;
+
+    private long[] keys;
+    private int[] slots;
+    private int[] stamps;
+    private int epoch = 1;
+    private int mask;
+
+    private int[] heap;
+    private int queued;
+    private int insertions;
+
+    SearchArena() {
+        allocate(INITIAL_NODES);
+    }
+
+    void reset() {
+        size = 0;
+        queued = 0;
+        insertions = 0;
+        if (++epoch == 0) {
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    /** gives back storage grown past {@link #RETAINED_NODES} */
+    void trim() {
+        if (cell.length > RETAINED_NODES) allocate(INITIAL_NODES);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends a node and files it under its cell. Searches keep one node per cell, moving it with
+     * {@link #relink} rather than adding a second.
+     */
+    int add(long cellKey, double nodeLng, double nodeLat, double gCost, double hCost, int parentIndex, int direction) {
+        if (size == cell.length) grow();
+        int index = size++;
+        cell[index] = cellKey;
+        lng[index] = nodeLng;
+        lat[index] = nodeLat;
+        g[index] = gCost;
+        h[index] = hCost;
+        f[index] = gCost + hCost;
+        parent[index] = parentIndex;
+        move[index] = (byte) direction;
+        closed[index] = false;
+        verified[index] = true;
+        heapIndex[index] = NONE;
+        put(cellKey, index);
+        return index;
+    }
+
+    /** the node filed under the cell, or {@link #NONE} */
+    int find(long cellKey) {
+        int slot = slot(cellKey);
+        while (stamps[slot] == epoch) {
+            if (keys[slot] == cellKey) return slots[slot];
+            slot = (slot + 1) & mask;
+        }
+        return NONE;
+    }
+
+    /**
+     * Moves a node to a new point in its cell with new costs.
+     */
+    void relink(int index, double nodeLng, double nodeLat, double gCost, double hCost, int parentIndex, int direction) {
+        lng[index] = nodeLng;
+        lat[index] = nodeLat;
+        g[index] = gCost;
+        h[index] = hCost;
+        f[index] = gCost + hCost;
+        parent[index] = parentIndex;
+        move[index] = (byte) direction;
+    }
+
+    /** number of moves from the root to the node */
+    int depth(int index) {
+        int depth = 0;
+        for (int node = parent[index]; node != NONE; node = parent[node]) depth++;
+        return depth;
+    }
+
+    // open list: a binary min-heap of node indices ordered by f, then h, then insertion order
+
+    boolean isQueueEmpty() {
+        return queued == 0;
+    }
+
+    int queueSize() {
+        return queued;
+    }
+
+    boolean isQueued(int index) {
+        return heapIndex[index] != NONE;
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    void push(int index) {
+        if (queued == heap.length) heap = Arrays.copyOf(heap, queued * 2);
+        order[index] = insertions++;
+        heap[queued] = index;
+        heapIndex[index] = queued;
+        siftUp(queued++);
+    }
+
+    int poll() {
+        int top = heap[0];
+        heapIndex[top] = NONE;
+        int last = heap[--queued];
+        if (queued > 0) {
+            heap[0] = last;
+            heapIndex[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Restores heap order after a queued node's costs changed; a re-anchored point can raise h
+     * slightly, so both directions are handled.
+     */
+    void update(int index) {
+        int position = heapIndex[index];
+        siftUp(position);
+        if (heapIndex[index] == position) siftDown(position);
+    }
+
+    private boolean before(int a, int b) {
+        if (f[a] != f[b]) return f[a] < f[b];
+        if (h[a] != h[b]) return h[a] < h[b];
+        return order[a] < order[b];
+    }
+
+    private void siftUp(int position) {
+        int node = heap[position];
+        while (position > 0) {
+            int above = (position - 1) >>> 1;
+            int other = heap[above];
+            if (!before(node, other)) break;
+            heap[position] = other;
+            heapIndex[other] = position;
+            position = above;
+        }
+        heap[position] = node;
+        heapIndex[node] = position;
+    }
+
+    private void siftDown(int position) {
+        int node = heap[position];
+        int half = queued >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < queued && before(heap[right], heap[child])) child = right;
+            int other = heap[child];
+            if (!before(other, node)) break;
+            heap[position] = other;
+            heapIndex[other] = position;
+            position = child;
+        }
+        heap[position] = node;
+        heapIndex[node] = position;
+    }
+
+    // cell map: open addressing over epoch-stamped slots
+
+    private void put(long cellKey, int index) {
+        int slot = slot(cellKey);
+        while (stamps[slot] == epoch) {
+            if (keys[slot] == cellKey) {
+                slots[slot] = index;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = cellKey;
+        slots[slot] = index;
+        stamps[slot] = epoch;
+    }
+
+    private int slot(long cellKey) {
+        long hash = cellKey * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        cell = new long[capacity];
+        lng = new double[capacity];
+        lat = new double[capacity];
+        g = new double[capacity];
+        h = new double[capacity];
+        f = new double[capacity];
+        parent = new int[capacity];
+        move = new byte[capacity];
+        closed = new boolean[capacity];
+        verified = new boolean[capacity];
+        heapIndex = new int[capacity];
+        order = new int[capacity];
+        heap = new int[capacity];
+        keys = new long[capacity * 2];
+        slots = new int[capacity * 2];
+        stamps = new int[capacity * 2];
+        mask = capacity * 2 - 1;
+        epoch = 1;
+        size = 0;
+        queued = 0;
+        insertions = 0;
+    }
+
+    /**
+     * Doubles the node arrays and rehashes the cell map, which holds one slot per node and so
+     * stays at most half full.
+     */
+    private void grow() {
+        int capacity = cell.length * 2;
+        cell = Arrays.copyOf(cell, capacity);
+        lng = Arrays.copyOf(lng, capacity);
+        lat = Arrays.copyOf(lat, capacity);
+        g = Arrays.copyOf(g, capacity);
+        h = Arrays.copyOf(h, capacity);
+        f = Arrays.copyOf(f, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        move = Arrays.copyOf(move, capacity);
+        closed = Arrays.copyOf(closed, capacity);
+        verified = Arrays.copyOf(verified, capacity);
+        heapIndex = Arrays.copyOf(heapIndex, capacity);
+        order = Arrays.copyOf(order, capacity);
+
+        keys = new long[capacity * 2];
+        slots = new int[capacity * 2];
+        stamps = new int[capacity * 2];
+        mask = capacity * 2 - 1;
+        epoch = 1;
+        for (int index = 0; index < size; index++) {
+            put(cell[index], index);
+        }
+    }
+}
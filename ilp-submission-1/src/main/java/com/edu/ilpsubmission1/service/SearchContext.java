@@ -0,0 +1,56 @@
+package com.edu.ilpsubmission1.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Per-thread scratch space for {@link AStarPathfinder}: one arena per search tree and the
+ * candidate buffers of lazy re-parenting, reset between searches instead of reallocated, so a
+ * search in the steady state allocates little beyond the path it returns.
+ */
+final class SearchContext {
+
+    /** every cell within reach of a re-parented node, times every direction */
+    private static final int MAX_CANDIDATES = 7 * 7 * Lattice.DIRECTION_COUNT;
+
+    private static final ThreadLocal<SearchContext> CURRENT = ThreadLocal.withInitial(() -> new SearchContext(false));
+    /** contexts lent to virtual threads, which live for one leg and would otherwise each allocate their own */
+    private static final ConcurrentLinkedQueue<SearchContext> LENT = new ConcurrentLinkedQueue<>();
+
+    final SearchArena forward = new SearchArena();
+    final SearchArena backward = new SearchArena();
+    final int[] candidateParents = new int[MAX_CANDIDATES];
+    final int[] candidateMoves = new int[MAX_CANDIDATES];
+
+    private final boolean lent;
+
+    private SearchContext(boolean lent) {
+        this.lent = lent;
+    }
+
+    /**
+     * The calling thread's context with both arenas emptied. Searches do not nest, so one
+     * context per thread is enough; a virtual thread borrows one until {@link #release()}.
+     */
+    static SearchContext acquire() {
+        SearchContext context;
+        if (Thread.currentThread().isVirtual()) {
+            context = LENT.poll();
+            if (context == null) context = new SearchContext(true);
+        } else {
+            context = CURRENT.get();
+        }
+        context.forward.reset();
+        context.backward.reset();
+        return context;
+    }
+
+    /**
+     * Drops the storage of any arena a search grew past {@link SearchArena#RETAINED_NODES}, so a
+     * rare huge search does not pin its arrays to the thread, and hands a borrowed context back.
+     */
+    void release() {
+        forward.trim();
+        backward.trim();
+        if (lent) LENT.offer(this);
+    }
+}
@@ -0,0 +1,17 @@
+package com.edu.ilpsubmission1.service;
+
+/**
+ * How the lattice stage of {@link AStarPathfinder} grows its search.
+ */
+public enum SearchMode {
+    /** one tree from start towards end */
+    UNIDIRECTIONAL,
+    /** one tree from each end, joined where they meet; pays off on long legs with wide frontiers */
+    BIDIRECTIONAL,
+    /** abstract route over the raster's cluster graph, refined by short one-sided legs; not always shortest */
+    HIERARCHICAL,
+    /** one tree spread over a pool of workers by cell hash, for long legs; short legs search one-sided */
+    PARALLEL,
+    /** route on a lattice of longer moves, then the one-sided search inside a corridor around it */
+    COARSE_TO_FINE
+}
@@ -0,0 +1,187 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.edu.ilpsubmission1.service.Lattice.CELL_SIZE;
+import static com.edu.ilpsubmission1.service.Lattice.DIRECTION_COUNT;
+import static com.edu.ilpsubmission1.service.Lattice.DX;
+import static com.edu.ilpsubmission1.service.Lattice.DY;
+
+/**
+ * Shortest-path tree over the free lattice from one service point, out to a radius in moves.
+ * <p>
+ * Built breadth first like the multi-target wavefront, so the first node reaching a cell does so
+ * in the fewest moves. Each cell of a square window around the root keeps one byte: the direction
+ * of the move into it, and which of the two cells a move in that direction can come from along
+ * each axis its parent lies in. That is enough to walk back to the root without storing a
+ * coordinate. A leg is the walk reversed and replayed from the exact service point, which lands
+ * on exactly the points the build placed, so every move of it was checked during the build.
+ */
+final class ServicePointTree {
+
+    private static final byte UNREACHED = 0;
+    private static final byte ROOT = (byte) 0x80;
+    private static final int REACHED = 0x40;
+    private static final int DIRECTION_MASK = 0x0F;
+    private static final int COLUMN_BIT = 4;
+    private static final int ROW_BIT = 5;
+    /** how far around a target, in cells, the walk looks for a reached cell to end in */
+    static final int LAST_MILE_CELLS = 2;
+
+    /** fewest columns / rows a move in each direction crosses; it crosses one more or exactly this */
+    private static final int[] COLUMN_SHIFT = new int[DIRECTION_COUNT];
+    private static final int[] ROW_SHIFT = new int[DIRECTION_COUNT];
+
+    static {
+        for (int d = 0; d < DIRECTION_COUNT; d++) {
+            COLUMN_SHIFT[d] = (int) Math.floor(DX[d] / CELL_SIZE);
+            ROW_SHIFT[d] = (int) Math.floor(DY[d] / CELL_SIZE);
+        }
+    }
+
+    private final Position origin;
+    private final ZoneIndex zones;
+    private final int radiusMoves;
+    private final int minColumn;
+    private final int minRow;
+    private final int side;
+    private final byte[] parents;
+    private final int reachedCells;
+
+    private ServicePointTree(Position origin, ZoneIndex zones, int radiusMoves, int minColumn, int minRow,
+                             int side, byte[] parents, int reachedCells) {
+        this.origin = origin;
+        this.zones = zones;
+        this.radiusMoves = radiusMoves;
+        this.minColumn = minColumn;
+        this.minRow = minRow;
+        this.side = side;
+        this.parents = parents;
+        this.reachedCells = reachedCells;
+    }
+
+    /**
+     * Grows the tree from origin level by level until radiusMoves moves. A move whose cells fall
+     * outside the two the encoding allows, which only floating-point rounding at a cell border
+     * produces, is left for another parent to reach.
+     */
+    static ServicePointTree build(Position origin, int radiusMoves, MoveChecker checker) {
+        // a move is two cells long, so this holds every cell within radiusMoves of the root
+        int half = 2 * radiusMoves + 1;
+        int side = 2 * half + 1;
+        int minColumn = Lattice.column(origin.getLng()) - half;
+        int minRow = Lattice.row(origin.getLat()) - half;
+        byte[] parents = new byte[side * side];
+        parents[half * side + half] = ROOT;
+        int reached = 1;
+
+        double[] frontier = {origin.getLng(), origin.getLat()};
+        int frontierSize = 1;
+        double[] next = new double[64];
+        for (int level = 0; level < radiusMoves && frontierSize > 0; level++) {
+            int nextSize = 0;
+            for (int i = 0; i < frontierSize; i++) {
+                double lng = frontier[i * 2];
+                double lat = frontier[i * 2 + 1];
+                int column = Lattice.column(lng);
+                int row = Lattice.row(lat);
+                for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+                    double nextLng = lng + DX[direction];
+                    double nextLat = lat + DY[direction];
+                    int nextColumn = Lattice.column(nextLng);
+                    int nextRow = Lattice.row(nextLat);
+                    int x = nextColumn - minColumn;
+                    int y = nextRow - minRow;
+                    if (x < 0 || y < 0 || x >= side || y >= side || parents[y * side + x] != UNREACHED) continue;
+
+                    int columnBit = nextColumn - column - COLUMN_SHIFT[direction];
+                    int rowBit = nextRow - row - ROW_SHIFT[direction];
+                    if ((columnBit | rowBit) >>> 1 != 0) continue;
+                    if (checker.isBlockedMove(lng, lat, direction, nextLng, nextLat)) continue;
+
+                    parents[y * side + x] = (byte) (REACHED | direction | columnBit << COLUMN_BIT | rowBit << ROW_BIT);
+                    reached++;
+                    if (nextSize * 2 + 2 > next.length) next = Arrays.copyOf(next, next.length * 2);
+                    next[nextSize * 2] = nextLng;
+                    next[nextSize * 2 + 1] = nextLat;
+                    nextSize++;
+                }
+            }
+            double[] swap = frontier;
+            frontier = next;
+            next = swap.length >= 64 ? swap : new double[64];
+            frontierSize = nextSize;
+        }
+        return new ServicePointTree(origin, checker.zoneIndex(), radiusMoves, minColumn, minRow, side, parents,
+                reached);
+    }
+
+    ZoneIndex zones() {
+        return zones;
+    }
+
+    /**
+     * The tree's leg from the service point to the reached cell nearest target, looking at most
+     * {@link #LAST_MILE_CELLS} cells around it; null when none of them was reached. The leg may
+     * end up to that many cells short of target.
+     */
+    List<Position> walkTo(double lng, double lat) {
+        int column = Lattice.column(lng);
+        int row = Lattice.row(lat);
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int dc = -LAST_MILE_CELLS; dc <= LAST_MILE_CELLS; dc++) {
+            for (int dr = -LAST_MILE_CELLS; dr <= LAST_MILE_CELLS; dr++) {
+                int index = index(column + dc, row + dr);
+                if (index < 0 || parents[index] == UNREACHED) continue;
+                double distance = GeometryService.distance(lng, lat,
+                        (column + dc + 0.5) * CELL_SIZE, (row + dr + 0.5) * CELL_SIZE);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = index;
+                }
+            }
+        }
+        if (best < 0) return null;
+
+        byte[] moves = new byte[radiusMoves];
+        int count = 0;
+        int x = best % side;
+        int y = best / side;
+        for (byte code = parents[best]; code != ROOT; code = parents[y * side + x]) {
+            int direction = code & DIRECTION_MASK;
+            moves[count++] = (byte) direction;
+            x -= COLUMN_SHIFT[direction] + (code >> COLUMN_BIT & 1);
+            y -= ROW_SHIFT[direction] + (code >> ROW_BIT & 1);
+        }
+
+        List<Position> path = new ArrayList<>(count + 1);
+        path.add(origin);
+        double pointLng = origin.getLng();
+        double pointLat = origin.getLat();
+        for (int i = count - 1; i >= 0; i--) {
+            pointLng += DX[moves[i]];
+            pointLat += DY[moves[i]];
+            path.add(new Position(pointLng, pointLat));
+        }
+        return path;
+    }
+
+    private int index(int column, int row) {
+        int x = column - minColumn;
+        int y = row - minRow;
+        return x < 0 || y < 0 || x >= side || y >= side ? -1 : y * side + x;
+    }
+
+    int reachedCells() {
+        return reachedCells;
+    }
+
+    long sizeInBytes() {
+        return parents.length;
+    }
+}
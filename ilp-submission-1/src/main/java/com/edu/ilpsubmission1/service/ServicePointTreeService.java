@@ -0,0 +1,151 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.Drone;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.ServicePoint;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Optional precompute of a {@link ServicePointTree} per service point, rebuilt in the background
+ * whenever the restricted areas are (re)loaded, out to the largest drone's move budget capped by
+ * pathfinding.trees.max-radius-moves. Outbound legs then come from a tree walk plus, when the walk
+ * ends short of the target, a short last-mile search. Footprint and build time are published as
+ * pathfinding.trees.* metrics.
+ */
+@Component
+@Slf4j
+public final class ServicePointTreeService {
+
+    /** budget of the last-mile search from the end of a tree walk to the target */
+    private static final int LAST_MILE_MOVES = 8;
+
+    private final IlpRestClient ilpRestClient;
+    private final AStarPathfinder pathfinder;
+    private final BlockedMoveRasterService rasterService;
+    private final GeometryService geometryService;
+    private final boolean enabled;
+    private final int maxRadiusMoves;
+    private final Timer buildTimer;
+
+    /** zones of the newest change, so a slow rebuild for older zones does not overwrite a newer one */
+    private final AtomicReference<ZoneIndex> latest = new AtomicReference<>();
+    private volatile Map<Coordinates, ServicePointTree> trees = Map.of();
+
+    public ServicePointTreeService(IlpRestClient ilpRestClient, AStarPathfinder pathfinder,
+                                   BlockedMoveRasterService rasterService, GeometryService geometryService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${pathfinding.trees.enabled:false}") boolean enabled,
+                                   @Value("${pathfinding.trees.max-radius-moves:400}") int maxRadiusMoves) {
+        this.ilpRestClient = ilpRestClient;
+        this.pathfinder = pathfinder;
+        this.rasterService = rasterService;
+        this.geometryService = geometryService;
+        this.enabled = enabled;
+        this.maxRadiusMoves = maxRadiusMoves;
+        this.buildTimer = Timer.builder("pathfinding.trees.build")
+                .description("Time taken to build the service point shortest-path trees")
+                .register(meterRegistry);
+        Gauge.builder("pathfinding.trees.bytes", this,
+                        s -> s.trees.values().stream().mapToLong(ServicePointTree::sizeInBytes).sum())
+                .description("Memory held by the service point shortest-path trees")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onZonesChanged(ZoneIndexChangedEvent event) {
+        if (!enabled) return;
+        ZoneIndex zones = event.current();
+        ZoneIndex newest = latest.updateAndGet(
+                seen -> seen == null || seen.version() <= zones.version() ? zones : seen);
+        if (newest != zones) return;
+        trees = Map.of();
+        CompletableFuture.runAsync(() -> rebuild(zones), ForkJoinPool.commonPool())
+                .exceptionally(e -> {
+                    log.warn("Failed to build service point trees for zone version {}", zones.version(), e);
+                    return null;
+                });
+    }
+
+    /**
+     * Builds one tree per distinct service point in parallel and publishes them, unless the zones
+     * changed again in the meantime.
+     */
+    void rebuild(ZoneIndex zones) {
+        int radius = radiusMoves();
+        MoveChecker checker = rasterService == null ? zones : rasterService.checkerFor(zones);
+        Timer.Sample sample = Timer.start();
+        Map<Coordinates, ServicePointTree> built = servicePointLocations().parallelStream()
+                .collect(Collectors.toUnmodifiableMap(Coordinates::of,
+                        origin -> ServicePointTree.build(origin, radius, checker)));
+        sample.stop(buildTimer);
+        ZoneIndex newest = latest.get();
+        if (newest != null && newest != zones) return;
+        trees = built;
+        log.info("Built {} service point trees of radius {} moves ({} reached cells) for zone version {}",
+                built.size(), radius, built.values().stream().mapToLong(ServicePointTree::reachedCells).sum(),
+                zones.version());
+    }
+
+    /**
+     * The leg from a service point to target taken from its tree, or null when there is no tree
+     * for these zones, the target lies beyond its radius, or the last mile cannot be flown.
+     */
+    public List<Position> legFrom(Position servicePoint, Position target, ZoneIndex zones) {
+        ServicePointTree tree = trees.get(Coordinates.of(servicePoint));
+        if (tree == null || tree.zones() != zones) return null;
+
+        List<Position> walk = tree.walkTo(target.getLng(), target.getLat());
+        if (walk == null) return null;
+        Position reached = walk.get(walk.size() - 1);
+        if (geometryService.checkPointsClose(reached, target)) return walk;
+
+        PathSearchResult lastMile = pathfinder.search(reached, target, zones, LAST_MILE_MOVES);
+        if (!lastMile.isFound()) return null;
+        List<Position> leg = new ArrayList<>(walk);
+        leg.addAll(lastMile.path().subList(1, lastMile.path().size()));
+        return leg;
+    }
+
+    private int radiusMoves() {
+        Drone[] drones = ilpRestClient.getDronesJson();
+        int largest = 0;
+        if (drones != null) {
+            for (Drone drone : drones) {
+                if (drone.capability() != null) largest = Math.max(largest, drone.capability().maxMoves());
+            }
+        }
+        return largest == 0 ? maxRadiusMoves : Math.min(largest, maxRadiusMoves);
+    }
+
+    private List<Position> servicePointLocations() {
+        Map<Coordinates, Position> locations = new LinkedHashMap<>();
+        ServicePoint[] servicePoints = ilpRestClient.getServicePointsJson();
+        if (servicePoints != null) {
+            for (ServicePoint servicePoint : servicePoints) {
+                Position location = servicePoint.location();
+                if (location != null) {
+                    Coordinates key = Coordinates.of(location);
+                    locations.putIfAbsent(key, key.toPosition());
+                }
+            }
+        }
+        return new ArrayList<>(locations.values());
+    }
+}
@@ -0,0 +1,96 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.MedDispatchRec;
+import com.edu.ilpsubmission1.dtos.Position;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Local search over the order a trip visits its deliveries, scored by the true leg costs of a
+ * {@link LegCostMatrix} so that detours around restricted zones count.
+ * <p>
+ * Applies 2-opt moves, which reverse a stretch of the tour, and Or-opt moves, which lift a run of
+ * up to {@link #OR_OPT_LENGTH} consecutive deliveries, either way round, and put it back elsewhere.
+ * Any move that saves moves is taken at once, until a full pass finds none or the deadline
+ * passes. Orders the matrix cannot fly are never taken, so the result is never worse than the input.
+ */
+final class TourImprover {
+
+    static final int OR_OPT_LENGTH = 3;
+
+    private final Position base;
+    private final LegCostMatrix costs;
+    private final Deadline deadline;
+
+    private TourImprover(Position base, LegCostMatrix costs, Deadline deadline) {
+        this.base = base;
+        this.costs = costs;
+        this.deadline = deadline;
+    }
+
+    /**
+     * The tour reordered to fly from base in fewer moves, or the tour itself when no move helps.
+     */
+    static List<MedDispatchRec> improve(Position base, List<MedDispatchRec> tour, LegCostMatrix costs,
+                                        Deadline deadline) {
+        if (tour.size() < 2) return tour;
+        return new TourImprover(base, costs, deadline).improve(tour);
+    }
+
+    private List<MedDispatchRec> improve(List<MedDispatchRec> tour) {
+        List<MedDispatchRec> best = tour;
+        int bestMoves = moves(best);
+        if (bestMoves == LegCostMatrix.NO_PATH) return tour;
+
+        while (!deadline.expired()) {
+            List<MedDispatchRec> better = firstImprovement(best, bestMoves);
+            if (better == null) break;
+            best = better;
+            bestMoves = moves(better);
+        }
+        return best;
+    }
+
+    /**
+     * The first 2-opt or Or-opt rearrangement of the tour that flies in fewer than bestMoves, or
+     * null when there is none.
+     */
+    private List<MedDispatchRec> firstImprovement(List<MedDispatchRec> tour, int bestMoves) {
+        int size = tour.size();
+        for (int from = 0; from < size - 1; from++) {
+            for (int to = from + 1; to < size; to++) {
+                List<MedDispatchRec> reversed = new ArrayList<>(tour);
+                Collections.reverse(reversed.subList(from, to + 1));
+                if (saves(reversed, bestMoves)) return reversed;
+            }
+        }
+        for (int length = 1; length <= Math.min(OR_OPT_LENGTH, size - 1); length++) {
+            for (int from = 0; from + length <= size; from++) {
+                List<MedDispatchRec> rest = new ArrayList<>(tour.subList(0, from));
+                rest.addAll(tour.subList(from + length, size));
+                for (int at = 0; at <= rest.size(); at++) {
+                    if (at == from) continue;
+                    for (int turn = 0; turn < (length == 1 ? 1 : 2); turn++) {
+                        List<MedDispatchRec> run = new ArrayList<>(tour.subList(from, from + length));
+                        if (turn == 1) Collections.reverse(run);
+                        List<MedDispatchRec> moved = new ArrayList<>(rest);
+                        moved.addAll(at, run);
+                        if (saves(moved, bestMoves)) return moved;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean saves(List<MedDispatchRec> tour, int bestMoves) {
+        int moves = moves(tour);
+        return moves != LegCostMatrix.NO_PATH && moves < bestMoves;
+    }
+
+    private int moves(List<MedDispatchRec> tour) {
+        return costs.tripMoves(base, tour.stream().map(MedDispatchRec::getDelivery).toList());
+    }
+}
@@ -0,0 +1,216 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.edu.ilpsubmission1.service.Lattice.STEP_SIZE;
+
+/**
+ * Visibility graph over the convex corners of the restricted zones, pushed outwards so that a
+ * drone flying between two linked corners keeps clear of every zone edge.
+ * <p>
+ * Shortest paths around polygons only bend at convex corners, so a Dijkstra run over this small
+ * graph gives a chain of waypoints to fly a leg the lattice search gave up on. Built once per
+ * {@link ZoneIndex}; planning only adds the two endpoints.
+ */
+final class VisibilityGraph {
+
+    /** how far a corner is pushed out of its zone, along the mitre of its two edges */
+    static final double INFLATION = 3 * STEP_SIZE;
+    /**
+     * clearance required around a corner-to-corner link; a lattice leg starts up to one move off
+     * its waypoint, so this leaves a full move of corridor for the straight-line fast path
+     */
+    static final double CLEARANCE = 2 * STEP_SIZE;
+    /** mitres of very sharp corners are capped at this many times the inflation */
+    private static final double MAX_MITRE = 4;
+
+    private final ZoneIndex zones;
+    private final double[] xs;
+    private final double[] ys;
+    private final int[][] links;
+
+    private VisibilityGraph(ZoneIndex zones, double[] xs, double[] ys, int[][] links) {
+        this.zones = zones;
+        this.xs = xs;
+        this.ys = ys;
+        this.links = links;
+    }
+
+    static VisibilityGraph build(ZoneIndex zones) {
+        int capacity = 0;
+        for (Region zone : zones.zones()) {
+            capacity += zone.getVertices().size();
+        }
+        double[] xs = new double[capacity];
+        double[] ys = new double[capacity];
+        int count = 0;
+
+        for (Region zone : zones.zones()) {
+            List<Position> vertices = zone.getVertices();
+            int n = vertices.size() - 1;
+            double orientation = Math.signum(signedArea(vertices));
+
+            for (int i = 0; i < n; i++) {
+                Position prev = vertices.get((i + n - 1) % n);
+                Position vertex = vertices.get(i);
+                Position next = vertices.get(i + 1);
+                double[] corner = inflate(prev, vertex, next, orientation);
+                if (corner == null || zones.isPointBlocked(corner[0], corner[1])) continue;
+                xs[count] = corner[0];
+                ys[count] = corner[1];
+                count++;
+            }
+        }
+
+        int[] sizes = new int[count];
+        int[][] partial = new int[count][];
+        for (int i = 0; i < count; i++) {
+            partial[i] = new int[4];
+        }
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                if (zones.corridorClear(xs[i], ys[i], xs[j], ys[j], CLEARANCE)) {
+                    partial[i] = append(partial[i], sizes[i]++, j);
+                    partial[j] = append(partial[j], sizes[j]++, i);
+                }
+            }
+        }
+        int[][] links = new int[count][];
+        for (int i = 0; i < count; i++) {
+            links[i] = Arrays.copyOf(partial[i], sizes[i]);
+        }
+
+        return new VisibilityGraph(zones, Arrays.copyOf(xs, count), Arrays.copyOf(ys, count), links);
+    }
+
+    ZoneIndex zones() {
+        return zones;
+    }
+
+    int cornerCount() {
+        return xs.length;
+    }
+
+    /**
+     * Interleaved lng/lat pairs of the corners to pass between start and end; empty when end is
+     * directly visible, null when the graph offers no route.
+     */
+    double[] plan(double startLng, double startLat, double endLng, double endLat) {
+        if (!zones.isBlockedMove(startLng, startLat, endLng, endLat)) {
+            return new double[0];
+        }
+
+        int n = xs.length;
+        int endNode = n;
+        double[] dist = new double[n + 1];
+        int[] previous = new int[n + 1];
+        boolean[] settled = new boolean[n + 1];
+        boolean[] seesEnd = new boolean[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(previous, -1);
+
+        for (int i = 0; i < n; i++) {
+            if (!zones.isBlockedMove(startLng, startLat, xs[i], ys[i])) {
+                dist[i] = GeometryService.distance(startLng, startLat, xs[i], ys[i]);
+            }
+            seesEnd[i] = !zones.isBlockedMove(xs[i], ys[i], endLng, endLat);
+        }
+
+        while (true) {
+            int current = -1;
+            for (int i = 0; i <= n; i++) {
+                if (!settled[i] && dist[i] < Double.POSITIVE_INFINITY
+                        && (current < 0 || dist[i] < dist[current])) {
+                    current = i;
+                }
+            }
+            if (current < 0) return null;
+            if (current == endNode) break;
+            settled[current] = true;
+
+            for (int next : links[current]) {
+                relax(dist, previous, current, next,
+                        GeometryService.distance(xs[current], ys[current], xs[next], ys[next]));
+            }
+            if (seesEnd[current]) {
+                relax(dist, previous, current, endNode,
+                        GeometryService.distance(xs[current], ys[current], endLng, endLat));
+            }
+        }
+
+        int hops = 0;
+        for (int node = previous[endNode]; node >= 0; node = previous[node]) {
+            hops++;
+        }
+        double[] waypoints = new double[hops * 2];
+        int slot = hops;
+        for (int node = previous[endNode]; node >= 0; node = previous[node]) {
+            slot--;
+            waypoints[slot * 2] = xs[node];
+            waypoints[slot * 2 + 1] = ys[node];
+        }
+        return waypoints;
+    }
+
+    private static void relax(double[] dist, int[] previous, int from, int to, double length) {
+        double candidate = dist[from] + length;
+        if (candidate < dist[to]) {
+            dist[to] = candidate;
+            previous[to] = from;
+        }
+    }
+
+    /**
+     * The corner pushed out along the outward mitre of its two edges, or null for reflex corners,
+     * which a shortest path never bends around.
+     */
+    private static double[] inflate(Position prev, Position vertex, Position next, double orientation) {
+        double ax = vertex.getLng() - prev.getLng();
+        double ay = vertex.getLat() - prev.getLat();
+        double bx = next.getLng() - vertex.getLng();
+        double by = next.getLat() - vertex.getLat();
+        double aLength = Math.hypot(ax, ay);
+        double bLength = Math.hypot(bx, by);
+        if (aLength == 0 || bLength == 0) return null;
+        ax /= aLength;
+        ay /= aLength;
+        bx /= bLength;
+        by /= bLength;
+
+        if ((ax * by - ay * bx) * orientation < 0) return null;
+
+        // outward normals are on the right of each edge for a counter-clockwise ring
+        double n1x = ay * orientation, n1y = -ax * orientation;
+        double n2x = by * orientation, n2y = -bx * orientation;
+        double mx = n1x + n2x;
+        double my = n1y + n2y;
+        double scale = 1 + n1x * n2x + n1y * n2y;
+        if (scale < 2 / (MAX_MITRE * MAX_MITRE)) {
+            double length = Math.hypot(mx, my);
+            if (length == 0) return null;
+            return new double[]{vertex.getLng() + mx / length * INFLATION * MAX_MITRE,
+                    vertex.getLat() + my / length * INFLATION * MAX_MITRE};
+        }
+        return new double[]{vertex.getLng() + mx / scale * INFLATION, vertex.getLat() + my / scale * INFLATION};
+    }
+
+    private static double signedArea(List<Position> ring) {
+        double area = 0;
+        for (int i = 0; i + 1 < ring.size(); i++) {
+            Position a = ring.get(i);
+            Position b = ring.get(i + 1);
+            area += a.getLng() * b.getLat() - b.getLng() * a.getLat();
+        }
+        return area / 2;
+    }
+
+    private static int[] append(int[] array, int size, int value) {
+        int[] target = size < array.length ? array : Arrays.copyOf(array, array.length * 2);
+        target[size] = value;
+        return target;
+    }
+}
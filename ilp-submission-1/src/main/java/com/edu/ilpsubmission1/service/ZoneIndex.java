@@ -0,0 +1,401 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, compiled form of the restricted zones used for collision checks.
+ * <p>
+ * Vertices are unboxed into primitive arrays once, every zone carries a bounding box and the
+ * zone edges are bucketed into a uniform grid, so a move is only tested against the few edges
+ * whose cells it overlaps. The checks themselves are the GeometryService predicates, with the
+ * same tolerances. Instances are built per zone version by {@link ZoneIndexRegistry}.
+ */
+public final class ZoneIndex implements MoveChecker {
+
+    /** slack around boxes, larger than the collinearity tolerance of the geometry predicates */
+    static final double MARGIN = 1e-5;
+
+    private static final double MIN_GRID_CELL = 0.0005;
+    private static final int MAX_GRID_CELLS = 1 << 20;
+
+    private final long version;
+    private final List<Region> zones;
+
+    private final double[][] zoneLng;
+    private final double[][] zoneLat;
+    private final double[] zoneBounds;
+
+    private final double[] edges;
+    private final int[] edgeZone;
+
+    private final double minLng;
+    private final double minLat;
+    private final double maxLng;
+    private final double maxLat;
+    private final double gridCell;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellEdges;
+
+    private ZoneIndex(long version, List<Region> zones) {
+        this.version = version;
+        this.zones = List.copyOf(zones);
+
+        int zoneCount = zones.size();
+        zoneLng = new double[zoneCount][];
+        zoneLat = new double[zoneCount][];
+        zoneBounds = new double[zoneCount * 4];
+
+        int edgeCount = 0;
+        double lo0 = Double.POSITIVE_INFINITY, lo1 = Double.POSITIVE_INFINITY;
+        double hi0 = Double.NEGATIVE_INFINITY, hi1 = Double.NEGATIVE_INFINITY;
+
+        for (int z = 0; z < zoneCount; z++) {
+            List<Position> vertices = zones.get(z).getVertices();
+            if (vertices.size() < 4 || !vertices.get(0).equals(vertices.get(vertices.size() - 1))) {
+                throw new IllegalArgumentException();
+            }
+            double[] xs = new double[vertices.size()];
+            double[] ys = new double[vertices.size()];
+            double zMinX = Double.POSITIVE_INFINITY, zMinY = Double.POSITIVE_INFINITY;
+            double zMaxX = Double.NEGATIVE_INFINITY, zMaxY = Double.NEGATIVE_INFINITY;
+            for (int v = 0; v < xs.length; v++) {
+                xs[v] = vertices.get(v).getLng();
+                ys[v] = vertices.get(v).getLat();
+                zMinX = Math.min(zMinX, xs[v]);
+                zMinY = Math.min(zMinY, ys[v]);
+                zMaxX = Math.max(zMaxX, xs[v]);
+                zMaxY = Math.max(zMaxY, ys[v]);
+            }
+            zoneLng[z] = xs;
+            zoneLat[z] = ys;
+            zoneBounds[z * 4] = zMinX;
+            zoneBounds[z * 4 + 1] = zMinY;
+            zoneBounds[z * 4 + 2] = zMaxX;
+            zoneBounds[z * 4 + 3] = zMaxY;
+            lo0 = Math.min(lo0, zMinX);
+            lo1 = Math.min(lo1, zMinY);
+            hi0 = Math.max(hi0, zMaxX);
+            hi1 = Math.max(hi1, zMaxY);
+            edgeCount += xs.length - 1;
+        }
+
+        edges = new double[edgeCount * 4];
+        edgeZone = new int[edgeCount];
+        int e = 0;
+        for (int z = 0; z < zoneCount; z++) {
+            double[] xs = zoneLng[z];
+            double[] ys = zoneLat[z];
+            for (int v = 0; v < xs.length - 1; v++, e++) {
+                edges[e * 4] = xs[v];
+                edges[e * 4 + 1] = ys[v];
+                edges[e * 4 + 2] = xs[v + 1];
+                edges[e * 4 + 3] = ys[v + 1];
+                edgeZone[e] = z;
+            }
+        }
+
+        if (zoneCount == 0) {
+            minLng = minLat = maxLng = maxLat = 0;
+            gridCell = MIN_GRID_CELL;
+            columns = rows = 0;
+            cellStart = new int[1];
+            cellEdges = new int[0];
+            return;
+        }
+
+        minLng = lo0 - MARGIN;
+        minLat = lo1 - MARGIN;
+        maxLng = hi0 + MARGIN;
+        maxLat = hi1 + MARGIN;
+
+        double cell = MIN_GRID_CELL;
+        while (cellsAlong(maxLng - minLng, cell) * (long) cellsAlong(maxLat - minLat, cell) > MAX_GRID_CELLS) {
+            cell *= 2;
+        }
+        gridCell = cell;
+        columns = cellsAlong(maxLng - minLng, cell);
+        rows = cellsAlong(maxLat - minLat, cell);
+
+        int[] counts = new int[columns * rows + 1];
+        forEachEdgeCell(edgeCount, (edge, index) -> counts[index + 1]++);
+        for (int i = 1; i < counts.length; i++) counts[i] += counts[i - 1];
+        cellStart = counts.clone();
+        cellEdges = new int[counts[counts.length - 1]];
+        int[] fill = Arrays.copyOf(counts, counts.length - 1);
+        forEachEdgeCell(edgeCount, (edge, index) -> cellEdges[fill[index]++] = edge);
+    }
+
+    /**
+     * Compiles zones that are not tracked by a registry, e.g. for a one-off search.
+     */
+    public static ZoneIndex compile(List<Region> zones) {
+        return new ZoneIndex(0, zones);
+    }
+
+    static ZoneIndex compile(List<Region> zones, long version) {
+        return new ZoneIndex(version, zones);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public List<Region> zones() {
+        return zones;
+    }
+
+    public boolean isEmpty() {
+        return zones.isEmpty();
+    }
+
+    /**
+     * Same answer as GeometryService.isPointInRegion over all zones.
+     */
+    public boolean isPointBlocked(double lng, double lat) {
+        for (int z = 0; z < zoneLng.length; z++) {
+            if (lng < zoneBounds[z * 4] - MARGIN || lng > zoneBounds[z * 4 + 2] + MARGIN
+                    || lat < zoneBounds[z * 4 + 1] - MARGIN || lat > zoneBounds[z * 4 + 3] + MARGIN) {
+                continue;
+            }
+            if (isPointInZone(z, lng, lat)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * True when the move ends inside a zone or its segment touches a zone edge.
+     */
+    public boolean isBlockedMove(double fromLng, double fromLat, double toLng, double toLat) {
+        if (isPointBlocked(toLng, toLat)) return true;
+        return segmentTouchesEdge(fromLng, fromLat, toLng, toLat);
+    }
+
+    @Override
+    public boolean isBlockedMove(double fromLng, double fromLat, int direction, double toLng, double toLat) {
+        return isBlockedMove(fromLng, fromLat, toLng, toLat);
+    }
+
+    @Override
+    public ZoneIndex zoneIndex() {
+        return this;
+    }
+
+    /**
+     * Conservative box query: false only when no move lying entirely inside the box can be blocked.
+     * Either an edge comes within MARGIN of the box, or the box is entirely inside or outside each
+     * zone, in which case testing its centre decides.
+     */
+    public boolean mayTouch(double loLng, double loLat, double hiLng, double hiLat) {
+        double loX = loLng - MARGIN;
+        double loY = loLat - MARGIN;
+        double hiX = hiLng + MARGIN;
+        double hiY = hiLat + MARGIN;
+        if (columns == 0 || hiX < minLng || loX > maxLng || hiY < minLat || loY > maxLat) {
+            return false;
+        }
+
+        int c0 = clampColumn(loX), c1 = clampColumn(hiX);
+        int r0 = clampRow(loY), r1 = clampRow(hiY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int index = r * columns + c;
+                for (int k = cellStart[index]; k < cellStart[index + 1]; k++) {
+                    int e = cellEdges[k] * 4;
+                    if (Math.max(edges[e], edges[e + 2]) >= loX && Math.min(edges[e], edges[e + 2]) <= hiX
+                            && Math.max(edges[e + 1], edges[e + 3]) >= loY
+                            && Math.min(edges[e + 1], edges[e + 3]) <= hiY) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return isPointBlocked((loLng + hiLng) / 2, (loLat + hiLat) / 2);
+    }
+
+    /**
+     * True when the whole box lies inside a single zone: its centre is inside and none of that
+     * zone's edges comes within MARGIN of the box. Edges of other, overlapping zones do not matter.
+     */
+    public boolean isBoxInsideZone(double loLng, double loLat, double hiLng, double hiLat) {
+        double centreLng = (loLng + hiLng) / 2;
+        double centreLat = (loLat + hiLat) / 2;
+        for (int z = 0; z < zoneLng.length; z++) {
+            if (loLng < zoneBounds[z * 4] || hiLng > zoneBounds[z * 4 + 2]
+                    || loLat < zoneBounds[z * 4 + 1] || hiLat > zoneBounds[z * 4 + 3]) {
+                continue;
+            }
+            if (isPointInZone(z, centreLng, centreLat) && !zoneEdgeNear(z, loLng, loLat, hiLng, hiLat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean zoneEdgeNear(int zone, double loLng, double loLat, double hiLng, double hiLat) {
+        double loX = loLng - MARGIN;
+        double loY = loLat - MARGIN;
+        double hiX = hiLng + MARGIN;
+        double hiY = hiLat + MARGIN;
+        int c0 = clampColumn(loX), c1 = clampColumn(hiX);
+        int r0 = clampRow(loY), r1 = clampRow(hiY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int index = r * columns + c;
+                for (int k = cellStart[index]; k < cellStart[index + 1]; k++) {
+                    int edge = cellEdges[k];
+                    int e = edge * 4;
+                    if (edgeZone[edge] == zone
+                            && Math.max(edges[e], edges[e + 2]) >= loX && Math.min(edges[e], edges[e + 2]) <= hiX
+                            && Math.max(edges[e + 1], edges[e + 3]) >= loY
+                            && Math.min(edges[e + 1], edges[e + 3]) <= hiY) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True when the segment touches any zone edge, ignoring zone interiors.
+     */
+    public boolean segmentTouchesEdge(double fromLng, double fromLat, double toLng, double toLat) {
+        double loX = Math.min(fromLng, toLng) - MARGIN;
+        double loY = Math.min(fromLat, toLat) - MARGIN;
+        double hiX = Math.max(fromLng, toLng) + MARGIN;
+        double hiY = Math.max(fromLat, toLat) + MARGIN;
+        if (columns == 0 || hiX < minLng || loX > maxLng || hiY < minLat || loY > maxLat) {
+            return false;
+        }
+
+        int c0 = clampColumn(loX), c1 = clampColumn(hiX);
+        int r0 = clampRow(loY), r1 = clampRow(hiY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int index = r * columns + c;
+                for (int k = cellStart[index]; k < cellStart[index + 1]; k++) {
+                    int e = cellEdges[k] * 4;
+                    if (GeometryService.segmentsIntersect(fromLng, fromLat, toLng, toLat,
+                            edges[e], edges[e + 1], edges[e + 2], edges[e + 3])) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True when no zone edge comes within halfWidth of the segment and neither end lies in a zone,
+     * i.e. a drone can fly the whole corridor around the segment.
+     */
+    public boolean corridorClear(double fromLng, double fromLat, double toLng, double toLat, double halfWidth) {
+        if (isPointBlocked(fromLng, fromLat) || isPointBlocked(toLng, toLat)) return false;
+
+        double reach = halfWidth + MARGIN;
+        double loX = Math.min(fromLng, toLng) - reach;
+        double loY = Math.min(fromLat, toLat) - reach;
+        double hiX = Math.max(fromLng, toLng) + reach;
+        double hiY = Math.max(fromLat, toLat) + reach;
+        if (columns == 0 || hiX < minLng || loX > maxLng || hiY < minLat || loY > maxLat) {
+            return true;
+        }
+
+        int c0 = clampColumn(loX), c1 = clampColumn(hiX);
+        int r0 = clampRow(loY), r1 = clampRow(hiY);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int index = r * columns + c;
+                for (int k = cellStart[index]; k < cellStart[index + 1]; k++) {
+                    int e = cellEdges[k] * 4;
+                    if (segmentDistance(fromLng, fromLat, toLng, toLat,
+                            edges[e], edges[e + 1], edges[e + 2], edges[e + 3]) < reach) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static double segmentDistance(double a1x, double a1y, double a2x, double a2y,
+                                          double b1x, double b1y, double b2x, double b2y) {
+        if (GeometryService.segmentsIntersect(a1x, a1y, a2x, a2y, b1x, b1y, b2x, b2y)) return 0;
+        return Math.min(
+                Math.min(pointSegmentDistance(a1x, a1y, b1x, b1y, b2x, b2y),
+                        pointSegmentDistance(a2x, a2y, b1x, b1y, b2x, b2y)),
+                Math.min(pointSegmentDistance(b1x, b1y, a1x, a1y, a2x, a2y),
+                        pointSegmentDistance(b2x, b2y, a1x, a1y, a2x, a2y)));
+    }
+
+    static double pointSegmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0
+                : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        return GeometryService.distance(px, py, ax + t * dx, ay + t * dy);
+    }
+
+    private boolean isPointInZone(int zone, double lng, double lat) {
+        double[] xs = zoneLng[zone];
+        double[] ys = zoneLat[zone];
+
+        for (int i = 0; i < xs.length - 1; i++) {
+            if (GeometryService.isOnSegment(lng, lat, xs[i], ys[i], xs[i + 1], ys[i + 1])) {
+                return true;
+            }
+        }
+
+        boolean inside = false;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            boolean intersect = ((ys[i] > lat) != (ys[j] > lat))
+                    && (lng < (xs[j] - xs[i]) * (lat - ys[i]) / (ys[j] - ys[i]) + xs[i]);
+            if (intersect) inside = !inside;
+        }
+        return inside;
+    }
+
+    private interface EdgeCellVisitor {
+        void visit(int edge, int cellIndex);
+    }
+
+    private void forEachEdgeCell(int edgeCount, EdgeCellVisitor visitor) {
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int e = edge * 4;
+            int c0 = clampColumn(Math.min(edges[e], edges[e + 2]) - MARGIN);
+            int c1 = clampColumn(Math.max(edges[e], edges[e + 2]) + MARGIN);
+            int r0 = clampRow(Math.min(edges[e + 1], edges[e + 3]) - MARGIN);
+            int r1 = clampRow(Math.max(edges[e + 1], edges[e + 3]) + MARGIN);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    visitor.visit(edge, r * columns + c);
+                }
+            }
+        }
+    }
+
+    private int clampColumn(double lng) {
+        return Math.max(0, Math.min(columns - 1, (int) ((lng - minLng) / gridCell)));
+    }
+
+    private int clampRow(double lat) {
+        return Math.max(0, Math.min(rows - 1, (int) ((lat - minLat) / gridCell)));
+    }
+
+    private static int cellsAlong(double extent, double cell) {
+        return Math.max(1, (int) Math.ceil(extent / cell));
+    }
+
+    @Override
+    public String toString() {
+        return "ZoneIndex[version=" + version + ", zones=" + zones.size()
+                + ", edges=" + edgeZone.length + ", grid=" + columns + "x" + rows + "]";
+    }
+}
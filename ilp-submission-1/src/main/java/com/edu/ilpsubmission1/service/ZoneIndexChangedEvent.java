@@ -0,0 +1,6 @@
+package com.edu.ilpsubmission1.service;
+
+/**
+ * Published when the restricted zones change. previous is null on the first load.
+ */
+public record ZoneIndexChangedEvent(ZoneIndex previous, ZoneIndex current) {}
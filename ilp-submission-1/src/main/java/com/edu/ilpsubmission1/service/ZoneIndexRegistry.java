@@ -0,0 +1,57 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Region;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands out the compiled {@link ZoneIndex} for the restricted areas currently served by ILP.
+ * Zones are only recompiled when their content changes; every change gets a new version
+ * and is announced with a {@link ZoneIndexChangedEvent}. Announcements are made after the new
+ * index is published, so two quick changes may be announced out of order; listeners compare
+ * versions rather than rely on order.
+ */
+@Component
+@Slf4j
+public class ZoneIndexRegistry {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private volatile ZoneIndex current;
+    private long lastVersion;
+
+    public ZoneIndexRegistry(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    public ZoneIndex indexFor(List<Region> zones) {
+        ZoneIndex snapshot = current;
+        if (snapshot != null && snapshot.zones().equals(zones)) {
+            return snapshot;
+        }
+
+        ZoneIndex previous;
+        ZoneIndex compiled;
+        synchronized (this) {
+            previous = current;
+            if (previous != null && previous.zones().equals(zones)) {
+                return previous;
+            }
+            compiled = ZoneIndex.compile(zones, ++lastVersion);
+            current = compiled;
+        }
+        // listeners run outside the lock, so a slow one never holds up requests fetching the index
+        log.info("Compiled restricted zones: {}", compiled);
+        eventPublisher.publishEvent(new ZoneIndexChangedEvent(previous, compiled));
+        return compiled;
+    }
+
+    /**
+     * The most recently compiled index, or null before zones were first loaded.
+     */
+    public ZoneIndex current() {
+        return current;
+    }
+}
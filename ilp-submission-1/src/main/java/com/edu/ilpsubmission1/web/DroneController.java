@@ -9,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +19,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class DroneController {
 
+    private static final String PLANNING_BUDGET_HEADER = "X-Planning-Budget-Ms";
+
     private final DroneService droneService;
     private final DroneCatalogService catalogService;
     private final AvailabilityService availabilityService;
@@ -82,14 +85,31 @@ public class DroneController {
     }
 
     @PostMapping("/calcDeliveryPath")
-    public ResponseEntity<DeliveryPathResponse> calcDeliveryPath(@RequestBody List<MedDispatchRec> dispatches) {
-        return ResponseEntity.ok(pathService.calculateDeliveryPath(dispatches));
+    public ResponseEntity<DeliveryPathResponse> calcDeliveryPath(
+            @RequestBody List<MedDispatchRec> dispatches,
+            @RequestHeader(name = PLANNING_BUDGET_HEADER, required = false) Long budgetHeader,
+            @RequestParam(name = "planningBudgetMs", required = false) Long budgetParam) {
+        return ResponseEntity.ok(pathService.calculateDeliveryPath(dispatches,
+                planningBudget(budgetHeader, budgetParam)));
     }
 
     @PostMapping("/calcDeliveryPathAsGeoJson")
-    public ResponseEntity<GeoJsonResponse> calcDeliveryPathAsGeoJson(@RequestBody List<MedDispatchRec> dispatches) {
-        return ResponseEntity.ok(pathService.calculateDeliveryPathAsGeoJson(dispatches));
+    public ResponseEntity<GeoJsonResponse> calcDeliveryPathAsGeoJson(
+            @RequestBody List<MedDispatchRec> dispatches,
+            @RequestHeader(name = PLANNING_BUDGET_HEADER, required = false) Long budgetHeader,
+            @RequestParam(name = "planningBudgetMs", required = false) Long budgetParam) {
+        return ResponseEntity.ok(pathService.calculateDeliveryPathAsGeoJson(dispatches,
+                planningBudget(budgetHeader, budgetParam)));
+    }
+
+    /**
+     * The header wins over the query parameter; without either, legs are searched to completion.
+     */
+    private static Duration planningBudget(Long budgetHeader, Long budgetParam) {
+        Long millis = budgetHeader != null ? budgetHeader : budgetParam;
+        return millis == null || millis < 0 ? null : Duration.ofMillis(millis);
     }
+
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getDroneStats() {
 
@@ -0,0 +1,107 @@
+package com.edu.ilpsubmission1.integration;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.DeliveryPathResponse;
+import com.edu.ilpsubmission1.dtos.MedDispatchRec;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.service.PathService;
+import com.edu.ilpsubmission1.testutil.TestFixtures;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.when;
+
+@Tag("integration")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class PathServiceMultiDateIT {
+
+    @MockitoBean
+    IlpRestClient ilpRestClient;
+
+    @Autowired
+    PathService pathService;
+
+    @Test
+    void multiDateBatchPlansEachDateAsItWouldAlone() {
+
+        // Arrange
+        when(ilpRestClient.getRestrictedAreas())
+                .thenReturn(TestFixtures.noFlyZone());
+
+        TestFixtures.stubSingleDrone(ilpRestClient);
+        TestFixtures.stubSingleServicePoint(ilpRestClient);
+        TestFixtures.stubDroneAvailability(ilpRestClient);
+
+        // three Mondays, each with its own deliveries on both sides of the zone
+        List<LocalDate> dates = List.of(LocalDate.of(2025, 11, 10), LocalDate.of(2025, 11, 17),
+                LocalDate.of(2025, 11, 24));
+        List<List<MedDispatchRec>> byDate = new ArrayList<>();
+        List<MedDispatchRec> batch = new ArrayList<>();
+        long id = 2001L;
+        for (int d = 0; d < dates.size(); d++) {
+            double shift = d * 0.0002;
+            List<MedDispatchRec> day = List.of(
+                    dispatch(id++, dates.get(d), new Position(-3.184, 55.945 + shift)),
+                    dispatch(id++, dates.get(d), new Position(-3.1915, 55.9425 + shift)),
+                    dispatch(id++, dates.get(d), new Position(-3.1880, 55.9470 + shift)));
+            byDate.add(day);
+            batch.addAll(day);
+        }
+
+        // Act: each date alone first, so the baselines are planned before the batch touches the cache
+        List<DeliveryPathResponse> separate = new ArrayList<>();
+        for (List<MedDispatchRec> day : byDate) {
+            separate.add(pathService.calculateDeliveryPath(day));
+        }
+        DeliveryPathResponse together = pathService.calculateDeliveryPath(batch);
+
+        // Assert
+        assertFalse(together.getDronePaths().isEmpty(), "Expected delivery paths");
+        double separateCost = 0;
+        int separateMoves = 0;
+        for (int d = 0; d < dates.size(); d++) {
+            DeliveryPathResponse alone = separate.get(d);
+            assertFalse(alone.getDronePaths().isEmpty(), "Expected delivery paths on " + dates.get(d));
+            assertEquals(alone.getDronePaths(), tripsFor(together, byDate.get(d)),
+                    "Trips on " + dates.get(d) + " differ from planning the date alone");
+            separateCost += alone.getTotalCost();
+            separateMoves += alone.getTotalMoves();
+        }
+        assertEquals(separateCost, together.getTotalCost(), 1e-9);
+        assertEquals(separateMoves, together.getTotalMoves());
+    }
+
+    /**
+     * The trips of the response that deliver the given day's dispatches, in response order.
+     */
+    private static List<DeliveryPathResponse.DronePath> tripsFor(DeliveryPathResponse response,
+                                                                 List<MedDispatchRec> day) {
+        Set<Long> ids = day.stream().map(MedDispatchRec::getId).collect(Collectors.toSet());
+        return response.getDronePaths().stream()
+                .filter(path -> path.getDeliveries().stream().anyMatch(d -> ids.contains(d.getDeliveryId())))
+                .toList();
+    }
+
+    private static MedDispatchRec dispatch(long id, LocalDate date, Position delivery) {
+        MedDispatchRec rec = TestFixtures.singleDispatch();
+        rec.setId(id);
+        rec.setDate(date);
+        rec.setTime(LocalTime.NOON);
+        rec.getRequirements().setCapacity(1.0);
+        rec.getRequirements().setMaxCost(null);
+        rec.setDelivery(delivery);
+        return rec;
+    }
+}
@@ -6,9 +6,11 @@ import com.edu.ilpsubmission1.dtos.MedDispatchRec;
 import com.edu.ilpsubmission1.dtos.Position;
 import com.edu.ilpsubmission1.dtos.Region;
 import com.edu.ilpsubmission1.service.GeometryService;
+import com.edu.ilpsubmission1.service.PathCache;
 import com.edu.ilpsubmission1.service.PathService;
 import com.edu.ilpsubmission1.testutil.GeometryTestUtils;
 import com.edu.ilpsubmission1.testutil.TestFixtures;
+import com.google.common.cache.CacheStats;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,7 +20,9 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 @Tag("integration")
@@ -34,6 +38,9 @@ class PathServiceRestrictedZoneIT {
     @Autowired
     GeometryService geometryService;
 
+    @Autowired
+    PathCache pathCache;
+
     @Test
     void deliveryPathNeverEntersOrCrossesRestrictedZone() {
 
@@ -96,5 +103,31 @@ class PathServiceRestrictedZoneIT {
                 })
         );
     }
-}
 
+    @Test
+    void primedLegsServeBothTheOutboundAndReturnLookups() {
+
+        // Arrange
+        when(ilpRestClient.getRestrictedAreas())
+                .thenReturn(TestFixtures.noFlyZone());
+
+        TestFixtures.stubSingleDrone(ilpRestClient);
+        TestFixtures.stubSingleServicePoint(ilpRestClient);
+        TestFixtures.stubDroneAvailability(ilpRestClient);
+
+        // a delivery point no other test plans, so neither leg is cached yet
+        MedDispatchRec dispatch = TestFixtures.singleDispatch();
+        dispatch.setDelivery(new Position(-3.1832, 55.9458));
+        CacheStats before = pathCache.stats();
+
+        // Act
+        DeliveryPathResponse response =
+                pathService.calculateDeliveryPath(List.of(dispatch));
+
+        // Assert
+        CacheStats during = pathCache.stats().minus(before);
+        assertFalse(response.getDronePaths().isEmpty(), "Expected a delivery path");
+        assertTrue(during.hitCount() >= 2, "Expected the outbound and return legs from the cache");
+        assertEquals(0, during.missCount(), "Expected no leg searched again after priming");
+    }
+}
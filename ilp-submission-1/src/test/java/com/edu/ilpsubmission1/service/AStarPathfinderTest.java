@@ -0,0 +1,395 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class AStarPathfinderTest {
+
+    private GeometryService geometryService;
+    private AStarPathfinder pathfinder;
+
+    @BeforeEach
+    void setUp() {
+        geometryService = new GeometryService();
+        pathfinder = new AStarPathfinder(geometryService);
+    }
+
+    // ---------- lattice ----------
+
+    @Test
+    void givenNegativeCoordinates_whenPackingCell_thenColumnAndRowRoundTrip() {
+        long cell = Lattice.cellOf(-3.1863580788986368, 55.94468066708487);
+
+        assertEquals(Lattice.column(-3.1863580788986368), Lattice.columnOf(cell));
+        assertEquals(Lattice.row(55.94468066708487), Lattice.rowOf(cell));
+        assertTrue(Lattice.columnOf(cell) < 0);
+    }
+
+    @Test
+    void givenAnyCompassMove_whenLeavingCell_thenLandsInDifferentCell() {
+        double lng = -3.18635;
+        double lat = 55.94468;
+        for (int d = 0; d < Lattice.DIRECTION_COUNT; d++) {
+            assertNotEquals(Lattice.cellOf(lng, lat),
+                    Lattice.cellOf(lng + Lattice.DX[d], lat + Lattice.DY[d]));
+        }
+    }
+
+    // ---------- findPath ----------
+
+    @Test
+    void givenOpenSpace_whenFindPath_thenStartsExactlyAtStartAndUsesCompassMoves() {
+        Position start = new Position(-3.1863580788986368, 55.94468066708487);
+        Position end = new Position(-3.184, 55.945);
+
+        List<Position> path = pathfinder.findPath(start, end, List.of());
+
+        assertFalse(path.isEmpty());
+        assertEquals(start, path.get(0));
+        assertTrue(geometryService.checkPointsClose(path.get(path.size() - 1), end));
+        assertAllCompassMoves(path);
+    }
+
+    @Test
+    void givenZoneAcrossDirectLine_whenFindPath_thenDetoursWithCompassMoves() {
+        Position start = new Position(0.0, 0.0);
+        Position end = new Position(0.002, 0.0);
+        Region wall = new Region("wall", List.of(
+                new Position(0.001, -0.001),
+                new Position(0.0011, -0.001),
+                new Position(0.0011, 0.001),
+                new Position(0.001, 0.001),
+                new Position(0.001, -0.001)
+        ));
+
+        List<Position> path = pathfinder.findPath(start, end, List.of(wall));
+
+        assertFalse(path.isEmpty());
+        assertAllCompassMoves(path);
+        for (int i = 1; i < path.size(); i++) {
+            assertFalse(geometryService.isPointInRegion(path.get(i), wall));
+            assertFalse(geometryService.checkLineIntersectsRegion(path.get(i - 1), path.get(i), wall));
+        }
+    }
+
+    @Test
+    void givenMoveBudget_whenDetourDoesNotFit_thenOverBudgetRatherThanNoPath() {
+        Position start = new Position(0.0, 0.0);
+        Position end = new Position(0.002, 0.0);
+        List<Region> zones = List.of(BenchmarkZones.rectangle("wall", 0.001, -0.001, 0.0011, 0.001));
+
+        PathSearchResult belowMinimum = pathfinder.findPath(start, end, zones, 10);
+        PathSearchResult tooShort = pathfinder.findPath(start, end, zones, 15);
+        PathSearchResult enough = pathfinder.findPath(start, end, zones, 100);
+
+        assertEquals(13, AStarPathfinder.minimumMoves(start, end));
+        assertEquals(PathSearchResult.Outcome.OVER_BUDGET, belowMinimum.outcome());
+        assertEquals(PathSearchResult.Outcome.OVER_BUDGET, tooShort.outcome());
+        assertTrue(tooShort.path().isEmpty());
+        assertEquals(PathSearchResult.Outcome.FOUND, enough.outcome());
+        assertTrue(enough.moves() > 15 && enough.moves() <= 100);
+        assertAllCompassMoves(enough.path());
+    }
+
+    @Test
+    void givenGoalWalledInWithOpenSpaceAround_whenUnboundedSearch_thenIterationLimitNotNoPath() {
+        Position start = new Position(0.0, 0.0);
+        Position end = new Position(0.003, 0.0);
+        List<Region> zones = List.of(
+                BenchmarkZones.rectangle("south", 0.0025, -0.0005, 0.0035, -0.0004),
+                BenchmarkZones.rectangle("north", 0.0025, 0.0004, 0.0035, 0.0005),
+                BenchmarkZones.rectangle("west", 0.0025, -0.0005, 0.0026, 0.0005),
+                BenchmarkZones.rectangle("east", 0.0034, -0.0005, 0.0035, 0.0005));
+
+        PathSearchResult result = pathfinder.findPath(start, end, zones, AStarPathfinder.UNBOUNDED);
+
+        assertEquals(PathSearchResult.Outcome.ITERATION_LIMIT, result.outcome());
+        assertTrue(result.path().isEmpty());
+    }
+
+    @Test
+    void givenGoalInsideZone_whenUnboundedSearch_thenNoPath() {
+        Position start = new Position(0.0, 0.0);
+        Position end = new Position(0.0015, 0.0);
+        List<Region> zones = List.of(BenchmarkZones.rectangle("box", 0.001, -0.0005, 0.002, 0.0005));
+
+        PathSearchResult result = pathfinder.findPath(start, end, zones, AStarPathfinder.UNBOUNDED);
+
+        assertEquals(PathSearchResult.Outcome.NO_PATH, result.outcome());
+    }
+
+    @Test
+    void givenCentralAreaZones_whenBidirectionalLatticeSearch_thenJoinedPathIsValid() {
+        ZoneIndex zones = ZoneIndex.compile(BenchmarkZones.centralArea());
+        Position start = new Position(-3.1925, 55.9455);
+        Position end = new Position(-3.1850, 55.9440);
+
+        PathSearchResult oneSided = pathfinder.latticeSearch(start, end, zones,
+                AStarPathfinder.UNBOUNDED, SearchMode.UNIDIRECTIONAL);
+        PathSearchResult bidirectional = pathfinder.latticeSearch(start, end, zones,
+                AStarPathfinder.UNBOUNDED, SearchMode.BIDIRECTIONAL);
+
+        assertTrue(oneSided.isFound());
+        assertTrue(bidirectional.isFound());
+        List<Position> path = bidirectional.path();
+        assertEquals(start, path.get(0));
+        assertTrue(geometryService.checkPointsClose(path.get(path.size() - 1), end));
+        assertAllCompassMoves(path);
+        for (int i = 1; i < path.size(); i++) {
+            assertFalse(zones.isBlockedMove(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat()));
+        }
+        assertTrue(bidirectional.moves() <= oneSided.moves() * 1.2);
+    }
+
+    @Test
+    void givenMoveBudget_whenBidirectionalDetourDoesNotFit_thenOverBudget() {
+        ZoneIndex zones = ZoneIndex.compile(List.of(BenchmarkZones.rectangle("wall", 0.001, -0.001, 0.0011, 0.001)));
+        Position start = new Position(0.0, 0.0);
+        Position end = new Position(0.002, 0.0);
+
+        PathSearchResult result = pathfinder.search(start, end, zones, 15, SearchMode.BIDIRECTIONAL);
+        PathSearchResult enough = pathfinder.latticeSearch(start, end, zones, 100, SearchMode.BIDIRECTIONAL);
+
+        assertEquals(PathSearchResult.Outcome.OVER_BUDGET, result.outcome());
+        assertTrue(enough.isFound());
+        assertTrue(enough.moves() <= 100);
+    }
+
+    @Test
+    void givenSerpentine_whenCoarseToFineSearch_thenPathIsValidAndCloseToOneSided() {
+        ZoneIndex zones = ZoneIndex.compile(BenchmarkZones.serpentine(-3.2000, 55.9300, 3, 0.004, 0.008));
+        Position start = new Position(-3.1995, 55.9340);
+        Position end = new Position(-3.1835, 55.9340);
+
+        PathSearchResult oneSided = pathfinder.latticeSearch(start, end, zones,
+                AStarPathfinder.UNBOUNDED, SearchMode.UNIDIRECTIONAL);
+        PathSearchResult coarseToFine = pathfinder.latticeSearch(start, end, zones,
+                AStarPathfinder.UNBOUNDED, SearchMode.COARSE_TO_FINE);
+
+        assertTrue(coarseToFine.isFound());
+        List<Position> path = coarseToFine.path();
+        assertEquals(start, path.get(0));
+        assertTrue(geometryService.checkPointsClose(path.get(path.size() - 1), end));
+        assertAllCompassMoves(path);
+        for (int i = 1; i < path.size(); i++) {
+            assertFalse(zones.isBlockedMove(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat()));
+        }
+        assertTrue(coarseToFine.moves() <= oneSided.moves() * 1.1);
+    }
+
+    @Test
+    void givenSlotTooNarrowForCoarseLattice_whenCoarseToFineSearch_thenFallsBackToFullLattice() {
+        double half = 0.003, wall = 0.0003, slot = 0.000125;
+        Position start = new Position(0.0, 0.0);
+        Position end = new Position(0.016, 0.0);
+        ZoneIndex zones = ZoneIndex.compile(List.of(
+                BenchmarkZones.rectangle("south", 0.016 - half, -half, 0.016 + half, -half + wall),
+                BenchmarkZones.rectangle("north", 0.016 - half, half - wall, 0.016 + half, half),
+                BenchmarkZones.rectangle("east", 0.016 + half - wall, -half, 0.016 + half, half),
+                BenchmarkZones.rectangle("west-low", 0.016 - half, -half, 0.016 - half + wall, -slot),
+                BenchmarkZones.rectangle("west-high", 0.016 - half, slot, 0.016 - half + wall, half)));
+
+        PathSearchResult oneSided = pathfinder.latticeSearch(start, end, zones,
+                AStarPathfinder.UNBOUNDED, SearchMode.UNIDIRECTIONAL);
+        PathSearchResult coarseToFine = pathfinder.latticeSearch(start, end, zones,
+                AStarPathfinder.UNBOUNDED, SearchMode.COARSE_TO_FINE);
+
+        assertTrue(oneSided.isFound());
+        assertEquals(oneSided.path(), coarseToFine.path());
+    }
+
+    @Test
+    void givenNoDeadline_whenAnytimeSearch_thenPathIsValidAndNoLongerThanWeightedSearch() {
+        ZoneIndex zones = ZoneIndex.compile(BenchmarkZones.centralArea());
+        Position start = new Position(-3.1925, 55.9455);
+        Position end = new Position(-3.1850, 55.9440);
+
+        PathSearchResult weighted = pathfinder.search(start, end, zones, AStarPathfinder.UNBOUNDED);
+        PathSearchResult anytime = pathfinder.searchAnytime(start, end, zones, AStarPathfinder.UNBOUNDED,
+                Deadline.NONE);
+
+        assertTrue(anytime.isFound());
+        assertTrue(anytime.moves() <= weighted.moves());
+        assertTrue(anytime.moves() >= AStarPathfinder.minimumMoves(start, end));
+        List<Position> path = anytime.path();
+        assertEquals(start, path.get(0));
+        assertTrue(geometryService.checkPointsClose(path.get(path.size() - 1), end));
+        assertAllCompassMoves(path);
+        for (int i = 1; i < path.size(); i++) {
+            assertFalse(zones.isBlockedMove(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat()));
+        }
+    }
+
+    @Test
+    void givenExpiredDeadline_whenAnytimeSearch_thenFirstPathIsStillReturned() {
+        ZoneIndex zones = ZoneIndex.compile(List.of(BenchmarkZones.rectangle("wall", 0.001, -0.001, 0.0011, 0.001)));
+        Position start = new Position(0.0, 0.0);
+        Position end = new Position(0.002, 0.0);
+        Deadline expired = Deadline.after(Duration.ZERO);
+
+        PathSearchResult result = pathfinder.searchAnytime(start, end, zones, 100, expired);
+        PathSearchResult overBudget = pathfinder.searchAnytime(start, end, zones, 15, expired);
+
+        assertTrue(expired.expired());
+        assertFalse(Deadline.NONE.expired());
+        assertTrue(result.isFound());
+        assertTrue(result.moves() <= 100);
+        assertAllCompassMoves(result.path());
+        assertEquals(PathSearchResult.Outcome.OVER_BUDGET, overBudget.outcome());
+    }
+
+    @Test
+    void givenCentralAreaZones_whenLazyChecking_thenPathIsValidWithFewerChecks() {
+        ZoneIndex zones = ZoneIndex.compile(BenchmarkZones.centralArea());
+        Position start = new Position(-3.1925, 55.9455);
+        Position end = new Position(-3.1850, 55.9440);
+        SimpleMeterRegistry eagerRegistry = new SimpleMeterRegistry();
+        SimpleMeterRegistry lazyRegistry = new SimpleMeterRegistry();
+        AStarPathfinder eager = new AStarPathfinder(geometryService, null, CollisionChecking.EAGER, eagerRegistry);
+        AStarPathfinder lazy = new AStarPathfinder(geometryService, null, CollisionChecking.LAZY, lazyRegistry);
+
+        PathSearchResult eagerResult = eager.search(start, end, zones, AStarPathfinder.UNBOUNDED,
+                SearchMode.UNIDIRECTIONAL);
+        PathSearchResult lazyResult = lazy.search(start, end, zones, AStarPathfinder.UNBOUNDED,
+                SearchMode.UNIDIRECTIONAL);
+
+        DistributionSummary eagerChecks = eagerRegistry.get("pathfinding.leg.collision.checks")
+                .tag("checking", "eager").summary();
+        DistributionSummary lazyChecks = lazyRegistry.get("pathfinding.leg.collision.checks")
+                .tag("checking", "lazy").summary();
+        assertEquals(1, lazyChecks.count());
+        assertEquals(1, lazyRegistry.get("pathfinding.leg.time").timer().count());
+        assertTrue(lazyChecks.totalAmount() < eagerChecks.totalAmount(),
+                "lazy " + lazyChecks.totalAmount() + ", eager " + eagerChecks.totalAmount());
+        assertTrue(eagerResult.isFound());
+        assertTrue(lazyResult.isFound());
+        List<Position> path = lazyResult.path();
+        assertEquals(start, path.get(0));
+        assertTrue(geometryService.checkPointsClose(path.get(path.size() - 1), end));
+        assertAllCompassMoves(path);
+        for (int i = 1; i < path.size(); i++) {
+            assertFalse(zones.isBlockedMove(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat()));
+        }
+    }
+
+    @Test
+    void givenWallAcrossLine_whenLazyChecking_thenDetoursAndRespectsBudget() {
+        ZoneIndex zones = ZoneIndex.compile(List.of(BenchmarkZones.rectangle("wall", 0.001, -0.001, 0.0011, 0.001)));
+        Position start = new Position(0.0, 0.0);
+        Position end = new Position(0.002, 0.0);
+        AStarPathfinder lazy = new AStarPathfinder(geometryService, null, CollisionChecking.LAZY,
+                new SimpleMeterRegistry());
+
+        PathSearchResult result = lazy.latticeSearch(start, end, zones, 100, SearchMode.UNIDIRECTIONAL);
+        PathSearchResult overBudget = lazy.latticeSearch(start, end, zones, 15, SearchMode.UNIDIRECTIONAL);
+
+        assertTrue(result.isFound());
+        assertTrue(result.moves() <= 100);
+        assertAllCompassMoves(result.path());
+        List<Position> path = result.path();
+        for (int i = 1; i < path.size(); i++) {
+            assertFalse(zones.isBlockedMove(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat()));
+        }
+        assertEquals(PathSearchResult.Outcome.OVER_BUDGET, overBudget.outcome());
+    }
+
+    @Test
+    void givenClearCorridor_whenFindPath_thenFliesNearlyStraight() {
+        Position start = new Position(-3.1863580788986368, 55.94468066708487);
+        Position end = new Position(-3.1700, 55.9300);
+        Region aside = BenchmarkZones.rectangle("aside", -3.1800, 55.9450, -3.1790, 55.9460);
+
+        List<Position> path = pathfinder.findPath(start, end, List.of(aside));
+
+        int lowerBound = (int) Math.ceil(
+                (geometryService.calculateDistance(start, end) - Lattice.STEP_SIZE) / Lattice.STEP_SIZE);
+        assertTrue(path.size() - 1 <= lowerBound * 1.03 + 2, "moves: " + (path.size() - 1));
+        assertTrue(geometryService.checkPointsClose(path.get(path.size() - 1), end));
+        assertAllCompassMoves(path);
+    }
+
+    @Test
+    void givenCorridorThroughZone_whenCheckingCorridor_thenNotClear() {
+        ZoneIndex index = ZoneIndex.compile(List.of(
+                BenchmarkZones.rectangle("wall", 0.001, -0.001, 0.0011, 0.001)));
+
+        assertFalse(index.corridorClear(0.0, 0.0, 0.002, 0.0, Lattice.STEP_SIZE));
+        assertFalse(index.corridorClear(0.0, 0.00105, 0.002, 0.00105, Lattice.STEP_SIZE));
+        assertTrue(index.corridorClear(0.0, 0.0015, 0.002, 0.0015, Lattice.STEP_SIZE));
+    }
+
+    @Test
+    void givenGoalsAroundWallAndOneEnclosed_whenSearchMany_thenReachableGoalsGetValidPaths() {
+        Position origin = new Position(0.0, 0.0);
+        Region wall = BenchmarkZones.rectangle("wall", 0.001, -0.001, 0.0011, 0.001);
+        Region ring = BenchmarkZones.rectangle("ring", -0.0030, 0.0020, -0.0020, 0.0030);
+        List<Position> goals = List.of(
+                new Position(0.002, 0.0),
+                new Position(0.002, 0.0005),
+                new Position(-0.001, 0.001),
+                new Position(-0.0025, 0.0025)
+        );
+        ZoneIndex zones = ZoneIndex.compile(List.of(wall, ring));
+
+        List<List<Position>> paths = pathfinder.searchMany(origin, goals, zones);
+
+        assertEquals(goals.size(), paths.size());
+        for (int i = 0; i < 3; i++) {
+            List<Position> path = paths.get(i);
+            assertFalse(path.isEmpty(), "goal " + i);
+            assertEquals(origin, path.get(0));
+            assertTrue(geometryService.checkPointsClose(path.get(path.size() - 1), goals.get(i)));
+            assertAllCompassMoves(path);
+            for (int k = 1; k < path.size(); k++) {
+                assertFalse(zones.isBlockedMove(path.get(k - 1).getLng(), path.get(k - 1).getLat(),
+                        path.get(k).getLng(), path.get(k).getLat()));
+            }
+        }
+        assertTrue(paths.get(3).isEmpty(), "goal inside a zone is unreachable");
+    }
+
+    @Test
+    void givenLegPlannedFromNearbyPoint_whenReanchored_thenStartsThereAndStaysClear() {
+        Position stop = new Position(0.0, 0.0);
+        Position arrival = new Position(0.00008, 0.00005);
+        Position end = new Position(0.002, 0.0);
+        ZoneIndex zones = ZoneIndex.compile(List.of(
+                BenchmarkZones.rectangle("wall", 0.001, -0.0004, 0.0011, 0.001)));
+        List<Position> leg = pathfinder.search(stop, end, zones);
+
+        List<Position> shifted = pathfinder.reanchor(leg, arrival, end, zones);
+
+        assertNotNull(shifted);
+        PathAssertions.assertFlyable(shifted, arrival, end, zones);
+        assertAllCompassMoves(shifted);
+    }
+
+    private void assertAllCompassMoves(List<Position> path) {
+        for (int i = 1; i < path.size(); i++) {
+            Position from = path.get(i - 1);
+            Position to = path.get(i);
+            assertEquals(Lattice.STEP_SIZE, geometryService.calculateDistance(from, to), 1e-12);
+
+            double angle = Math.toDegrees(Math.atan2(to.getLat() - from.getLat(),
+                    to.getLng() - from.getLng()));
+            double sectors = angle / 22.5;
+            assertEquals(Math.round(sectors), sectors, 1e-6, "move " + i + " is off-compass");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+
+import java.util.List;
+
+/**
+ * Restricted-zone layouts shared by the pathfinding benchmarks.
+ */
+final class BenchmarkZones {
+
+    private BenchmarkZones() {}
+
+    /** George Square area as served by the ILP REST service */
+    static Region georgeSquare() {
+        return new Region("George Square Area", List.of(
+                new Position(-3.190578818321228, 55.94402412577528),
+                new Position(-3.1899887323379517, 55.94284650540911),
+                new Position(-3.187097311019897, 55.94328811724263),
+                new Position(-3.187682032585144, 55.944477740393744),
+                new Position(-3.190578818321228, 55.94402412577528)
+        ));
+    }
+
+    /** central-area restricted zones served by the ILP REST service alongside George Square */
+    static List<Region> centralArea() {
+        return List.of(
+                georgeSquare(),
+                new Region("Dr Elsie Inglis Quadrangle", List.of(
+                        new Position(-3.1907182931900024, 55.94519570234043),
+                        new Position(-3.1906163692474365, 55.94498241796357),
+                        new Position(-3.1900262832641597, 55.94507554227258),
+                        new Position(-3.190133571624756, 55.94529783810495),
+                        new Position(-3.1907182931900024, 55.94519570234043)
+                )),
+                new Region("Bristo Square Open Area", List.of(
+                        new Position(-3.189543485641479, 55.94552313663306),
+                        new Position(-3.189382553100586, 55.94553214854692),
+                        new Position(-3.189259171485901, 55.94544803726933),
+                        new Position(-3.1892001628875732, 55.94533688994374),
+                        new Position(-3.189194798469543, 55.94519570234043),
+                        new Position(-3.189135789871216, 55.94511759833873),
+                        new Position(-3.188138008117676, 55.9452738061846),
+                        new Position(-3.1885510683059692, 55.946105902745614),
+                        new Position(-3.1895381212234497, 55.94555918427592),
+                        new Position(-3.189543485641479, 55.94552313663306)
+                )),
+                new Region("Bayes Central Area", List.of(
+                        new Position(-3.1876927614212036, 55.94520696732767),
+                        new Position(-3.187555968761444, 55.9449621408666),
+                        new Position(-3.186981976032257, 55.94505676722831),
+                        new Position(-3.1872327625751495, 55.94536993377657),
+                        new Position(-3.1874459981918335, 55.9453361389472),
+                        new Position(-3.1873735785484314, 55.94519344934259),
+                        new Position(-3.1875935196876526, 55.94515665035927),
+                        new Position(-3.1876927614212036, 55.94520696732767)
+                ))
+        );
+    }
+
+    static Region rectangle(String name, double minLng, double minLat, double maxLng, double maxLat) {
+        return new Region(name, List.of(
+                new Position(minLng, minLat),
+                new Position(maxLng, minLat),
+                new Position(maxLng, maxLat),
+                new Position(minLng, maxLat),
+                new Position(minLng, minLat)
+        ));
+    }
+
+    /** three walls enclosing the centre on every side but the west, so the search must back out */
+    static List<Region> pocketAround(double lng, double lat, double halfWidth) {
+        double wall = halfWidth / 10;
+        return List.of(
+                rectangle("pocket-east", lng + halfWidth, lat - halfWidth, lng + halfWidth + wall, lat + halfWidth),
+                rectangle("pocket-north", lng - halfWidth, lat + halfWidth, lng + halfWidth + wall, lat + halfWidth + wall),
+                rectangle("pocket-south", lng - halfWidth, lat - halfWidth - wall, lng + halfWidth + wall, lat - halfWidth)
+        );
+    }
+
+    /**
+     * Parallel north-south walls whose gaps alternate between the top and the bottom, so a flight
+     * east across them has to weave back and forth over the whole height.
+     */
+    static List<Region> serpentine(double lng, double lat, int walls, double spacing, double height) {
+        double thickness = spacing / 10;
+        double gap = height / 8;
+        List<Region> zones = new java.util.ArrayList<>();
+        for (int i = 0; i < walls; i++) {
+            double west = lng + (i + 1) * spacing;
+            double south = i % 2 == 0 ? lat : lat + gap;
+            double north = i % 2 == 0 ? lat + height - gap : lat + height;
+            zones.add(rectangle("wall-" + i, west, south, west + thickness, north));
+        }
+        return zones;
+    }
+}
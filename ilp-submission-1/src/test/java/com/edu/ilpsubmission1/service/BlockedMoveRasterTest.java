@@ -0,0 +1,82 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import com.edu.ilpsubmission1.dtos.ServicePoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+class BlockedMoveRasterTest {
+
+    private final List<Region> zones = List.of(
+            BenchmarkZones.georgeSquare(),
+            BenchmarkZones.rectangle("block", -3.1862, 55.9440, -3.1855, 55.9460)
+    );
+
+    @Test
+    void givenRandomMovesInWindow_whenCheckingRaster_thenSameAnswerAsExactIndex() {
+        ZoneIndex index = ZoneIndex.compile(zones);
+        BlockedMoveRaster raster = BlockedMoveRaster.build(index,
+                -3.192, 55.942, -3.184, 55.947, ForkJoinPool.commonPool());
+        Random random = new Random(11);
+
+        for (int i = 0; i < 20000; i++) {
+            double lng = -3.1925 + random.nextDouble() * 0.009;
+            double lat = 55.9415 + random.nextDouble() * 0.006;
+            int d = random.nextInt(Lattice.DIRECTION_COUNT);
+            double toLng = lng + Lattice.DX[d];
+            double toLat = lat + Lattice.DY[d];
+
+            assertEquals(index.isBlockedMove(lng, lat, toLng, toLat),
+                    raster.isBlockedMove(lng, lat, d, toLng, toLat));
+        }
+    }
+
+    @Test
+    void givenCellFarFromZones_whenReadingMask_thenAllMovesCertifiedFree() {
+        ZoneIndex index = ZoneIndex.compile(zones);
+        BlockedMoveRaster raster = BlockedMoveRaster.build(index,
+                -3.192, 55.942, -3.170, 55.947, ForkJoinPool.commonPool());
+
+        assertEquals(0, raster.maskAt(-3.175, 55.945));
+        assertTrue(raster.maskAt(-3.1862, 55.9450) > 0);
+        assertEquals(-1, raster.maskAt(-3.10, 55.945));
+    }
+
+    @Test
+    void givenZonesChanged_whenServiceRebuildsInBackground_thenRasterOnlyServesThatVersionOncePublished() {
+        IlpRestClient client = mock(IlpRestClient.class);
+        when(client.getServicePointsJson()).thenReturn(new ServicePoint[]{
+                new ServicePoint(1L, "Appleton Tower", new Position(-3.1863580788986368, 55.94468066708487))
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        List<Runnable> rebuilds = new ArrayList<>();
+        BlockedMoveRasterService service = new BlockedMoveRasterService(client, meterRegistry, true, 1_000_000,
+                rebuilds::add);
+        ZoneIndex index = ZoneIndex.compile(zones, 1);
+
+        service.onZonesChanged(new ZoneIndexChangedEvent(null, index));
+
+        assertSame(index, service.checkerFor(index), "exact index until the rebuild is published");
+        assertEquals(1, rebuilds.size());
+        rebuilds.get(0).run();
+        assertSame(service.current(), service.checkerFor(index));
+        ZoneIndex other = ZoneIndex.compile(zones, 2);
+        assertSame(other, service.checkerFor(other));
+        assertEquals(service.current().sizeInBytes(),
+                meterRegistry.get("pathfinding.raster.bytes").gauge().value());
+        assertEquals(1, meterRegistry.get("pathfinding.raster.build").timer().count());
+    }
+}
@@ -0,0 +1,86 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import com.edu.ilpsubmission1.dtos.ServicePoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+class ClusterGraphTest {
+
+    private final Region barrier = BenchmarkZones.rectangle("barrier", -3.1862, 55.9380, -3.1858, 55.9500);
+
+    @Test
+    void givenLongBarrier_whenPlanning_thenWaypointsLeadAroundItsEnd() {
+        ZoneIndex zones = ZoneIndex.compile(List.of(barrier));
+        ClusterGraph clusters = clusters(zones, -3.1920, 55.9360, -3.1800, 55.9520);
+
+        double[] waypoints = clusters.plan(-3.1900, 55.9440, -3.1820, 55.9440);
+
+        assertTrue(clusters.entranceCount() > 0);
+        assertNotNull(waypoints);
+        assertTrue(waypoints.length > 0);
+        boolean rounded = false;
+        for (int i = 0; i < waypoints.length; i += 2) {
+            assertFalse(zones.isPointBlocked(waypoints[i], waypoints[i + 1]));
+            rounded |= waypoints[i + 1] < 55.9380 || waypoints[i + 1] > 55.9500;
+        }
+        assertTrue(rounded, "one waypoint past an end of the barrier");
+    }
+
+    @Test
+    void givenSameClusterEnclosedOrOffWindowEnds_whenPlanning_thenNoAbstractRoute() {
+        List<Region> ring = List.of(
+                BenchmarkZones.rectangle("south", 0.0, 0.0, 0.006, 0.0006),
+                BenchmarkZones.rectangle("north", 0.0, 0.0054, 0.006, 0.006),
+                BenchmarkZones.rectangle("west", 0.0, 0.0, 0.0006, 0.006),
+                BenchmarkZones.rectangle("east", 0.0054, 0.0, 0.006, 0.006));
+        ClusterGraph clusters = clusters(ZoneIndex.compile(ring), -0.003, -0.003, 0.009, 0.009);
+
+        assertNull(clusters.plan(-0.0020, -0.0020, -0.0019, -0.0019), "same cluster");
+        assertNull(clusters.plan(-0.0020, -0.0020, 0.0030, 0.0030), "inside the ring");
+        assertNull(clusters.plan(-0.0020, -0.0020, 0.5, 0.5), "off the window");
+        assertNotNull(clusters.plan(-0.0020, -0.0020, 0.0080, 0.0080));
+    }
+
+    @Test
+    void givenSerpentine_whenHierarchicalSearch_thenValidPathNoLongerThanOneSided() {
+        GeometryService geometryService = new GeometryService();
+        Position start = new Position(-3.2000, 55.9340);
+        Position end = new Position(-3.1880, 55.9340);
+        ZoneIndex zones = ZoneIndex.compile(BenchmarkZones.serpentine(-3.2000, 55.9300, 3, 0.003, 0.008), 1);
+        IlpRestClient client = mock(IlpRestClient.class);
+        when(client.getServicePointsJson()).thenReturn(new ServicePoint[]{new ServicePoint(1L, "base", start)});
+        BlockedMoveRasterService rasterService =
+                new BlockedMoveRasterService(client, new SimpleMeterRegistry(), true, 16_000_000);
+        rasterService.rebuild(zones);
+        AStarPathfinder pathfinder = new AStarPathfinder(geometryService, rasterService);
+
+        PathSearchResult oneSided = pathfinder.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED,
+                SearchMode.UNIDIRECTIONAL);
+        PathSearchResult hierarchical = pathfinder.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED,
+                SearchMode.HIERARCHICAL);
+        PathSearchResult tooShort = pathfinder.latticeSearch(start, end, zones, 100, SearchMode.HIERARCHICAL);
+
+        assertNotNull(rasterService.clustersFor(zones));
+        assertTrue(hierarchical.isFound());
+        assertTrue(hierarchical.moves() <= oneSided.moves());
+        PathAssertions.assertFlyable(hierarchical.path(), start, end, zones);
+        assertEquals(PathSearchResult.Outcome.OVER_BUDGET, tooShort.outcome());
+    }
+
+    private ClusterGraph clusters(ZoneIndex zones, double minLng, double minLat, double maxLng, double maxLat) {
+        return ClusterGraph.build(BlockedMoveRaster.build(zones, minLng, minLat, maxLng, maxLat,
+                ForkJoinPool.commonPool()), ForkJoinPool.commonPool());
+    }
+}
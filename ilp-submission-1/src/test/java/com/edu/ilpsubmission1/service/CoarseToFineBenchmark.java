@@ -0,0 +1,62 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-sided lattice search against the coarse-to-fine mode on long legs: weaving through a
+ * serpentine of walls and straight across a wide field of scattered blocks.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CoarseToFineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoarseToFineBenchmark {
+
+    @Param({"serpentine", "blocks"})
+    public String layout;
+
+    @Param({"UNIDIRECTIONAL", "COARSE_TO_FINE"})
+    public SearchMode mode;
+
+    private final AStarPathfinder pathfinder = new AStarPathfinder(new GeometryService());
+    private Position start;
+    private Position end;
+    private ZoneIndex zones;
+
+    @Setup
+    public void setUp() {
+        switch (layout) {
+            case "serpentine" -> {
+                start = new Position(-3.1995, 55.9400);
+                end = new Position(-3.1680, 55.9400);
+                zones = ZoneIndex.compile(BenchmarkZones.serpentine(-3.2000, 55.9300, 5, 0.005, 0.02));
+            }
+            case "blocks" -> {
+                start = new Position(-3.3000, 55.9400);
+                end = new Position(-3.1200, 55.9400);
+                List<Region> blocks = new ArrayList<>();
+                for (int i = 0; i < 40; i++) {
+                    double west = -3.2950 + i * 0.0044;
+                    double south = 55.9400 - 0.0020 + (i % 3) * 0.0010;
+                    blocks.add(BenchmarkZones.rectangle("block-" + i, west, south, west + 0.0015, south + 0.0025));
+                }
+                zones = ZoneIndex.compile(blocks);
+            }
+            default -> throw new IllegalArgumentException(layout);
+        }
+    }
+
+    @Benchmark
+    public int search() {
+        return pathfinder.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED, mode).moves();
+    }
+}
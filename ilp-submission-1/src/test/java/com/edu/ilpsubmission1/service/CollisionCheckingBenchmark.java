@@ -0,0 +1,76 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.ServicePoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Eager against lazy collision checking in the one-sided lattice search, against the exact zone
+ * index and against the raster. The per-leg check counts are on the
+ * pathfinding.leg.collision.checks summary.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CollisionCheckingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollisionCheckingBenchmark {
+
+    @Param({"centralArea", "barrier"})
+    public String layout;
+
+    @Param({"EAGER", "LAZY"})
+    public CollisionChecking checking;
+
+    @Param({"exact", "raster"})
+    public String checker;
+
+    private AStarPathfinder pathfinder;
+    private MoveChecker moveChecker;
+    private Position start;
+    private Position end;
+
+    @Setup
+    public void setUp() {
+        ZoneIndex zones;
+        switch (layout) {
+            case "centralArea" -> {
+                start = new Position(-3.1925, 55.9455);
+                end = new Position(-3.1850, 55.9440);
+                zones = ZoneIndex.compile(BenchmarkZones.centralArea(), 1);
+            }
+            case "barrier" -> {
+                start = new Position(-3.1900, 55.9440);
+                end = new Position(-3.1820, 55.9440);
+                zones = ZoneIndex.compile(List.of(BenchmarkZones.rectangle("barrier", -3.1862, 55.9380, -3.1858, 55.9500)), 1);
+            }
+            default -> throw new IllegalArgumentException(layout);
+        }
+
+        IlpRestClient client = mock(IlpRestClient.class);
+        when(client.getServicePointsJson()).thenReturn(new ServicePoint[]{
+                new ServicePoint(1L, "base", start)
+        });
+        BlockedMoveRasterService rasterService =
+                new BlockedMoveRasterService(client, new SimpleMeterRegistry(), true, 16_000_000);
+        rasterService.rebuild(zones);
+        pathfinder = new AStarPathfinder(new GeometryService(), rasterService, checking, new SimpleMeterRegistry());
+        moveChecker = "raster".equals(checker) ? rasterService.checkerFor(zones) : zones;
+    }
+
+    @Benchmark
+    public int search() {
+        return pathfinder.latticeSearch(start, end, moveChecker, AStarPathfinder.UNBOUNDED,
+                SearchMode.UNIDIRECTIONAL).moves();
+    }
+}
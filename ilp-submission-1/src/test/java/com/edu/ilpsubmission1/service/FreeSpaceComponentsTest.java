@@ -0,0 +1,99 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import com.edu.ilpsubmission1.dtos.ServicePoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+class FreeSpaceComponentsTest {
+
+    /** four overlapping walls closing off the square between 0.0003 and 0.0027 */
+    private final List<Region> ring = List.of(
+            BenchmarkZones.rectangle("south", 0.0, 0.0, 0.003, 0.0003),
+            BenchmarkZones.rectangle("north", 0.0, 0.0027, 0.003, 0.003),
+            BenchmarkZones.rectangle("west", 0.0, 0.0, 0.0003, 0.003),
+            BenchmarkZones.rectangle("east", 0.0027, 0.0, 0.003, 0.003)
+    );
+
+    @Test
+    void givenClosedRing_whenCheckingReach_thenInsideAndOutsideAreSeparated() {
+        FreeSpaceComponents components = components(ring);
+
+        assertEquals(2, components.componentCount());
+        assertFalse(components.mayReach(-0.0005, 0.0015, 0.0015, 0.0015));
+        assertFalse(components.mayReach(0.0015, 0.0015, 0.0050, 0.0015), "outside the window is outside the ring");
+        assertTrue(components.mayReach(0.0010, 0.0010, 0.0020, 0.0020));
+        assertTrue(components.mayReach(-0.0005, 0.0015, 0.0040, 0.0040));
+        assertTrue(components.mayReach(0.0015, 0.0015, 0.0015, 0.0028), "a move from the inside wall face");
+    }
+
+    @Test
+    void givenRejectedTarget_whenCheckingAgain_thenAnsweredFromNegativeCache() {
+        FreeSpaceComponents components = components(ring);
+
+        assertFalse(components.mayReach(-0.0005, 0.0015, 0.0015, 0.0015));
+        assertFalse(components.mayReach(-0.0006, 0.0014, 0.0015, 0.0015));
+
+        assertEquals(1, components.unreachableEntries());
+    }
+
+    @Test
+    void givenOpenZones_whenCheckingRandomFreePoints_thenAllMayReachEachOther() {
+        List<Region> zones = List.of(BenchmarkZones.georgeSquare(),
+                BenchmarkZones.rectangle("block", -3.1862, 55.9440, -3.1855, 55.9460));
+        ZoneIndex index = ZoneIndex.compile(zones);
+        FreeSpaceComponents components = FreeSpaceComponents.build(BlockedMoveRaster.build(index,
+                -3.192, 55.942, -3.184, 55.947, ForkJoinPool.commonPool()));
+        Random random = new Random(5);
+
+        for (int i = 0; i < 2000; i++) {
+            double fromLng = -3.192 + random.nextDouble() * 0.008;
+            double fromLat = 55.942 + random.nextDouble() * 0.005;
+            double toLng = -3.192 + random.nextDouble() * 0.008;
+            double toLat = 55.942 + random.nextDouble() * 0.005;
+            if (index.isPointBlocked(fromLng, fromLat) || index.isPointBlocked(toLng, toLat)) continue;
+
+            assertTrue(components.mayReach(fromLng, fromLat, toLng, toLat));
+        }
+    }
+
+    @Test
+    void givenEnclosedGoal_whenSearching_thenRejectedAsNoPathWithoutSearch() {
+        IlpRestClient client = mock(IlpRestClient.class);
+        when(client.getServicePointsJson()).thenReturn(new ServicePoint[]{
+                new ServicePoint(1L, "base", new Position(-0.001, 0.001))
+        });
+        BlockedMoveRasterService rasterService =
+                new BlockedMoveRasterService(client, new SimpleMeterRegistry(), true, 16_000_000);
+        AStarPathfinder pathfinder = new AStarPathfinder(new GeometryService(), rasterService);
+        ZoneIndex zones = ZoneIndex.compile(ring, 1);
+        rasterService.rebuild(zones);
+
+        PathSearchResult enclosed = pathfinder.search(new Position(-0.001, 0.001), new Position(0.0015, 0.0015),
+                zones, AStarPathfinder.UNBOUNDED);
+        PathSearchResult fromInsideWall = pathfinder.search(new Position(0.0015, 0.00015), new Position(-0.001, 0.001),
+                zones, AStarPathfinder.UNBOUNDED);
+
+        assertEquals(PathSearchResult.Outcome.NO_PATH, enclosed.outcome());
+        assertEquals(PathSearchResult.Outcome.NO_PATH, fromInsideWall.outcome());
+        assertEquals(1, rasterService.componentsFor(zones).unreachableEntries());
+    }
+
+    private FreeSpaceComponents components(List<Region> zones) {
+        ZoneIndex index = ZoneIndex.compile(zones);
+        return FreeSpaceComponents.build(BlockedMoveRaster.build(index,
+                -0.001, -0.001, 0.004, 0.004, ForkJoinPool.commonPool()));
+    }
+}
@@ -0,0 +1,75 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.ServicePoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * One-sided against hierarchical lattice search on long legs, both with the raster, landmarks and
+ * cluster graph built: across the central area, around a long barrier and through a serpentine of
+ * walls spanning the whole window.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=HierarchicalSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HierarchicalSearchBenchmark {
+
+    @Param({"centralArea", "barrier", "serpentine"})
+    public String layout;
+
+    @Param({"UNIDIRECTIONAL", "HIERARCHICAL"})
+    public SearchMode mode;
+
+    private AStarPathfinder pathfinder;
+    private Position start;
+    private Position end;
+    private ZoneIndex zones;
+
+    @Setup
+    public void setUp() {
+        switch (layout) {
+            case "centralArea" -> {
+                start = new Position(-3.1925, 55.9455);
+                end = new Position(-3.1850, 55.9440);
+                zones = ZoneIndex.compile(BenchmarkZones.centralArea(), 1);
+            }
+            case "barrier" -> {
+                start = new Position(-3.1900, 55.9440);
+                end = new Position(-3.1820, 55.9440);
+                zones = ZoneIndex.compile(List.of(BenchmarkZones.rectangle("barrier", -3.1862, 55.9380, -3.1858, 55.9500)), 1);
+            }
+            case "serpentine" -> {
+                start = new Position(-3.2000, 55.9400);
+                end = new Position(-3.1700, 55.9400);
+                zones = ZoneIndex.compile(BenchmarkZones.serpentine(-3.2000, 55.9300, 5, 0.005, 0.02), 1);
+            }
+            default -> throw new IllegalArgumentException(layout);
+        }
+
+        IlpRestClient client = mock(IlpRestClient.class);
+        when(client.getServicePointsJson()).thenReturn(new ServicePoint[]{
+                new ServicePoint(1L, "base", start)
+        });
+        BlockedMoveRasterService rasterService =
+                new BlockedMoveRasterService(client, new SimpleMeterRegistry(), true, 16_000_000);
+        rasterService.rebuild(zones);
+        pathfinder = new AStarPathfinder(new GeometryService(), rasterService);
+    }
+
+    @Benchmark
+    public int search() {
+        return pathfinder.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED, mode).moves();
+    }
+}
@@ -0,0 +1,74 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.ServicePoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lattice search with and without the landmark bounds, on the layouts where the straight line
+ * misleads it most: out of a pocket, around a long barrier and across the central area.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=LandmarkHeuristicBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LandmarkHeuristicBenchmark {
+
+    @Param({"centralArea", "barrier", "pocket"})
+    public String layout;
+
+    @Param({"false", "true"})
+    public boolean landmarks;
+
+    private AStarPathfinder pathfinder;
+    private Position start;
+    private Position end;
+    private ZoneIndex zones;
+
+    @Setup
+    public void setUp() {
+        switch (layout) {
+            case "centralArea" -> {
+                start = new Position(-3.1925, 55.9455);
+                end = new Position(-3.1850, 55.9440);
+                zones = ZoneIndex.compile(BenchmarkZones.centralArea(), 1);
+            }
+            case "barrier" -> {
+                start = new Position(-3.1900, 55.9440);
+                end = new Position(-3.1820, 55.9440);
+                zones = ZoneIndex.compile(List.of(BenchmarkZones.rectangle("barrier", -3.1862, 55.9380, -3.1858, 55.9500)), 1);
+            }
+            case "pocket" -> {
+                start = new Position(-3.1880, 55.9440);
+                end = new Position(-3.1820, 55.9440);
+                zones = ZoneIndex.compile(BenchmarkZones.pocketAround(-3.1880, 55.9440, 0.0020), 1);
+            }
+            default -> throw new IllegalArgumentException(layout);
+        }
+
+        IlpRestClient client = mock(IlpRestClient.class);
+        when(client.getServicePointsJson()).thenReturn(new ServicePoint[]{
+                new ServicePoint(1L, "base", end)
+        });
+        BlockedMoveRasterService rasterService =
+                new BlockedMoveRasterService(client, new SimpleMeterRegistry(), landmarks, 16_000_000);
+        if (landmarks) rasterService.rebuild(zones);
+        pathfinder = new AStarPathfinder(new GeometryService(), rasterService);
+    }
+
+    @Benchmark
+    public int search() {
+        return pathfinder.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED, SearchMode.UNIDIRECTIONAL).moves();
+    }
+}
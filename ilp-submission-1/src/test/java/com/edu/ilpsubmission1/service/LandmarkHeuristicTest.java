@@ -0,0 +1,118 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import com.edu.ilpsubmission1.dtos.ServicePoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+class LandmarkHeuristicTest {
+
+    /** a U open to the west, so anything inside has to come back out past the open end */
+    private final List<Region> pocket = List.of(
+            BenchmarkZones.rectangle("north", 0.0, 0.0020, 0.0030, 0.0023),
+            BenchmarkZones.rectangle("south", 0.0, -0.0023, 0.0030, -0.0020),
+            BenchmarkZones.rectangle("east", 0.0027, -0.0023, 0.0030, 0.0023)
+    );
+
+    @Test
+    void givenTargetBehindPocketWall_whenBounding_thenBeatsStraightLineWithoutOvershooting() {
+        ZoneIndex zones = ZoneIndex.compile(pocket);
+        LandmarkHeuristic landmarks = landmarks(zones, List.of(new Position(0.0060, 0.0)));
+        Position inside = new Position(0.0015, 0.0);
+        Position outside = new Position(0.0045, 0.0);
+
+        double bound = landmarks.lowerBound(inside.getLng(), inside.getLat(),
+                landmarks.towards(outside.getLng(), outside.getLat(), inside.getLng(), inside.getLat()));
+        PathSearchResult flown = new AStarPathfinder(new GeometryService())
+                .searchAnytime(inside, outside, zones, AStarPathfinder.UNBOUNDED, Deadline.NONE);
+
+        assertEquals(1, landmarks.landmarkCount());
+        assertTrue(bound > 2 * GeometryService.distance(0.0015, 0.0, 0.0045, 0.0), "bound: " + bound);
+        assertTrue(flown.isFound());
+        assertTrue(bound <= (flown.moves() + 1) * Lattice.STEP_SIZE, "bound: " + bound + ", moves: " + flown.moves());
+    }
+
+    @Test
+    void givenRandomFreePoints_whenBounding_thenNeverAboveTheFlownDistance() {
+        ZoneIndex zones = ZoneIndex.compile(pocket);
+        LandmarkHeuristic landmarks = landmarks(zones, List.of(new Position(0.0060, 0.0),
+                new Position(-0.0030, 0.0040), new Position(0.0015, 0.0)));
+        AStarPathfinder pathfinder = new AStarPathfinder(new GeometryService());
+        Random random = new Random(13);
+
+        for (int i = 0; i < 20; i++) {
+            Position from = new Position(-0.002 + random.nextDouble() * 0.008, -0.004 + random.nextDouble() * 0.008);
+            Position to = new Position(-0.002 + random.nextDouble() * 0.008, -0.004 + random.nextDouble() * 0.008);
+            if (zones.isPointBlocked(from.getLng(), from.getLat()) || zones.isPointBlocked(to.getLng(), to.getLat())) {
+                continue;
+            }
+
+            LandmarkHeuristic.Target target = landmarks.towards(to.getLng(), to.getLat(), from.getLng(), from.getLat());
+            PathSearchResult flown = pathfinder.searchAnytime(from, to, zones, AStarPathfinder.UNBOUNDED, Deadline.NONE);
+            if (target == null || !flown.isFound()) continue;
+            double bound = landmarks.lowerBound(from.getLng(), from.getLat(), target);
+            assertTrue(bound <= (flown.moves() + 1) * Lattice.STEP_SIZE, "bound: " + bound + ", moves: " + flown.moves());
+        }
+    }
+
+    @Test
+    void givenPointsOffTheWindowOrInClearView_whenBounding_thenNoLandmarkBound() {
+        LandmarkHeuristic landmarks = landmarks(ZoneIndex.compile(pocket), List.of(new Position(0.0060, 0.0),
+                new Position(0.5, 0.5)));
+        LandmarkHeuristic.Target target = landmarks.towards(0.0045, 0.0, 0.0015, 0.0);
+
+        assertEquals(1, landmarks.landmarkCount(), "the landmark off the window is dropped");
+        assertNotNull(target);
+        assertNull(landmarks.towards(0.5, 0.5, 0.0015, 0.0));
+        assertNull(landmarks.towards(0.0045, 0.0, 0.0045, 0.0005), "no detour to bound");
+        assertEquals(0, landmarks.lowerBound(0.5, 0.5, target));
+    }
+
+    @Test
+    void givenRasterService_whenSearchingOutOfThePocket_thenLandmarkGuidedPathIsValid() {
+        IlpRestClient client = mock(IlpRestClient.class);
+        when(client.getServicePointsJson()).thenReturn(new ServicePoint[]{
+                new ServicePoint(1L, "base", new Position(0.0060, 0.0))
+        });
+        BlockedMoveRasterService rasterService =
+                new BlockedMoveRasterService(client, new SimpleMeterRegistry(), true, 16_000_000);
+        GeometryService geometryService = new GeometryService();
+        AStarPathfinder pathfinder = new AStarPathfinder(geometryService, rasterService);
+        ZoneIndex zones = ZoneIndex.compile(pocket, 1);
+        rasterService.rebuild(zones);
+        Position start = new Position(0.0015, 0.0);
+        Position end = new Position(0.0060, 0.0);
+
+        PathSearchResult result = pathfinder.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED,
+                SearchMode.UNIDIRECTIONAL);
+
+        assertEquals(5, rasterService.landmarksFor(zones).landmarkCount(), "the base and four window corners");
+        assertSame(rasterService.landmarksFor(zones), rasterService.landmarksFor(rasterService.checkerFor(zones)));
+        assertTrue(result.isFound());
+        List<Position> path = result.path();
+        assertEquals(start, path.get(0));
+        assertTrue(geometryService.checkPointsClose(path.get(path.size() - 1), end));
+        for (int i = 1; i < path.size(); i++) {
+            assertFalse(zones.isBlockedMove(path.get(i - 1).getLng(), path.get(i - 1).getLat(),
+                    path.get(i).getLng(), path.get(i).getLat()));
+        }
+    }
+
+    private LandmarkHeuristic landmarks(ZoneIndex zones, List<Position> points) {
+        BlockedMoveRaster raster = BlockedMoveRaster.build(zones, -0.004, -0.006, 0.008, 0.006,
+                ForkJoinPool.commonPool());
+        return LandmarkHeuristic.build(FreeSpaceComponents.build(raster), points, ForkJoinPool.commonPool());
+    }
+}
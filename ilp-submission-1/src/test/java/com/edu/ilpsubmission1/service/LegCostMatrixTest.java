@@ -0,0 +1,59 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class LegCostMatrixTest {
+
+    private final Position base = new Position(0.0, 0.0);
+    private final Position near = new Position(0.0006, 0.0);
+    private final Position far = new Position(0.0015, 0.0);
+    private final Position walledIn = new Position(0.0, 0.003);
+
+    @Test
+    void givenStraightLegs_whenComputed_thenMovesAndTripsAddUp() {
+        AtomicInteger started = new AtomicInteger();
+        LegCostMatrix costs = LegCostMatrix.compute(List.of(base), List.of(near, far, near), (from, to) -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture(straightLeg(from, to));
+        });
+
+        assertEquals(6, started.get(), "two deliveries and one base, without repeats or base to base");
+        assertEquals(4, costs.moves(base, near));
+        assertEquals(6, costs.moves(near, far));
+        assertEquals(10, costs.moves(far, base));
+        assertEquals(0, costs.moves(near, near));
+        assertEquals(4 + 1 + 6 + 1 + 10, costs.tripMoves(base, List.of(near, far)));
+        assertEquals(LegCostMatrix.NO_PATH, costs.moves(base, new Position(1.0, 1.0)));
+    }
+
+    @Test
+    void givenUnreachableDelivery_whenPlanningTripThroughIt_thenNoPath() {
+        LegCostMatrix costs = LegCostMatrix.compute(List.of(base), List.of(near, walledIn), (from, to) ->
+                CompletableFuture.completedFuture(from == walledIn || to == walledIn ? List.of() : straightLeg(from, to)));
+
+        assertEquals(LegCostMatrix.NO_PATH, costs.moves(near, walledIn));
+        assertEquals(LegCostMatrix.NO_PATH, costs.tripMoves(base, List.of(near, walledIn)));
+        assertEquals(4 + 1 + 4, costs.tripMoves(base, List.of(near)));
+    }
+
+    /** a leg of whole east or west moves, as long as the lattice would fly it */
+    private static List<Position> straightLeg(Position from, Position to) {
+        int moves = (int) Math.round(Math.abs(to.getLng() - from.getLng()) / Lattice.STEP_SIZE);
+        List<Position> leg = new ArrayList<>();
+        for (int i = 0; i <= moves; i++) {
+            leg.add(new Position(from.getLng() + Math.signum(to.getLng() - from.getLng()) * i * Lattice.STEP_SIZE,
+                    from.getLat()));
+        }
+        return leg;
+    }
+}
@@ -0,0 +1,73 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class LegFuturesTest {
+
+    private final Position a = new Position(-3.1863, 55.9446);
+    private final Position b = new Position(-3.1850, 55.9450);
+
+    @Test
+    void givenSameLegStartedTwice_whenJoined_thenComputedOnce() {
+        AtomicInteger computed = new AtomicInteger();
+        try (LegFutures legs = new LegFutures()) {
+            CompletableFuture<List<Position>> first = legs.start(a, b, () -> {
+                computed.incrementAndGet();
+                return List.of(a, b);
+            });
+            CompletableFuture<List<Position>> second = legs.start(new Position(a.getLng(), a.getLat()), b, () -> {
+                computed.incrementAndGet();
+                return List.of(a, b);
+            });
+
+            assertSame(first, second);
+            assertEquals(List.of(a, b), LegFutures.join(second));
+        }
+        assertEquals(1, computed.get());
+    }
+
+    @Test
+    void givenTwoLegs_whenStarted_thenRunConcurrently() {
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        try (LegFutures legs = new LegFutures()) {
+            CompletableFuture<List<Position>> outbound = legs.start(a, b, () -> awaitOther(bothRunning, a, b));
+            CompletableFuture<List<Position>> inbound = legs.start(b, a, () -> awaitOther(bothRunning, b, a));
+
+            assertEquals(List.of(a, b), LegFutures.join(outbound));
+            assertEquals(List.of(b, a), LegFutures.join(inbound));
+        }
+    }
+
+    @Test
+    void givenLegThatThrows_whenJoined_thenRethrowsCause() {
+        try (LegFutures legs = new LegFutures()) {
+            CompletableFuture<List<Position>> leg = legs.start(a, b, () -> {
+                throw new IllegalArgumentException("no zones");
+            });
+
+            assertThrows(IllegalArgumentException.class, () -> LegFutures.join(leg));
+        }
+    }
+
+    private static List<Position> awaitOther(CountDownLatch latch, Position from, Position to) {
+        latch.countDown();
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS), "legs did not overlap");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return List.of(from, to);
+    }
+}
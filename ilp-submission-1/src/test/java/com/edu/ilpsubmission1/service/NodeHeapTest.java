@@ -0,0 +1,75 @@
+package com.edu.ilpsubmission1.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class NodeHeapTest {
+
+    @Test
+    void givenRandomCostsAndUpdates_whenPollingAll_thenNonDecreasingOrder() {
+        Random random = new Random(42);
+        NodeHeap heap = new NodeHeap(4);
+        List<Node> nodes = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            Node node = node(i, random.nextInt(50), random.nextInt(10));
+            nodes.add(node);
+            heap.add(node);
+        }
+        for (int i = 0; i < 200; i++) {
+            Node node = nodes.get(random.nextInt(nodes.size()));
+            node.fCost += random.nextInt(11) - 5;
+            heap.update(node);
+        }
+
+        Node previous = heap.poll();
+        while (!heap.isEmpty()) {
+            Node next = heap.poll();
+            assertTrue(previous.compareTo(next) <= 0);
+            assertEquals(-1, next.heapIndex);
+            previous = next;
+        }
+    }
+
+    @Test
+    void givenEqualFCost_whenPolling_thenLowerHeuristicThenInsertionOrderWins() {
+        NodeHeap heap = new NodeHeap();
+        Node first = node(1, 10, 4);
+        Node second = node(2, 10, 4);
+        Node closer = node(3, 10, 2);
+
+        heap.add(first);
+        heap.add(second);
+        heap.add(closer);
+
+        assertSame(closer, heap.poll());
+        assertSame(first, heap.poll());
+        assertSame(second, heap.poll());
+        assertNull(heap.poll());
+    }
+
+    @Test
+    void givenNodeNotQueued_whenUpdate_thenException() {
+        NodeHeap heap = new NodeHeap();
+        Node node = node(1, 1, 1);
+        heap.add(node);
+        heap.poll();
+
+        assertFalse(heap.contains(node));
+        assertThrows(IllegalArgumentException.class, () -> heap.update(node));
+    }
+
+    private static Node node(long cell, double fCost, double hCost) {
+        Node node = new Node(cell, 0.0, 0.0);
+        node.fCost = fCost;
+        node.hCost = hCost;
+        return node;
+    }
+}
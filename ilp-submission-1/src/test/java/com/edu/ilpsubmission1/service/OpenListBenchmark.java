@@ -0,0 +1,154 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the indexed NodeHeap against java.util.PriorityQueue (remove + add for decrease-key)
+ * as the A* open list, on the restricted-zone layouts the pathfinder sees.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=OpenListBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenListBenchmark {
+
+    private static final int ITERATION_LIMIT = 50000;
+
+    @Param({"georgeSquare", "barrier", "pocket"})
+    public String layout;
+
+    @Param({"nodeHeap", "priorityQueue"})
+    public String openList;
+
+    private final GeometryService geometryService = new GeometryService();
+    private Position start;
+    private Position end;
+    private List<Region> zones;
+
+    @Setup
+    public void setUp() {
+        switch (layout) {
+            case "georgeSquare" -> {
+                start = new Position(-3.1915, 55.9447);
+                end = new Position(-3.1865, 55.9425);
+                zones = List.of(BenchmarkZones.georgeSquare());
+            }
+            case "barrier" -> {
+                start = new Position(-3.1900, 55.9440);
+                end = new Position(-3.1820, 55.9440);
+                zones = List.of(BenchmarkZones.rectangle("barrier", -3.1862, 55.9380, -3.1858, 55.9500));
+            }
+            case "pocket" -> {
+                start = new Position(-3.1880, 55.9440);
+                end = new Position(-3.1820, 55.9440);
+                zones = BenchmarkZones.pocketAround(-3.1880, 55.9440, 0.0020);
+            }
+            default -> throw new IllegalArgumentException(layout);
+        }
+    }
+
+    @Benchmark
+    public int search() {
+        OpenList queue = "nodeHeap".equals(openList) ? new HeapOpenList() : new QueueOpenList();
+        return run(queue);
+    }
+
+    private int run(OpenList openQueue) {
+        double endLng = end.getLng();
+        double endLat = end.getLat();
+        LongHashMap<Node> nodes = new LongHashMap<>();
+
+        Node startNode = new Node(Lattice.cellOf(start.getLng(), start.getLat()), start.getLng(), start.getLat());
+        startNode.hCost = GeometryService.distance(start.getLng(), start.getLat(), endLng, endLat) * 1.5;
+        startNode.fCost = startNode.hCost;
+        openQueue.add(startNode);
+        nodes.put(startNode.cell, startNode);
+
+        int iteration = 0;
+        while (!openQueue.isEmpty() && iteration < ITERATION_LIMIT) {
+            iteration++;
+            Node current = openQueue.poll();
+            if (geometryService.checkPointsClose(current.lng, current.lat, endLng, endLat)) {
+                return iteration;
+            }
+            current.closed = true;
+
+            for (int d = 0; d < Lattice.DIRECTION_COUNT; d++) {
+                double nextLng = current.lng + Lattice.DX[d];
+                double nextLat = current.lat + Lattice.DY[d];
+                long cell = Lattice.cellOf(nextLng, nextLat);
+                Node neighbor = nodes.get(cell);
+                if (neighbor != null && neighbor.closed) continue;
+
+                double tentativeG = current.gCost + Lattice.STEP_SIZE;
+                if (neighbor != null && tentativeG >= neighbor.gCost) continue;
+                if (blocked(current.lng, current.lat, nextLng, nextLat)) continue;
+
+                double h = GeometryService.distance(nextLng, nextLat, endLng, endLat) * 1.5;
+                if (neighbor == null) {
+                    neighbor = new Node(cell, nextLng, nextLat);
+                    neighbor.gCost = tentativeG;
+                    neighbor.hCost = h;
+                    neighbor.fCost = tentativeG + h;
+                    neighbor.parent = current;
+                    openQueue.add(neighbor);
+                    nodes.put(cell, neighbor);
+                } else {
+                    openQueue.beforeUpdate(neighbor);
+                    neighbor.lng = nextLng;
+                    neighbor.lat = nextLat;
+                    neighbor.gCost = tentativeG;
+                    neighbor.hCost = h;
+                    neighbor.fCost = tentativeG + h;
+                    neighbor.parent = current;
+                    openQueue.afterUpdate(neighbor);
+                }
+            }
+        }
+        return -iteration;
+    }
+
+    private boolean blocked(double fromLng, double fromLat, double toLng, double toLat) {
+        for (Region zone : zones) {
+            if (geometryService.isPointInRegion(toLng, toLat, zone)) return true;
+            if (geometryService.checkLineIntersectsRegion(fromLng, fromLat, toLng, toLat, zone)) return true;
+        }
+        return false;
+    }
+
+    private interface OpenList {
+        void add(Node node);
+        Node poll();
+        boolean isEmpty();
+        void beforeUpdate(Node node);
+        void afterUpdate(Node node);
+    }
+
+    private static final class HeapOpenList implements OpenList {
+        private final NodeHeap heap = new NodeHeap();
+        public void add(Node node) { heap.add(node); }
+        public Node poll() { return heap.poll(); }
+        public boolean isEmpty() { return heap.isEmpty(); }
+        public void beforeUpdate(Node node) { }
+        public void afterUpdate(Node node) { heap.update(node); }
+    }
+
+    private static final class QueueOpenList implements OpenList {
+        private final PriorityQueue<Node> queue = new PriorityQueue<>();
+        private int insertions;
+        public void add(Node node) { node.order = insertions++; queue.add(node); }
+        public Node poll() { return queue.poll(); }
+        public boolean isEmpty() { return queue.isEmpty(); }
+        public void beforeUpdate(Node node) { queue.remove(node); }
+        public void afterUpdate(Node node) { queue.add(node); }
+    }
+}
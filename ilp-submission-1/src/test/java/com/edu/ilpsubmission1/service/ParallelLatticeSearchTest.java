@@ -0,0 +1,78 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class ParallelLatticeSearchTest {
+
+    private final GeometryService geometryService = new GeometryService();
+    /** four workers and no length threshold, so every test leg runs distributed */
+    private final AStarPathfinder parallel = new AStarPathfinder(geometryService, null, CollisionChecking.EAGER,
+            new SimpleMeterRegistry(), 4, 0);
+
+    @Test
+    void givenBarrier_whenParallelSearch_thenValidPathWithinOneMoveOfSequential() {
+        ZoneIndex zones = ZoneIndex.compile(List.of(BenchmarkZones.rectangle("barrier", -3.1862, 55.9420, -3.1858, 55.9460)));
+        Position start = new Position(-3.1880, 55.9440);
+        Position end = new Position(-3.1840, 55.9440);
+
+        PathSearchResult sequential = parallel.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED,
+                SearchMode.UNIDIRECTIONAL);
+        PathSearchResult distributed = parallel.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED,
+                SearchMode.PARALLEL);
+
+        assertTrue(distributed.isFound());
+        assertWithinOneMove(distributed, sequential);
+        PathAssertions.assertFlyable(distributed.path(), start, end, zones);
+    }
+
+    @Test
+    void givenCentralAreaZones_whenParallelSearch_thenValidPathWithinOneMoveOfSequential() {
+        ZoneIndex zones = ZoneIndex.compile(BenchmarkZones.centralArea());
+        Position start = new Position(-3.1925, 55.9455);
+        Position end = new Position(-3.1850, 55.9440);
+
+        PathSearchResult sequential = parallel.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED,
+                SearchMode.UNIDIRECTIONAL);
+        PathSearchResult distributed = parallel.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED,
+                SearchMode.PARALLEL);
+
+        assertTrue(distributed.isFound());
+        assertWithinOneMove(distributed, sequential);
+        PathAssertions.assertFlyable(distributed.path(), start, end, zones);
+    }
+
+    @Test
+    void givenTightBudgetOrEnclosedStart_whenParallelSearch_thenOverBudgetOrNoPath() {
+        ZoneIndex wall = ZoneIndex.compile(List.of(BenchmarkZones.rectangle("wall", 0.001, -0.001, 0.0011, 0.001)));
+        List<Region> ring = List.of(
+                BenchmarkZones.rectangle("south", 0.0, 0.0, 0.006, 0.0006),
+                BenchmarkZones.rectangle("north", 0.0, 0.0054, 0.006, 0.006),
+                BenchmarkZones.rectangle("west", 0.0, 0.0, 0.0006, 0.006),
+                BenchmarkZones.rectangle("east", 0.0054, 0.0, 0.006, 0.006));
+
+        PathSearchResult overBudget = parallel.latticeSearch(new Position(0.0, 0.0), new Position(0.002, 0.0), wall,
+                15, SearchMode.PARALLEL);
+        PathSearchResult enclosed = parallel.latticeSearch(new Position(0.003, 0.003), new Position(-0.002, 0.003),
+                ZoneIndex.compile(ring), AStarPathfinder.UNBOUNDED, SearchMode.PARALLEL);
+
+        assertEquals(PathSearchResult.Outcome.OVER_BUDGET, overBudget.outcome());
+        assertEquals(PathSearchResult.Outcome.NO_PATH, enclosed.outcome());
+    }
+
+    /**
+     * Workers settle nodes close to the sequential order, so the path is at most a move longer.
+     */
+    private static void assertWithinOneMove(PathSearchResult distributed, PathSearchResult sequential) {
+        assertTrue(distributed.moves() <= sequential.moves() + 1,
+                distributed.moves() + " moves against " + sequential.moves());
+    }
+}
@@ -0,0 +1,46 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash-distributed parallel search against the one-sided weighted search on a long leg around a
+ * barrier, by worker count. Scores only mean something on a box with at least as many idle cores
+ * as workers.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ParallelSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int workers;
+
+    @Param({"UNIDIRECTIONAL", "PARALLEL"})
+    public SearchMode mode;
+
+    private final Position start = new Position(-3.1900, 55.9440);
+    private final Position end = new Position(-3.1820, 55.9440);
+    private final ZoneIndex zones = ZoneIndex.compile(List.of(
+            BenchmarkZones.rectangle("barrier", -3.1862, 55.9380, -3.1858, 55.9500)));
+    private AStarPathfinder pathfinder;
+
+    @Setup
+    public void setUp() {
+        pathfinder = new AStarPathfinder(new GeometryService(), null, CollisionChecking.EAGER,
+                new SimpleMeterRegistry(), workers, 0);
+    }
+
+    @Benchmark
+    public int search() {
+        return pathfinder.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED, mode).moves();
+    }
+}
@@ -0,0 +1,34 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks shared by the pathfinding tests on the paths they are handed.
+ */
+final class PathAssertions {
+
+    private static final GeometryService GEOMETRY = new GeometryService();
+
+    private PathAssertions() {}
+
+    /**
+     * The path leaves exactly from start, ends within a move of end, and every move is one step
+     * long and clear of the zones.
+     */
+    static void assertFlyable(List<Position> path, Position start, Position end, ZoneIndex zones) {
+        assertFalse(path.isEmpty());
+        assertEquals(start, path.get(0));
+        assertTrue(GEOMETRY.checkPointsClose(path.get(path.size() - 1), end));
+        for (int i = 1; i < path.size(); i++) {
+            Position from = path.get(i - 1);
+            Position to = path.get(i);
+            assertEquals(Lattice.STEP_SIZE, GEOMETRY.calculateDistance(from, to), 1e-12, "move " + i);
+            assertFalse(zones.isBlockedMove(from.getLng(), from.getLat(), to.getLng(), to.getLat()),
+                    "move " + i + " is blocked");
+        }
+    }
+}
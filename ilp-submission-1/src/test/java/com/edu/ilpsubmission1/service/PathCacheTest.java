@@ -0,0 +1,172 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class PathCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PathCache pathCache = new PathCache(meterRegistry, 2, null, 0, Runnable::run);
+
+    @Test
+    void givenRepeatedLeg_whenFetching_thenComputedOnceAndCountedAsHit() {
+        ZoneIndex zones = ZoneIndex.compile(List.of(), 1);
+        AtomicInteger computations = new AtomicInteger();
+        Position start = new Position(-3.19, 55.94);
+        Position end = new Position(-3.18, 55.95);
+
+        List<Position> first = pathCache.get(start, end, zones, () -> {
+            computations.incrementAndGet();
+            return List.of(start, end);
+        });
+        List<Position> second = pathCache.get(new Position(-3.19, 55.94), new Position(-3.18, 55.95),
+                zones, () -> {
+                    computations.incrementAndGet();
+                    return List.of();
+                });
+
+        assertEquals(1, computations.get());
+        assertEquals(first, second);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "pathfinding.paths")
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "pathfinding.paths")
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void givenNewZoneVersion_whenFetching_thenPreviousEntriesAreNotServed() {
+        ZoneIndex v1 = ZoneIndex.compile(List.of(), 1);
+        ZoneIndex v2 = ZoneIndex.compile(List.of(), 2);
+        Position start = new Position(-3.19, 55.94);
+        Position end = new Position(-3.18, 55.95);
+        pathCache.putIfAbsent(start, end, v1, List.of(start, end));
+
+        assertTrue(pathCache.contains(start, end, v1));
+        assertFalse(pathCache.contains(start, end, v2));
+
+        pathCache.onZonesChanged(new ZoneIndexChangedEvent(v1, v2));
+
+        assertFalse(pathCache.contains(start, end, v1));
+        assertTrue(pathCache.contains(start, end, v2));
+    }
+
+    @Test
+    void givenZoneAddedAcrossOneLeg_whenZonesChange_thenOnlyThatLegIsRepaired() {
+        GeometryService geometryService = new GeometryService();
+        AStarPathfinder pathfinder = new AStarPathfinder(geometryService);
+        PathCache repairing = new PathCache(meterRegistry, 16, pathfinder, 16, Runnable::run);
+        Region keep = BenchmarkZones.rectangle("keep", -3.1900, 55.9500, -3.1890, 55.9510);
+        ZoneIndex v1 = ZoneIndex.compile(List.of(keep), 1);
+        ZoneIndex v2 = ZoneIndex.compile(List.of(keep,
+                BenchmarkZones.rectangle("barrier", -3.1862, 55.9420, -3.1858, 55.9460)), 2);
+        Position start = new Position(-3.1880, 55.9440);
+        Position end = new Position(-3.1840, 55.9440);
+        Position north = new Position(-3.1880, 55.9480);
+        Position northEast = new Position(-3.1840, 55.9480);
+        List<Position> crossing = pathfinder.search(start, end, v1);
+        List<Position> clear = pathfinder.search(north, northEast, v1);
+        repairing.put(start, end, v1, crossing);
+        repairing.put(north, northEast, v1, clear);
+
+        repairing.onZonesChanged(new ZoneIndexChangedEvent(v1, v2));
+
+        List<Position> repaired = repairing.getIfPresent(start, end, v2);
+        assertSame(clear.get(1), repairing.getIfPresent(north, northEast, v2).get(1));
+        PathAssertions.assertFlyable(repaired, crossing.get(0), end, v2);
+    }
+
+    @Test
+    void givenZoneRemoved_whenZonesChange_thenPathsKeptAndMissingLegsDropped() {
+        Region wall = BenchmarkZones.rectangle("wall", 0.001, -0.001, 0.0011, 0.001);
+        ZoneIndex v1 = ZoneIndex.compile(List.of(wall), 1);
+        ZoneIndex v2 = ZoneIndex.compile(List.of(), 2);
+        Position start = new Position(0.0, 0.0);
+        Position end = new Position(0.0, 0.0003);
+        Position unreachable = new Position(0.002, 0.0);
+        pathCache.put(start, end, v1, List.of(start, new Position(0.0, 0.00015), end));
+        pathCache.put(start, unreachable, v1, List.of());
+
+        pathCache.onZonesChanged(new ZoneIndexChangedEvent(v1, v2));
+
+        assertTrue(pathCache.contains(start, end, v2));
+        assertFalse(pathCache.contains(start, unreachable, v2));
+    }
+
+    @Test
+    void givenZoneRemovedBesideDetour_whenZonesChange_thenLegIsReplannedShorter() {
+        AStarPathfinder pathfinder = new AStarPathfinder(new GeometryService());
+        PathCache replanning = new PathCache(meterRegistry, 16, pathfinder, 16, Runnable::run);
+        ZoneIndex v1 = ZoneIndex.compile(List.of(BenchmarkZones.rectangle("wall", -3.1862, 55.9420, -3.1858, 55.9460)), 1);
+        ZoneIndex v2 = ZoneIndex.compile(List.of(), 2);
+        Position start = new Position(-3.1880, 55.9440);
+        Position end = new Position(-3.1840, 55.9440);
+        List<Position> detour = pathfinder.search(start, end, v1);
+        replanning.put(start, end, v1, detour);
+
+        replanning.onZonesChanged(new ZoneIndexChangedEvent(v1, v2));
+
+        List<Position> replanned = replanning.getIfPresent(start, end, v2);
+        assertEquals(pathfinder.search(start, end, v2).size(), replanned.size());
+        assertTrue(replanned.size() < detour.size());
+    }
+
+    @Test
+    void givenGoalWalledInByAddedZones_whenReplanHitsIterationLimit_thenLegIsDroppedNotCachedAsUnreachable() {
+        AStarPathfinder pathfinder = new AStarPathfinder(new GeometryService());
+        PathCache repairing = new PathCache(meterRegistry, 16, pathfinder, 16, Runnable::run);
+        ZoneIndex v1 = ZoneIndex.compile(List.of(), 1);
+        ZoneIndex v2 = ZoneIndex.compile(List.of(
+                BenchmarkZones.rectangle("south", 0.0025, -0.0005, 0.0035, -0.0004),
+                BenchmarkZones.rectangle("north", 0.0025, 0.0004, 0.0035, 0.0005),
+                BenchmarkZones.rectangle("west", 0.0025, -0.0005, 0.0026, 0.0005),
+                BenchmarkZones.rectangle("east", 0.0034, -0.0005, 0.0035, 0.0005)), 2);
+        Position start = new Position(0.0, 0.0);
+        Position end = new Position(0.003, 0.0);
+        repairing.put(start, end, v1, pathfinder.search(start, end, v1));
+
+        repairing.onZonesChanged(new ZoneIndexChangedEvent(v1, v2));
+
+        assertEquals(PathSearchResult.Outcome.ITERATION_LIMIT,
+                pathfinder.search(start, end, v2, AStarPathfinder.UNBOUNDED).outcome());
+        assertFalse(repairing.contains(start, end, v2));
+    }
+
+    @Test
+    void givenOlderZoneChangeAnnouncedLate_whenZonesChange_thenNewerEntriesAreKept() {
+        ZoneIndex v1 = ZoneIndex.compile(List.of(), 1);
+        ZoneIndex v2 = ZoneIndex.compile(List.of(), 2);
+        ZoneIndex v3 = ZoneIndex.compile(List.of(), 3);
+        Position start = new Position(-3.19, 55.94);
+        Position end = new Position(-3.18, 55.95);
+        pathCache.onZonesChanged(new ZoneIndexChangedEvent(v2, v3));
+        pathCache.put(start, end, v3, List.of(start, end));
+
+        pathCache.onZonesChanged(new ZoneIndexChangedEvent(v1, v2));
+
+        assertTrue(pathCache.contains(start, end, v3));
+        assertFalse(pathCache.contains(start, end, v2));
+    }
+
+    @Test
+    void givenMoreLegsThanCapacity_whenFetching_thenOldEntriesAreEvicted() {
+        ZoneIndex zones = ZoneIndex.compile(List.of(), 1);
+        Position base = new Position(0.0, 0.0);
+
+        for (int i = 1; i <= 5; i++) {
+            Position target = new Position(i * 0.001, 0.0);
+            pathCache.get(base, target, zones, () -> List.of(base, target));
+        }
+
+        assertTrue(pathCache.size() <= 2);
+        assertTrue(pathCache.stats().evictionCount() >= 3);
+    }
+}
@@ -0,0 +1,148 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Drone;
+import com.edu.ilpsubmission1.dtos.MedDispatchRec;
+import com.edu.ilpsubmission1.dtos.Position;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class SavingsPlannerTest {
+
+    private final Position base = new Position(0.0, 0.0);
+    private final SavingsPlanner.Candidate small = new SavingsPlanner.Candidate("small", base,
+            new Drone.Capability(false, false, 4, 100, 0.05, 1, 1));
+    private final SavingsPlanner.Candidate large = new SavingsPlanner.Candidate("large", base,
+            new Drone.Capability(false, false, 12, 100, 0.1, 2, 2));
+
+    @Test
+    void givenTwoNearbyDeliveriesAndOneOpposite_whenPlanning_thenNearbyOnesShareCheapestDrone() {
+        MedDispatchRec near = dispatch(1, 0.0006, 0.0, 1.0, null);
+        MedDispatchRec farther = dispatch(2, 0.0012, 0.0, 1.0, null);
+        MedDispatchRec opposite = dispatch(3, -0.0015, 0.0, 1.0, null);
+        List<MedDispatchRec> dispatches = List.of(near, farther, opposite);
+
+        List<SavingsPlanner.Route> routes = plan(dispatches, List.of(small, large));
+
+        assertEquals(2, routes.size());
+        assertEquals(List.of(near, farther), routes.get(0).dispatches());
+        assertSame(small, routes.get(0).drone());
+        assertEquals(List.of(opposite), routes.get(1).dispatches());
+    }
+
+    @Test
+    void givenLoadsTooHeavyTogether_whenPlanning_thenOnlyLargerDroneJoinsThem() {
+        MedDispatchRec near = dispatch(1, 0.0006, 0.0, 3.0, null);
+        MedDispatchRec farther = dispatch(2, 0.0012, 0.0, 3.0, null);
+
+        List<SavingsPlanner.Route> smallOnly = plan(List.of(near, farther), List.of(small));
+        List<SavingsPlanner.Route> both = plan(List.of(near, farther), List.of(small, large));
+
+        assertEquals(2, smallOnly.size());
+        assertTrue(smallOnly.stream().allMatch(route -> route.drone() == small));
+        assertEquals(1, both.size());
+        assertSame(large, both.get(0).drone());
+    }
+
+    @Test
+    void givenDispatchesTooCostlyAlone_whenPlanning_thenJoinedTripSharesCostAndIneligibleHasNoDrone() {
+        MedDispatchRec near = dispatch(1, 0.0006, 0.0, 1.0, 1.4);
+        MedDispatchRec farther = dispatch(2, 0.0012, 0.0, 1.0, 1.5);
+        MedDispatchRec stranded = dispatch(3, 0.0, 0.0009, 1.0, null);
+        List<MedDispatchRec> dispatches = List.of(near, farther, stranded);
+
+        List<SavingsPlanner.Route> routes = SavingsPlanner.plan(dispatches,
+                Map.of(1L, List.of("small"), 2L, List.of("small"), 3L, List.of()), List.of(small),
+                matrix(dispatches), Deadline.NONE);
+
+        assertEquals(2, routes.size());
+        assertEquals(List.of(near, farther), routes.get(0).dispatches(), "alone they cost 2.35 and 2.75");
+        assertSame(small, routes.get(0).drone(), "together 2.75, so 1.375 each");
+        assertEquals(List.of(stranded), routes.get(1).dispatches());
+        assertNull(routes.get(1).drone());
+    }
+
+    @Test
+    void givenDronesAtDifferentBases_whenJoiningTrip_thenOrderImprovedFromTheChosenDronesBase() {
+        Position west = new Position(-0.003, 0.0003);
+        Position south = new Position(0.0003, -0.003);
+        SavingsPlanner.Candidate fromWest = new SavingsPlanner.Candidate("west", west,
+                new Drone.Capability(false, false, 4, 200, 0.5, 1, 1));
+        SavingsPlanner.Candidate fromSouth = new SavingsPlanner.Candidate("south", south,
+                new Drone.Capability(false, false, 4, 200, 0.05, 1, 1));
+        List<MedDispatchRec> square = List.of(dispatch(1, 0.0, 0.0, 1.0, null),
+                dispatch(2, 0.0006, 0.0, 1.0, null), dispatch(3, 0.0006, 0.0006, 1.0, null),
+                dispatch(4, 0.0, 0.0006, 1.0, null));
+        Map<Long, List<String>> eligible = new HashMap<>();
+        square.forEach(dispatch -> eligible.put(dispatch.getId(), List.of("west", "south")));
+        LegCostMatrix costs = matrix(List.of(west, south), square);
+
+        List<SavingsPlanner.Route> routes = SavingsPlanner.plan(square, eligible, List.of(fromWest, fromSouth),
+                costs, Deadline.NONE);
+
+        assertEquals(1, routes.size());
+        assertSame(fromSouth, routes.get(0).drone());
+        int fewest = Integer.MAX_VALUE;
+        for (List<MedDispatchRec> order : permutations(square)) {
+            fewest = Math.min(fewest, costs.tripMoves(south, stops(order)));
+        }
+        assertEquals(fewest, costs.tripMoves(south, stops(routes.get(0).dispatches())));
+    }
+
+    private List<SavingsPlanner.Route> plan(List<MedDispatchRec> dispatches, List<SavingsPlanner.Candidate> fleet) {
+        List<String> ids = fleet.stream().map(SavingsPlanner.Candidate::droneId).toList();
+        Map<Long, List<String>> eligible = new HashMap<>();
+        dispatches.forEach(dispatch -> eligible.put(dispatch.getId(), ids));
+        return SavingsPlanner.plan(dispatches, eligible, fleet, matrix(dispatches), Deadline.NONE);
+    }
+
+    private LegCostMatrix matrix(List<MedDispatchRec> dispatches) {
+        return matrix(List.of(base), dispatches);
+    }
+
+    /** legs as long as the straight line in whole moves */
+    private static LegCostMatrix matrix(List<Position> bases, List<MedDispatchRec> dispatches) {
+        return LegCostMatrix.compute(bases, stops(dispatches),
+                (from, to) -> CompletableFuture.completedFuture(Collections.nCopies(
+                        AStarPathfinder.minimumMoves(from, to) + 1, from)));
+    }
+
+    private static List<Position> stops(List<MedDispatchRec> dispatches) {
+        return dispatches.stream().map(MedDispatchRec::getDelivery).toList();
+    }
+
+    private static List<List<MedDispatchRec>> permutations(List<MedDispatchRec> dispatches) {
+        if (dispatches.isEmpty()) return List.of(List.of());
+        List<List<MedDispatchRec>> orders = new ArrayList<>();
+        for (MedDispatchRec first : dispatches) {
+            List<MedDispatchRec> rest = new ArrayList<>(dispatches);
+            rest.remove(first);
+            for (List<MedDispatchRec> order : permutations(rest)) {
+                List<MedDispatchRec> joined = new ArrayList<>(List.of(first));
+                joined.addAll(order);
+                orders.add(joined);
+            }
+        }
+        return orders;
+    }
+
+    private static MedDispatchRec dispatch(long id, double lng, double lat, double capacity, Double maxCost) {
+        MedDispatchRec dispatch = new MedDispatchRec();
+        dispatch.setId(id);
+        dispatch.setDelivery(new Position(lng, lat));
+        MedDispatchRec.Requirements requirements = new MedDispatchRec.Requirements();
+        requirements.setCapacity(capacity);
+        requirements.setMaxCost(maxCost);
+        dispatch.setRequirements(requirements);
+        return dispatch;
+    }
+}
@@ -0,0 +1,54 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state allocation of the lattice searches, which reuse the thread's search arenas. Read
+ * gc.alloc.rate.norm: what remains per search is the returned path, the goal and the result.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark="SearchAllocationBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchAllocationBenchmark {
+
+    @Param({"centralArea", "barrier"})
+    public String layout;
+
+    @Param({"UNIDIRECTIONAL", "BIDIRECTIONAL"})
+    public SearchMode mode;
+
+    private final AStarPathfinder pathfinder = new AStarPathfinder(new GeometryService());
+    private Position start;
+    private Position end;
+    private ZoneIndex zones;
+
+    @Setup
+    public void setUp() {
+        switch (layout) {
+            case "centralArea" -> {
+                start = new Position(-3.1925, 55.9455);
+                end = new Position(-3.1850, 55.9440);
+                zones = ZoneIndex.compile(BenchmarkZones.centralArea());
+            }
+            case "barrier" -> {
+                start = new Position(-3.1900, 55.9440);
+                end = new Position(-3.1820, 55.9440);
+                zones = ZoneIndex.compile(List.of(BenchmarkZones.rectangle("barrier", -3.1862, 55.9380, -3.1858, 55.9500)));
+            }
+            default -> throw new IllegalArgumentException(layout);
+        }
+    }
+
+    @Benchmark
+    public int search() {
+        return pathfinder.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED, mode).moves();
+    }
+}
@@ -0,0 +1,77 @@
+package com.edu.ilpsubmission1.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class SearchArenaTest {
+
+    @Test
+    void givenRandomCostsAndUpdates_whenPollingAll_thenLowestKeyFirstWithTiesByHeuristicThenOrder() {
+        Random random = new Random(42);
+        SearchArena arena = new SearchArena();
+
+        for (int i = 0; i < 3000; i++) {
+            arena.push(arena.add(i, i, 0, random.nextInt(50), random.nextInt(10), SearchArena.NONE, SearchArena.NONE));
+        }
+        for (int i = 0; i < 500; i++) {
+            int node = random.nextInt(arena.size());
+            arena.relink(node, node, 0, arena.g[node] + random.nextInt(11) - 5, arena.h[node], SearchArena.NONE,
+                    SearchArena.NONE);
+            arena.update(node);
+        }
+
+        int previous = arena.poll();
+        while (!arena.isQueueEmpty()) {
+            int next = arena.poll();
+            assertFalse(arena.isQueued(next));
+            assertTrue(arena.f[previous] < arena.f[next]
+                    || arena.f[previous] == arena.f[next] && arena.h[previous] <= arena.h[next]);
+            previous = next;
+        }
+    }
+
+    @Test
+    void givenGrownArena_whenReset_thenCellsAreForgottenAndIndicesReused() {
+        SearchArena arena = new SearchArena();
+        int root = arena.add(Lattice.pack(-5, 7), 0.1, 0.2, 0, 1, SearchArena.NONE, SearchArena.NONE);
+        int previous = root;
+        for (int i = 1; i < 5000; i++) {
+            previous = arena.add(Lattice.pack(i, -i), i, -i, i, 0, previous, i % Lattice.DIRECTION_COUNT);
+        }
+
+        assertEquals(root, arena.find(Lattice.pack(-5, 7)));
+        assertEquals(4999, arena.find(Lattice.pack(4999, -4999)));
+        assertEquals(4999, arena.depth(previous));
+        assertEquals(0.2, arena.lat[root]);
+
+        arena.reset();
+
+        assertEquals(0, arena.size());
+        assertTrue(arena.isQueueEmpty());
+        assertEquals(SearchArena.NONE, arena.find(Lattice.pack(-5, 7)));
+        assertEquals(SearchArena.NONE, arena.find(Lattice.pack(4999, -4999)));
+        assertEquals(0, arena.add(Lattice.pack(4999, -4999), 0, 0, 0, 0, SearchArena.NONE, SearchArena.NONE));
+        assertEquals(0, arena.find(Lattice.pack(4999, -4999)));
+    }
+
+    @Test
+    void givenArenaGrownPastRetainedSize_whenTrimmed_thenStillUsable() {
+        SearchArena arena = new SearchArena();
+        for (int i = 0; i <= SearchArena.RETAINED_NODES; i++) {
+            arena.add(i, i, 0, 0, 0, SearchArena.NONE, SearchArena.NONE);
+        }
+
+        arena.trim();
+
+        assertEquals(0, arena.size());
+        assertEquals(SearchArena.NONE, arena.find(1));
+        int node = arena.add(1, 1, 0, 0, 0, SearchArena.NONE, SearchArena.NONE);
+        arena.push(node);
+        assertEquals(node, arena.poll());
+    }
+}
@@ -0,0 +1,77 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.client.IlpRestClient;
+import com.edu.ilpsubmission1.dtos.Drone;
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.ServicePoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+class ServicePointTreeTest {
+
+    private final GeometryService geometryService = new GeometryService();
+    private final Position base = new Position(-3.1863580788986368, 55.94468066708487);
+    /** a wall east of the base and a closed box around (-3.1890, 55.9420) */
+    private final ZoneIndex zones = ZoneIndex.compile(List.of(
+            BenchmarkZones.rectangle("wall", -3.1845, 55.9430, -3.1841, 55.9465),
+            BenchmarkZones.rectangle("box-south", -3.1896, 55.9414, -3.1884, 55.9415),
+            BenchmarkZones.rectangle("box-north", -3.1896, 55.9425, -3.1884, 55.9426),
+            BenchmarkZones.rectangle("box-west", -3.1896, 55.9414, -3.1895, 55.9426),
+            BenchmarkZones.rectangle("box-east", -3.1885, 55.9414, -3.1884, 55.9426)));
+
+    @Test
+    void givenTargetsBehindWall_whenWalkingTree_thenValidLegsAsShortAsWavefront() {
+        ServicePointTree tree = ServicePointTree.build(base, 120, zones);
+        List<Position> targets = List.of(new Position(-3.1825, 55.9447), new Position(-3.1830, 55.9470),
+                new Position(-3.1880, 55.9460));
+        List<List<Position>> searched = new AStarPathfinder(geometryService).searchMany(base, targets, zones);
+
+        for (int i = 0; i < targets.size(); i++) {
+            List<Position> leg = tree.walkTo(targets.get(i).getLng(), targets.get(i).getLat());
+            assertNotNull(leg);
+            PathAssertions.assertFlyable(leg, base, targets.get(i), zones);
+            assertTrue(leg.size() <= searched.get(i).size() + 1);
+        }
+    }
+
+    @Test
+    void givenTargetBeyondRadiusOrWalledIn_whenWalkingTree_thenNoLeg() {
+        ServicePointTree tree = ServicePointTree.build(base, 40, zones);
+
+        assertNull(tree.walkTo(-3.1700, 55.9447));
+        assertNull(tree.walkTo(-3.1890, 55.9420));
+    }
+
+    @Test
+    void givenTreesBuilt_whenLegRequested_thenOnlyServedForTheirZonesAndServicePoint() {
+        IlpRestClient client = mock(IlpRestClient.class);
+        when(client.getServicePointsJson()).thenReturn(new ServicePoint[]{
+                new ServicePoint(1L, "Appleton Tower", base)
+        });
+        when(client.getDronesJson()).thenReturn(new Drone[]{
+                new Drone("1", "Drone 1", new Drone.Capability(false, false, 4, 60, 0.01, 4.3, 6.5))
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ServicePointTreeService service = new ServicePointTreeService(client, new AStarPathfinder(geometryService),
+                null, geometryService, meterRegistry, true, 400);
+        Position target = new Position(-3.1825, 55.9447);
+
+        service.rebuild(zones);
+
+        List<Position> leg = service.legFrom(new Position(base.getLng(), base.getLat()), target, zones);
+        assertNotNull(leg);
+        assertTrue(geometryService.checkPointsClose(leg.get(leg.size() - 1), target));
+        assertNull(service.legFrom(base, target, ZoneIndex.compile(zones.zones(), 2)));
+        assertNull(service.legFrom(new Position(-3.19, 55.94), target, zones));
+        assertEquals(1, meterRegistry.get("pathfinding.trees.build").timer().count());
+        assertTrue(meterRegistry.get("pathfinding.trees.bytes").gauge().value() > 0);
+    }
+}
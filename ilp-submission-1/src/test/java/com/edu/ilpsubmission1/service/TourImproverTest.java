@@ -0,0 +1,103 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.MedDispatchRec;
+import com.edu.ilpsubmission1.dtos.Position;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class TourImproverTest {
+
+    private final Position base = new Position(0.0, 0.0);
+    private final MedDispatchRec east = dispatch(1, 0.0015, 0.0);
+    private final MedDispatchRec corner = dispatch(2, 0.0015, 0.0015);
+    private final MedDispatchRec north = dispatch(3, 0.0, 0.0015);
+    private final MedDispatchRec centre = dispatch(4, 0.0008, 0.0008);
+
+    @Test
+    void givenCrossingTour_whenImproved_thenFliesAroundTheSquareInFewerMoves() {
+        List<MedDispatchRec> crossing = List.of(east, north, corner, centre);
+        LegCostMatrix costs = straightLine(null);
+
+        List<MedDispatchRec> improved = TourImprover.improve(base, crossing, costs, Deadline.NONE);
+
+        assertEquals(new HashSet<>(crossing), new HashSet<>(improved));
+        assertTrue(moves(costs, improved) < moves(costs, crossing));
+        assertEquals(bestOrderMoves(costs, crossing), moves(costs, improved));
+    }
+
+    @Test
+    void givenLegWithoutPath_whenImproved_thenNeverFlown() {
+        LegCostMatrix costs = straightLine(corner);
+        List<MedDispatchRec> tour = List.of(east, north, corner);
+
+        List<MedDispatchRec> improved = TourImprover.improve(base, tour, costs, Deadline.NONE);
+
+        assertNotEquals(LegCostMatrix.NO_PATH, moves(costs, improved));
+        assertEquals(tour, improved, "corner is only reachable from north, so north must come right before it");
+    }
+
+    @Test
+    void givenExpiredDeadline_whenImproved_thenTourUnchanged() {
+        List<MedDispatchRec> crossing = List.of(east, north, corner);
+
+        List<MedDispatchRec> improved = TourImprover.improve(base, crossing, straightLine(null),
+                new Deadline(System.nanoTime() - 1));
+
+        assertEquals(crossing, improved);
+    }
+
+    /** legs as long as the straight line in whole moves; into blocked only from north */
+    private LegCostMatrix straightLine(MedDispatchRec blocked) {
+        List<Position> deliveries = List.of(east.getDelivery(), corner.getDelivery(), north.getDelivery(),
+                centre.getDelivery());
+        return LegCostMatrix.compute(List.of(base), deliveries, (from, to) -> {
+            boolean noPath = blocked != null && (to == blocked.getDelivery() && from != north.getDelivery()
+                    || from == blocked.getDelivery() && to != base);
+            return CompletableFuture.completedFuture(noPath ? List.of()
+                    : Collections.nCopies(AStarPathfinder.minimumMoves(from, to) + 1, from));
+        });
+    }
+
+    private int moves(LegCostMatrix costs, List<MedDispatchRec> tour) {
+        return costs.tripMoves(base, tour.stream().map(MedDispatchRec::getDelivery).toList());
+    }
+
+    private int bestOrderMoves(LegCostMatrix costs, List<MedDispatchRec> tour) {
+        int best = Integer.MAX_VALUE;
+        for (List<MedDispatchRec> order : permutations(tour)) {
+            best = Math.min(best, moves(costs, order));
+        }
+        return best;
+    }
+
+    private static List<List<MedDispatchRec>> permutations(List<MedDispatchRec> items) {
+        if (items.isEmpty()) return List.of(List.of());
+        List<List<MedDispatchRec>> all = new ArrayList<>();
+        for (MedDispatchRec first : items) {
+            List<MedDispatchRec> rest = items.stream().filter(item -> item != first).toList();
+            for (List<MedDispatchRec> tail : permutations(rest)) {
+                List<MedDispatchRec> order = new ArrayList<>();
+                order.add(first);
+                order.addAll(tail);
+                all.add(order);
+            }
+        }
+        return all;
+    }
+
+    private static MedDispatchRec dispatch(long id, double lng, double lat) {
+        MedDispatchRec dispatch = new MedDispatchRec();
+        dispatch.setId(id);
+        dispatch.setDelivery(new Position(lng, lat));
+        return dispatch;
+    }
+}
@@ -0,0 +1,80 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class VisibilityGraphTest {
+
+    private final Region barrier = BenchmarkZones.rectangle("barrier", -3.1862, 55.9380, -3.1858, 55.9500);
+
+    @Test
+    void givenRectangle_whenBuilding_thenEveryCornerIsPushedOutOfTheZone() {
+        ZoneIndex zones = ZoneIndex.compile(List.of(barrier));
+
+        VisibilityGraph graph = VisibilityGraph.build(zones);
+
+        assertEquals(4, graph.cornerCount());
+        double[] waypoints = graph.plan(-3.1900, 55.9440, -3.1820, 55.9440);
+        assertNotNull(waypoints);
+        assertEquals(4, waypoints.length, "one corner above or below each side of the barrier");
+        for (int i = 0; i < waypoints.length; i += 2) {
+            assertFalse(zones.isPointBlocked(waypoints[i], waypoints[i + 1]));
+            assertTrue(Math.abs(waypoints[i + 1] - 55.9440) > 0.006);
+        }
+    }
+
+    @Test
+    void givenVisibleOrEnclosedEnd_whenPlanning_thenNoWaypointsOrNoRoute() {
+        VisibilityGraph graph = VisibilityGraph.build(ZoneIndex.compile(List.of(barrier)));
+
+        assertEquals(0, graph.plan(-3.1900, 55.9440, -3.1870, 55.9450).length);
+        assertNull(graph.plan(-3.1900, 55.9440, -3.1860, 55.9440));
+    }
+
+    @Test
+    void givenLongBarrier_whenSearching_thenWaypointPathIsValidAndNearTheVisibilityDistance() {
+        GeometryService geometryService = new GeometryService();
+        AStarPathfinder pathfinder = new AStarPathfinder(geometryService);
+        ZoneIndex zones = ZoneIndex.compile(List.of(barrier));
+        Position start = new Position(-3.1900, 55.9440);
+        Position end = new Position(-3.1820, 55.9440);
+
+        List<Position> path = pathfinder.search(start, end, zones);
+
+        PathAssertions.assertFlyable(path, start, end, zones);
+
+        double[] waypoints = VisibilityGraph.build(zones).plan(start.getLng(), start.getLat(),
+                end.getLng(), end.getLat());
+        double planned = 0;
+        double lng = start.getLng(), lat = start.getLat();
+        for (int i = 0; i <= waypoints.length; i += 2) {
+            double toLng = i < waypoints.length ? waypoints[i] : end.getLng();
+            double toLat = i < waypoints.length ? waypoints[i + 1] : end.getLat();
+            planned += GeometryService.distance(lng, lat, toLng, toLat);
+            lng = toLng;
+            lat = toLat;
+        }
+        assertTrue((path.size() - 1) * Lattice.STEP_SIZE <= planned * 1.05 + 4 * Lattice.STEP_SIZE);
+    }
+
+    @Test
+    void givenLegTheLatticeSearchFinishes_whenSearching_thenWaypointChainDoesNotReplaceIt() {
+        AStarPathfinder pathfinder = new AStarPathfinder(new GeometryService());
+        ZoneIndex zones = ZoneIndex.compile(List.of(barrier));
+        Position start = new Position(-3.1900, 55.9440);
+        Position end = new Position(-3.1820, 55.9440);
+
+        List<Position> path = pathfinder.search(start, end, zones);
+        PathSearchResult searched = pathfinder.latticeSearch(start, end, zones, AStarPathfinder.UNBOUNDED,
+                SearchMode.UNIDIRECTIONAL);
+
+        assertEquals(searched.path(), path);
+    }
+}
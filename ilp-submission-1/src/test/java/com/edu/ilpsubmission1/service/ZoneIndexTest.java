@@ -0,0 +1,101 @@
+package com.edu.ilpsubmission1.service;
+
+import com.edu.ilpsubmission1.dtos.Position;
+import com.edu.ilpsubmission1.dtos.Region;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("unit")
+class ZoneIndexTest {
+
+    private final GeometryService geometryService = new GeometryService();
+
+    private final List<Region> zones = List.of(
+            BenchmarkZones.georgeSquare(),
+            BenchmarkZones.rectangle("block", -3.1862, 55.9440, -3.1855, 55.9460)
+    );
+
+    @Test
+    void givenRandomMovesAroundZones_whenCheckingIndex_thenMatchesGeometryService() {
+        ZoneIndex index = ZoneIndex.compile(zones);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20000; i++) {
+            double lng = -3.192 + random.nextDouble() * 0.008;
+            double lat = 55.942 + random.nextDouble() * 0.005;
+            int d = random.nextInt(Lattice.DIRECTION_COUNT);
+            double toLng = lng + Lattice.DX[d];
+            double toLat = lat + Lattice.DY[d];
+
+            assertEquals(legacyBlocked(lng, lat, toLng, toLat),
+                    index.isBlockedMove(lng, lat, toLng, toLat),
+                    "move from " + lng + "," + lat + " direction " + d);
+        }
+    }
+
+    @Test
+    void givenZoneVertex_whenCheckingPoint_thenBlocked() {
+        ZoneIndex index = ZoneIndex.compile(zones);
+
+        assertTrue(index.isPointBlocked(-3.1862, 55.9440));
+        assertFalse(index.isPointBlocked(-3.17, 55.95));
+    }
+
+    @Test
+    void givenNoZones_whenCheckingMove_thenNeverBlocked() {
+        ZoneIndex index = ZoneIndex.compile(List.of());
+
+        assertTrue(index.isEmpty());
+        assertFalse(index.isBlockedMove(0, 0, Lattice.STEP_SIZE, 0));
+    }
+
+    @Test
+    void givenOpenPolygon_whenCompiling_thenException() {
+        List<Position> open = new ArrayList<>(BenchmarkZones.georgeSquare().getVertices());
+        open.remove(open.size() - 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ZoneIndex.compile(List.of(new Region("open", open))));
+    }
+
+    @Test
+    void givenSameZonesTwice_whenRegistryCompiles_thenVersionKeptAndChangeAnnounced() {
+        List<Object> events = new ArrayList<>();
+        ZoneIndexRegistry registry = new ZoneIndexRegistry(events::add);
+
+        ZoneIndex first = registry.indexFor(zones);
+        ZoneIndex again = registry.indexFor(new ArrayList<>(zones));
+        ZoneIndex changed = registry.indexFor(zones.subList(0, 1));
+
+        assertSame(first, again);
+        assertTrue(changed.version() > first.version());
+        assertEquals(2, events.size());
+        assertEquals(new ZoneIndexChangedEvent(first, changed), events.get(1));
+    }
+
+    @Test
+    void givenZoneChange_whenAnnounced_thenListenersRunOutsideRegistryLock() {
+        AtomicReference<ZoneIndexRegistry> registry = new AtomicReference<>();
+        List<Boolean> heldLock = new ArrayList<>();
+        registry.set(new ZoneIndexRegistry(event -> heldLock.add(Thread.holdsLock(registry.get()))));
+
+        registry.get().indexFor(zones);
+
+        assertEquals(List.of(false), heldLock);
+    }
+
+    private boolean legacyBlocked(double fromLng, double fromLat, double toLng, double toLat) {
+        for (Region zone : zones) {
+            if (geometryService.isPointInRegion(toLng, toLat, zone)) return true;
+            if (geometryService.checkLineIntersectsRegion(fromLng, fromLat, toLng, toLat, zone)) return true;
+        }
+        return false;
+    }
+}